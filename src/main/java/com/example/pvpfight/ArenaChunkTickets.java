@@ -0,0 +1,108 @@
+package com.example.pvpfight;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.level.ChunkPos;
+import org.slf4j.Logger;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * ArenaChunkTickets.java
+ *
+ * Pre-warms arena chunks before players are teleported in.
+ * A region ticket is added for every chunk of the arena bounds as soon as the
+ * arena is claimed; the chunk system then loads them asynchronously and keeps
+ * them loaded until the ticket is released after cleanup.
+ */
+public class ArenaChunkTickets {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    /** Ticket type for claimed arenas (no lifespan – removed explicitly). */
+    public static final TicketType<ChunkPos> ARENA_TICKET =
+            TicketType.create("pvpfight_arena", Comparator.comparingLong(ChunkPos::toLong));
+
+    /**
+     * Ticket distance 2 → level 31, entity ticking on the arena chunks themselves
+     * (distance 1 only reaches level 32, where blocks tick but items, projectiles
+     * and mobs inside the arena would freeze).
+     */
+    private static final int TICKET_DISTANCE = 2;
+
+    private final TicketType<ChunkPos> type;
+    private final Map<ArenaData, Ticketed> ticketed = new IdentityHashMap<>();
+
+    public ArenaChunkTickets() {
+        this(ARENA_TICKET);
+    }
+
+    /** Tickets of another type, so two owners never remove each other's tickets on shared chunks. */
+    public ArenaChunkTickets(TicketType<ChunkPos> type) {
+        this.type = type;
+    }
+
+    /**
+     * Adds chunk tickets for the whole arena. Idempotent per arena.
+     */
+    public void acquire(ServerLevel level, ArenaData arena) {
+        if (level == null || arena == null || ticketed.containsKey(arena)) return;
+        if (arena.getCorner1() == null || arena.getCorner2() == null) return;
+
+        long[] chunks = chunksOf(arena);
+        ServerChunkCache cache = level.getChunkSource();
+        for (long packed : chunks) {
+            ChunkPos pos = new ChunkPos(packed);
+            cache.addRegionTicket(type, pos, TICKET_DISTANCE, pos);
+        }
+        ticketed.put(arena, new Ticketed(level, chunks));
+        LOGGER.debug("[ArenaChunkTickets] Ticketed {} chunks for arena '{}'", chunks.length, arena.getName());
+    }
+
+    /**
+     * True once every chunk of the arena is fully loaded (never blocks).
+     */
+    public boolean isReady(ArenaData arena) {
+        Ticketed t = ticketed.get(arena);
+        if (t == null) return false;
+        ServerChunkCache cache = t.level.getChunkSource();
+        for (long packed : t.chunks) {
+            if (!cache.hasChunk(ChunkPos.getX(packed), ChunkPos.getZ(packed))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removes the arena's tickets so its chunks can unload normally.
+     */
+    public void release(ArenaData arena) {
+        Ticketed t = ticketed.remove(arena);
+        if (t == null) return;
+        ServerChunkCache cache = t.level.getChunkSource();
+        for (long packed : t.chunks) {
+            ChunkPos pos = new ChunkPos(packed);
+            cache.removeRegionTicket(type, pos, TICKET_DISTANCE, pos);
+        }
+        LOGGER.debug("[ArenaChunkTickets] Released {} chunks for arena '{}'", t.chunks.length, arena.getName());
+    }
+
+    private static long[] chunksOf(ArenaData arena) {
+        int minCx = Math.min(arena.corner1.x, arena.corner2.x) >> 4;
+        int maxCx = Math.max(arena.corner1.x, arena.corner2.x) >> 4;
+        int minCz = Math.min(arena.corner1.z, arena.corner2.z) >> 4;
+        int maxCz = Math.max(arena.corner1.z, arena.corner2.z) >> 4;
+
+        long[] chunks = new long[(maxCx - minCx + 1) * (maxCz - minCz + 1)];
+        int i = 0;
+        for (int cx = minCx; cx <= maxCx; cx++)
+            for (int cz = minCz; cz <= maxCz; cz++)
+                chunks[i++] = ChunkPos.asLong(cx, cz);
+        return chunks;
+    }
+
+    private record Ticketed(ServerLevel level, long[] chunks) {}
+}
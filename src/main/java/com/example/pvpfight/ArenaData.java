@@ -1,15 +1,29 @@
 package com.example.pvpfight;
 
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import com.mojang.logging.LogUtils;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.Level;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
 
 public class ArenaData {
 
     private transient static final Logger LOGGER = LogUtils.getLogger();
 
+    public static final String DEFAULT_DIMENSION = "minecraft:overworld";
+
     private transient ServerPlayer player1;
     private transient ServerPlayer player2;
     public String name;
@@ -18,6 +32,20 @@ public class ArenaData {
     public Pos spawn1;
     public Pos spawn2;
     public boolean available = true;
+    public String dimension = DEFAULT_DIMENSION;
+    public Set<String> tags = new LinkedHashSet<>();
+    // Extra spawns per team (index = team); teams 0 and 1 start with spawn1 / spawn2
+    public List<List<Pos>> teamSpawns = new ArrayList<>();
+
+    /** Footprint classes used for indexing/selection (largest horizontal side). */
+    public enum SizeClass { SMALL, MEDIUM, LARGE }
+
+    // Repository that indexes this arena (null while unregistered)
+    transient ArenaRepository repository;
+    // Release stamp for least-recently-used selection (0 = never used)
+    transient long lastUsed;
+    // Placed by the ArenaInstancer; lives in memory only and is never saved
+    transient boolean instanced;
 
     // === Konstruktor ===
     public ArenaData() {}
@@ -49,36 +77,176 @@ public class ArenaData {
         return spawn2 != null ? spawn2.toBlockPos() : null;
     }
 
+    /**
+     * Spawn of the {@code member}-th fighter of {@code team}: the team's spawns
+     * (spawn1 / spawn2 first for teams 0 / 1, then the extra ones) are used in turn.
+     * Null if the team has no spawn.
+     */
+    public Pos spawnFor(int team, int member) {
+        Pos primary = team == 0 ? spawn1 : team == 1 ? spawn2 : null;
+        List<Pos> extra = teamSpawns != null && team < teamSpawns.size() ? teamSpawns.get(team) : List.of();
+        int size = spawnCount(team);
+        if (size == 0) return null;
+        int i = member % size;
+        if (primary != null) {
+            if (i == 0) return primary;
+            i--;
+        }
+        return extra.get(i);
+    }
+
+    /** Distinct spawns of {@code team}; more members than this share spawns. */
+    public int spawnCount(int team) {
+        Pos primary = team == 0 ? spawn1 : team == 1 ? spawn2 : null;
+        int extra = teamSpawns != null && team < teamSpawns.size() ? teamSpawns.get(team).size() : 0;
+        return (primary != null ? 1 : 0) + extra;
+    }
+
+    /** Number of teams this arena can host: 2, plus every following team with spawns. */
+    public int teamCount() {
+        int n = 2;
+        while (teamSpawns != null && n < teamSpawns.size() && !teamSpawns.get(n).isEmpty()) n++;
+        return n;
+    }
+
+    public String getDimension() {
+        return dimension != null ? dimension : DEFAULT_DIMENSION;
+    }
+
+    public Set<String> getTags() {
+        return tags != null ? tags : Set.of();
+    }
+
+    /**
+     * Size class by the largest horizontal side (≤24 small, ≤48 medium, else large).
+     */
+    public SizeClass getSizeClass() {
+        if (corner1 == null || corner2 == null) return SizeClass.SMALL;
+        int side = Math.max(Math.abs(corner1.x - corner2.x), Math.abs(corner1.z - corner2.z)) + 1;
+        if (side <= 24) return SizeClass.SMALL;
+        if (side <= 48) return SizeClass.MEDIUM;
+        return SizeClass.LARGE;
+    }
+
+    /**
+     * Level the arena lives in (falls back to the overworld if the dimension is unknown).
+     */
+    public ServerLevel resolveLevel(MinecraftServer server) {
+        ResourceLocation id = ResourceLocation.tryParse(getDimension());
+        ServerLevel level = id == null ? null : server.getLevel(ResourceKey.create(Registries.DIMENSION, id));
+        return level != null ? level : server.getLevel(Level.OVERWORLD);
+    }
 
     public boolean isAvailable() {
         return available;
     }
 
     public void setAvailable(boolean available) {
-        this.available = available;
+        if (repository != null) repository.availabilityChanged(this, available);
+        else this.available = available;
         LOGGER.info("[ArenaData] Arena '{}' ist jetzt {}.", name, available ? "frei" : "belegt");
     }
 
     public void setCorner1(BlockPos pos) {
-        this.corner1 = Pos.from(pos);
+        update(() -> this.corner1 = Pos.from(pos));
         LOGGER.info("[ArenaData] Corner 1 for arena '{}' set to {}", name, corner1);
     }
 
     public void setCorner2(BlockPos pos) {
-        this.corner2 = Pos.from(pos);
+        update(() -> this.corner2 = Pos.from(pos));
         LOGGER.info("[ArenaData] Corner 2 for arena '{}' set to {}", name, corner2);
     }
 
     public void setSpawn1(BlockPos pos) {
-        this.spawn1 = Pos.from(pos);
+        update(() -> this.spawn1 = Pos.from(pos));
         LOGGER.info("[ArenaData] Spawn point 1 for arena '{}' set to {}", name, spawn1);
     }
 
     public void setSpawn2(BlockPos pos) {
-        this.spawn2 = Pos.from(pos);
+        update(() -> this.spawn2 = Pos.from(pos));
         LOGGER.info("[ArenaData] Spawn point 2 for arena '{}' set to {}", name, spawn2);
     }
 
+    /** Adds an extra spawn to the team (0-based). */
+    public void addTeamSpawn(int team, BlockPos pos) {
+        update(() -> {
+            if (teamSpawns == null) teamSpawns = new ArrayList<>();
+            while (teamSpawns.size() <= team) teamSpawns.add(new ArrayList<>());
+            teamSpawns.get(team).add(Pos.from(pos));
+        });
+        LOGGER.info("[ArenaData] Extra spawn for team {} of arena '{}' added at {}", team + 1, name, Pos.from(pos));
+    }
+
+    /** Removes the team's extra spawns; returns false if it had none. */
+    public boolean clearTeamSpawns(int team) {
+        if (teamSpawns == null || team >= teamSpawns.size() || teamSpawns.get(team).isEmpty()) return false;
+        update(() -> {
+            teamSpawns.get(team).clear();
+            while (!teamSpawns.isEmpty() && teamSpawns.get(teamSpawns.size() - 1).isEmpty()) {
+                teamSpawns.remove(teamSpawns.size() - 1);
+            }
+        });
+        return true;
+    }
+
+    public void setDimension(String dimension) {
+        update(() -> this.dimension = dimension);
+    }
+
+    public boolean addTag(String tag) {
+        if (tag == null || tag.isBlank() || getTags().contains(tag.toLowerCase(Locale.ROOT))) return false;
+        update(() -> {
+            if (tags == null) tags = new LinkedHashSet<>();
+            tags.add(tag.toLowerCase(Locale.ROOT));
+        });
+        return true;
+    }
+
+    public boolean removeTag(String tag) {
+        if (tag == null || !getTags().contains(tag.toLowerCase(Locale.ROOT))) return false;
+        update(() -> tags.remove(tag.toLowerCase(Locale.ROOT)));
+        return true;
+    }
+
+    /** Applies a change to indexed fields, keeping the repository indexes in sync. */
+    private void update(Runnable change) {
+        if (repository != null) repository.geometryChanged(this, change);
+        else change.run();
+    }
+
+    /**
+     * Unregistered copy of this arena shifted by (dx, dy, dz) into another dimension
+     * (corners, spawns, team spawns and tags are carried over).
+     */
+    public ArenaData copyShifted(String newName, int dx, int dy, int dz, String newDimension) {
+        ArenaData copy = new ArenaData(newName);
+        copy.corner1 = shift(corner1, dx, dy, dz);
+        copy.corner2 = shift(corner2, dx, dy, dz);
+        copy.spawn1 = shift(spawn1, dx, dy, dz);
+        copy.spawn2 = shift(spawn2, dx, dy, dz);
+        copy.dimension = newDimension;
+        copy.tags = new LinkedHashSet<>(getTags());
+        if (teamSpawns != null) {
+            for (List<Pos> spawns : teamSpawns) {
+                List<Pos> shifted = new ArrayList<>(spawns.size());
+                for (Pos pos : spawns) shifted.add(shift(pos, dx, dy, dz));
+                copy.teamSpawns.add(shifted);
+            }
+        }
+        return copy;
+    }
+
+    /** Unregistered copy with the same name and availability, for saving off the server thread. */
+    public ArenaData snapshot() {
+        ArenaData copy = copyShifted(name, 0, 0, 0, getDimension());
+        copy.available = available;
+        return copy;
+    }
+
+    private static Pos shift(Pos pos, int dx, int dy, int dz) {
+        return pos == null ? null : new Pos(pos.x + dx, pos.y + dy, pos.z + dz);
+    }
+
     // === Validierung ===
 
     /**
@@ -93,22 +261,36 @@ public class ArenaData {
         return ready;
     }
 
+    /**
+     * Wie {@link #isConfigured()}, aber ohne Log-Ausgabe (für Indizes).
+     */
+    public boolean isComplete() {
+        return corner1 != null && corner2 != null && spawn1 != null && spawn2 != null;
+    }
+
     /**
      * Prüft, ob ein bestimmter Punkt innerhalb der Arenagrenzen liegt.
      */
     public boolean isInside(BlockPos pos) {
+        return isInside(pos.getX(), pos.getY(), pos.getZ(), 0);
+    }
+
+    /**
+     * Wie {@link #isInside(BlockPos)}, mit um {@code margin} Blöcke erweiterten Grenzen.
+     */
+    public boolean isInside(int x, int y, int z, int margin) {
         if (corner1 == null || corner2 == null) return false;
 
-        int minX = Math.min(corner1.getX(), corner2.getX());
-        int maxX = Math.max(corner1.getX(), corner2.getX());
-        int minY = Math.min(corner1.getY(), corner2.getY());
-        int maxY = Math.max(corner1.getY(), corner2.getY());
-        int minZ = Math.min(corner1.getZ(), corner2.getZ());
-        int maxZ = Math.max(corner1.getZ(), corner2.getZ());
+        int minX = Math.min(corner1.getX(), corner2.getX()) - margin;
+        int maxX = Math.max(corner1.getX(), corner2.getX()) + margin;
+        int minY = Math.min(corner1.getY(), corner2.getY()) - margin;
+        int maxY = Math.max(corner1.getY(), corner2.getY()) + margin;
+        int minZ = Math.min(corner1.getZ(), corner2.getZ()) - margin;
+        int maxZ = Math.max(corner1.getZ(), corner2.getZ()) + margin;
 
-        return pos.getX() >= minX && pos.getX() <= maxX
-                && pos.getY() >= minY && pos.getY() <= maxY
-                && pos.getZ() >= minZ && pos.getZ() <= maxZ;
+        return x >= minX && x <= maxX
+                && y >= minY && y <= maxY
+                && z >= minZ && z <= maxZ;
     }
 
     // === Hilfsmethoden ===
@@ -125,6 +307,9 @@ public class ArenaData {
                 ", corner2=" + formatPos(corner2) +
                 ", spawn1=" + formatPos(spawn1) +
                 ", spawn2=" + formatPos(spawn2) +
+                ", teams=" + teamCount() +
+                ", dimension=" + getDimension() +
+                ", tags=" + getTags() +
                 ", available=" + available +
                 '}';
     }
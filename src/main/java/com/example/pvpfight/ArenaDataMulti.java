@@ -1,37 +1,29 @@
 package com.example.pvpfight;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.mojang.logging.LogUtils;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.network.chat.Component;
 import org.slf4j.Logger;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * ArenaDataMulti.java
  *
  * Handles creation, storage, and management of multiple PvP arenas.
- * All arenas are persistent via JSON and thread-safe.
+ * All arenas are persistent via the versioned {@link ArenaStore} and thread-safe.
  */
 public class ArenaDataMulti {
 
     private static final Logger LOGGER = LogUtils.getLogger();
-    private static final Gson GSON = new GsonBuilder()
-            .setPrettyPrinting()
-            .disableHtmlEscaping()
-            .create();
-    private static final File ARENA_FILE = new File("config/pvpfight/arenas.json");
 
-    // Thread-safe map for all arenas
-    private static final Map<String, ArenaData> ARENAS = new ConcurrentHashMap<>();
+    // Indexed store for all arenas (name, free/busy, dimension, size, tags)
+    private static final ArenaRepository REPOSITORY = new ArenaRepository();
+
+    // Arena each admin is currently editing (set by /arena new and /arena select)
+    private static final Map<UUID, String> ADMIN_SELECTION = new ConcurrentHashMap<>();
 
     public void createArena(ServerPlayer admin, String name) {
         if (name == null || name.isEmpty()) {
@@ -40,8 +32,7 @@ public class ArenaDataMulti {
             return;
         }
 
-        String key = name.toLowerCase();
-        if (ARENAS.containsKey(key)) {
+        if (REPOSITORY.get(name) != null) {
             if (admin != null)
                 admin.sendSystemMessage(Component.literal("§eArena already exists: §6" + name));
             LOGGER.warn("[ArenaDataMulti] Arena '{}' already exists.", name);
@@ -49,7 +40,8 @@ public class ArenaDataMulti {
         }
 
         ArenaData arena = new ArenaData(name);
-        ARENAS.put(key, arena);
+        REPOSITORY.put(arena);
+        if (admin != null) ADMIN_SELECTION.put(admin.getUUID(), name);
         LOGGER.info("[ArenaDataMulti] Created arena '{}', waiting for setup...", name);
 
 
@@ -60,7 +52,7 @@ public class ArenaDataMulti {
     }
     
     public ArenaData getArenaByPlayer(ServerPlayer player) {
-        for (ArenaData arena : ARENAS.values()) {
+        for (ArenaData arena : REPOSITORY.all()) {
             if (arena.isOccupied() && arena.hasPlayer(player)) {
                 return arena;
             }
@@ -74,10 +66,11 @@ public class ArenaDataMulti {
     public void setCorner(ServerPlayer admin, int id) {
         ArenaData arena = getAdminArena(admin);
         if (arena == null) {
-            admin.sendSystemMessage(Component.literal("§cYou must first select an arena (/arena_new <name>)."));
+            admin.sendSystemMessage(Component.literal("§cYou must first select an arena (/arena new <name> or /arena select <name>)."));
             return;
         }
 
+        arena.setDimension(admin.serverLevel().dimension().location().toString());
         if (id == 1)
             arena.setCorner1(admin.blockPosition());
         else
@@ -93,7 +86,7 @@ public class ArenaDataMulti {
     public void setSpawn(ServerPlayer admin, int id) {
         ArenaData arena = getAdminArena(admin);
         if (arena == null) {
-            admin.sendSystemMessage(Component.literal("§cYou must first select an arena (/arena_new <name>)."));
+            admin.sendSystemMessage(Component.literal("§cYou must first select an arena (/arena new <name> or /arena select <name>)."));
             return;
         }
 
@@ -105,6 +98,40 @@ public class ArenaDataMulti {
         admin.sendSystemMessage(Component.literal("§aSpawn §e" + id + " §aset for arena §6" + arena.getName()));
         LOGGER.info("[ArenaDataMulti] Admin {} set spawn {} for arena '{}'", admin.getName().getString(), id, arena.getName());
     }
+
+    /**
+     * Adds the admin's position as an extra spawn of team {@code team} (1-based).
+     * Teams 3+ need at least one to be usable.
+     */
+    public void addTeamSpawn(ServerPlayer admin, int team) {
+        ArenaData arena = getAdminArena(admin);
+        if (arena == null) {
+            admin.sendSystemMessage(Component.literal("§cYou must first select an arena (/arena new <name> or /arena select <name>)."));
+            return;
+        }
+
+        arena.addTeamSpawn(team - 1, admin.blockPosition());
+        saveArenas();
+        admin.sendSystemMessage(Component.literal("§aSpawn added for team §e" + team + " §aof arena §6" + arena.getName()
+                + " §7(hosts " + arena.teamCount() + " teams)"));
+    }
+
+    /** Removes the extra spawns of team {@code team} (1-based). */
+    public void clearTeamSpawns(ServerPlayer admin, int team) {
+        ArenaData arena = getAdminArena(admin);
+        if (arena == null) {
+            admin.sendSystemMessage(Component.literal("§cYou must first select an arena (/arena new <name> or /arena select <name>)."));
+            return;
+        }
+
+        if (!arena.clearTeamSpawns(team - 1)) {
+            admin.sendSystemMessage(Component.literal("§7Team §e" + team + " §7has no extra spawns."));
+            return;
+        }
+        saveArenas();
+        admin.sendSystemMessage(Component.literal("§aExtra spawns of team §e" + team + " §aremoved from arena §6" + arena.getName()));
+    }
+
     /**
      * Finalizes and saves an arena after all corners and spawns are set.
      */
@@ -129,15 +156,20 @@ public class ArenaDataMulti {
      * Shows info about all loaded arenas to the admin.
      */
     public void printInfo(ServerPlayer admin) {
-        if (ARENAS.isEmpty()) {
+        if (REPOSITORY.isEmpty()) {
             admin.sendSystemMessage(Component.literal("§7No arenas available."));
             return;
         }
 
-        admin.sendSystemMessage(Component.literal("§6==== Arena List ===="));
-        for (ArenaData arena : ARENAS.values()) {
+        admin.sendSystemMessage(Component.literal("§6==== Arena List ==== §7(" + REPOSITORY.freeCount() + " free, "
+                + REPOSITORY.busyCount() + " busy)"));
+        for (String name : REPOSITORY.sortedNames()) {
+            ArenaData arena = REPOSITORY.get(name);
+            if (arena == null) continue;
             String status = arena.isAvailable() ? "§aAVAILABLE" : "§cBUSY";
-            admin.sendSystemMessage(Component.literal("§e" + arena.getName() + " §7- " + status));
+            String tags = arena.getTags().isEmpty() ? "" : " §8" + arena.getTags();
+            admin.sendSystemMessage(Component.literal("§e" + arena.getName() + " §7- " + status
+                    + " §7" + arena.getDimension() + " " + arena.getSizeClass() + tags));
         }
     }
 
@@ -145,7 +177,8 @@ public class ArenaDataMulti {
      * Clears all arenas from memory and disk.
      */
     public void clear(ServerPlayer admin) {
-        ARENAS.clear();
+        REPOSITORY.clear();
+        ADMIN_SELECTION.clear();
         saveArenas();
         admin.sendSystemMessage(Component.literal("§cAll arenas have been cleared."));
         LOGGER.info("[ArenaDataMulti] Admin {} cleared all arenas.", admin.getName().getString());
@@ -159,16 +192,29 @@ public class ArenaDataMulti {
      * Returns an arena by name (case-insensitive).
      */
     public static ArenaData getArena(String name) {
-        if (name == null) return null;
-        return ARENAS.get(name.toLowerCase());
+        return REPOSITORY.get(name);
+    }
+
+    /**
+     * Registers an arena in memory only, without saving (programmatic/test arenas).
+     */
+    static void registerArena(ArenaData arena) {
+        if (arena == null || arena.getName() == null) return;
+        REPOSITORY.put(arena);
+    }
+
+    /**
+     * Drops an in-memory arena again, without saving.
+     */
+    static void unregisterArena(String name) {
+        REPOSITORY.remove(name);
     }
 
     /**
      * Removes an arena by name.
      */
     public static boolean removeArena(String name) {
-        if (name == null) return false;
-        ArenaData removed = ARENAS.remove(name.toLowerCase());
+        ArenaData removed = REPOSITORY.remove(name);
         if (removed != null) {
             saveArenas();
             LOGGER.info("[ArenaDataMulti] Arena '{}' removed.", name);
@@ -181,27 +227,28 @@ public class ArenaDataMulti {
      * Returns all loaded arenas.
      */
     public static List<ArenaData> getAllArenas() {
-        return new ArrayList<>(ARENAS.values());
+        return REPOSITORY.all();
     }
 
     /**
-     * Returns all arena names for tab-completion.
+     * Returns all arena names for tab-completion (pre-sorted immutable snapshot).
      */
     public static List<String> getAllArenaNames() {
-        return ARENAS.values().stream()
-                .map(ArenaData::getName)
-                .sorted(String::compareToIgnoreCase)
-                .toList();
+        return REPOSITORY.sortedNames();
     }
 
     /**
      * Returns the first available (free) arena or null.
      */
     public static ArenaData getAvailableArena() {
-        return ARENAS.values().stream()
-                .filter(ArenaData::isAvailable)
-                .findFirst()
-                .orElse(null);
+        return REPOSITORY.firstFree();
+    }
+
+    /**
+     * The indexed arena repository (secondary indexes for selection).
+     */
+    public static ArenaRepository getRepository() {
+        return REPOSITORY;
     }
 
     /**
@@ -217,113 +264,59 @@ public class ArenaDataMulti {
     }
 
     /**
-     * Gets the arena the admin most recently created (for setting corners/spawns).
-     * This is a simplified system that just uses the last created arena.
+     * Selects the arena the admin is editing (for setting corners/spawns).
      */
-    private ArenaData getAdminArena(ServerPlayer admin) {
-        if (ARENAS.isEmpty()) return null;
+    public boolean selectArena(ServerPlayer admin, String name) {
+        ArenaData arena = getArena(name);
+        if (arena == null) return false;
+        ADMIN_SELECTION.put(admin.getUUID(), arena.getName());
+        return true;
+    }
 
-        // For simplicity, return the most recently added arena
-        ArenaData lastArena = null;
-        for (ArenaData a : ARENAS.values()) {
-            lastArena = a;
-        }
-        return lastArena;
+    /**
+     * Gets the arena the admin selected or most recently created.
+     */
+    private ArenaData getAdminArena(ServerPlayer admin) {
+        String selected = ADMIN_SELECTION.get(admin.getUUID());
+        return selected == null ? null : getArena(selected);
     }
 
+    /**
+     * Loads all arenas from the versioned {@link ArenaStore}, migrating legacy files.
+     */
     public static void loadArenas() {
-        final File file = ARENA_FILE;
-
-        if (!file.exists()) {
-            LOGGER.info("[ArenaDataMulti] Arenas file not found at {} (starting empty).", file.getAbsolutePath());
-            ARENAS.clear();
-            return;
-        }
-
-        try (var reader = new java.io.InputStreamReader(
-                new java.io.FileInputStream(file),
-                java.nio.charset.StandardCharsets.UTF_8)) {
-
-            com.google.gson.JsonElement root = com.google.gson.JsonParser.parseReader(reader);
-            java.util.Map<String, ArenaData> temp = new java.util.HashMap<>();
-
-            if (root == null || root.isJsonNull()) {
-                LOGGER.warn("[ArenaDataMulti] Empty/null JSON at {}", file.getAbsolutePath());
-            } else if (root.isJsonArray()) {
-                // Case A: bare array
-                var arr = root.getAsJsonArray();
-                for (var el : arr) {
-                    ArenaData a = GSON.fromJson(el, ArenaData.class);
-                    if (a != null && a.getName() != null && !a.getName().isBlank()) {
-                        temp.put(a.getName().toLowerCase(java.util.Locale.ROOT), a);
-                    }
-                }
-            } else if (root.isJsonObject()) {
-                var obj = root.getAsJsonObject();
-
-                // Case B: root-wrapped array: { "arenas": [ ... ] }
-                if (obj.has("arenas") && obj.get("arenas").isJsonArray()) {
-                    var arr = obj.getAsJsonArray("arenas");
-                    for (var el : arr) {
-                        ArenaData a = GSON.fromJson(el, ArenaData.class);
-                        if (a != null && a.getName() != null && !a.getName().isBlank()) {
-                            temp.put(a.getName().toLowerCase(java.util.Locale.ROOT), a);
-                        }
-                    }
-                } else {
-                    // Case C: map: { "duel": {ArenaData}, "pit": {ArenaData} }
-                    for (var entry : obj.entrySet()) {
-                        String keyName = entry.getKey();
-                        ArenaData a = GSON.fromJson(entry.getValue(), ArenaData.class);
-                        if (a != null) {
-                            // If JSON omitted "name", use the map key
-                            if (a.getName() == null || a.getName().isBlank()) {
-                                try {
-                                    java.lang.reflect.Field f = ArenaData.class.getDeclaredField("name");
-                                    f.setAccessible(true);
-                                    f.set(a, keyName);
-                                } catch (Exception ignore) { /* fallback below */ }
-                            }
-                            String finalName = (a.getName() != null && !a.getName().isBlank()) ? a.getName() : keyName;
-                            temp.put(finalName.toLowerCase(java.util.Locale.ROOT), a);
-                        }
-                    }
-                }
-            } else {
-                LOGGER.error("[ArenaDataMulti] Unsupported JSON root at {}: {}", file.getAbsolutePath(), root.getClass());
-            }
-
-            ARENAS.clear();
-            ARENAS.putAll(temp);
-            LOGGER.info("[ArenaDataMulti] Loaded {} arenas from {}.", ARENAS.size(), file.getAbsolutePath());
+        applyLoaded(ArenaStore.load());
+    }
 
-        } catch (com.google.gson.JsonSyntaxException js) {
-            LOGGER.error("[ArenaDataMulti] JSON syntax error at {}.", file.getAbsolutePath(), js);
-        } catch (Exception e) {
-            LOGGER.error("[ArenaDataMulti] Error loading arenas from {}.", file.getAbsolutePath(), e);
+    /**
+     * Installs arenas read by {@link ArenaStore#load()} (which may run off-thread);
+     * rewrites the store if it was in an older schema. A merged legacy file is only
+     * renamed once that rewrite was saved.
+     */
+    static void applyLoaded(ArenaStore.Loaded loaded) {
+        REPOSITORY.replaceAll(loaded.arenas());
+        LOGGER.info("[ArenaDataMulti] Loaded {} arenas.", REPOSITORY.size());
+
+        if (loaded.needsRewrite()) {
+            LOGGER.info("[ArenaDataMulti] Rewriting arena store in schema v{}.", ArenaStore.SCHEMA_VERSION);
+            CompletableFuture<Void> saved = saveArenas();
+            if (loaded.legacyMerged()) saved.thenRun(ArenaStore::retireLegacy);
         }
     }
 
-
-    public static void saveArenas() {
-        try {
-            File dir = ARENA_FILE.getParentFile();
-            if (!dir.exists() && !dir.mkdirs()) {
-                LOGGER.error("[ArenaDataMulti] Could not create config directory: {}", dir);
-                return;
-            }
-            List<ArenaData> arenasToSave = new ArrayList<>(ARENAS.values());
-            try (var writer = new java.io.OutputStreamWriter(
-                    new java.io.FileOutputStream(ARENA_FILE),
-                    java.nio.charset.StandardCharsets.UTF_8)) {
-                GSON.toJson(arenasToSave, writer); // or write the Map, see D)
-            }
-            LOGGER.info("[ArenaDataMulti] Saved {} arenas to {}", arenasToSave.size(), ARENA_FILE.getAbsolutePath());
-        } catch (Exception e) {
-            LOGGER.error("[ArenaDataMulti] Error saving arenas", e);
+    /**
+     * Saves the arena store on the I/O pool. The arenas are copied here (server
+     * thread); only the copies are written. The future fails if the save failed.
+     */
+    public static CompletableFuture<Void> saveArenas() {
+        List<ArenaData> arenasToSave = new ArrayList<>();
+        for (ArenaData a : REPOSITORY.all()) {
+            if (!a.instanced) arenasToSave.add(a.snapshot());
         }
+        ArenaStore.Format format = Config.getArenaStorageFormat();
+        return FightIo.run("arenas", () -> ArenaStore.save(arenasToSave, format)).whenComplete((ok, error) -> {
+            if (error != null) LOGGER.error("[ArenaDataMulti] Error saving arenas", FightIo.unwrap(error));
+            else LOGGER.info("[ArenaDataMulti] Saved {} arenas ({}).", arenasToSave.size(), format);
+        });
     }
-
-
-
 }
@@ -0,0 +1,158 @@
+package com.example.pvpfight;
+
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.ExperienceOrb;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.entity.projectile.Projectile;
+import net.minecraft.world.level.ChunkPos;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ArenaEntityTracker.java
+ *
+ * Keeps track of the loose entities (items, projectiles, XP orbs) that spawn in
+ * claimed arenas, so cleanup and containment only touch those entities instead
+ * of querying the level.
+ *
+ *  - Claimed arenas are indexed by chunk for O(1) lookup of a spawn position.
+ *  - Projectiles are attributed to their owner's arena, wherever they spawn.
+ *  - Each arena keeps the tracked entity IDs in a primitive int set.
+ */
+public class ArenaEntityTracker {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    // chunk (packed) → claimed arenas overlapping it
+    private final Long2ObjectOpenHashMap<List<Tracked>> byChunk = new Long2ObjectOpenHashMap<>();
+    private final Map<ArenaData, Tracked> byArena = new IdentityHashMap<>();
+
+    /**
+     * Starts tracking entities for a claimed arena.
+     */
+    public void track(ServerLevel level, ArenaData arena) {
+        if (level == null || arena == null || byArena.containsKey(arena)) return;
+        if (arena.corner1 == null || arena.corner2 == null) return;
+
+        Tracked tracked = new Tracked(level, arena);
+        byArena.put(arena, tracked);
+        forEachChunk(arena, key -> byChunk.computeIfAbsent(key, k -> new ArrayList<>(1)).add(tracked));
+    }
+
+    /**
+     * Discards every tracked entity of the arena and stops tracking it.
+     * Returns the number of entities removed.
+     */
+    public int discardAndUntrack(ArenaData arena) {
+        Tracked tracked = byArena.remove(arena);
+        if (tracked == null) return 0;
+
+        forEachChunk(arena, key -> {
+            List<Tracked> list = byChunk.get(key);
+            if (list == null) return;
+            list.remove(tracked);
+            if (list.isEmpty()) byChunk.remove(key);
+        });
+
+        int removed = 0;
+        IntIterator it = tracked.entityIds.iterator();
+        while (it.hasNext()) {
+            Entity entity = tracked.level.getEntity(it.nextInt());
+            if (entity != null && !entity.isRemoved()) {
+                entity.discard();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Records a freshly spawned entity against the arena it belongs to.
+     */
+    public void onEntityJoin(Entity entity, FightManager fightManager) {
+        if (byArena.isEmpty() || !isTrackedType(entity)) return;
+
+        Tracked tracked = null;
+        if (entity instanceof Projectile projectile && projectile.getOwner() instanceof ServerPlayer owner) {
+            ArenaData arena = fightManager.getArenaForPlayer(owner);
+            if (arena != null) tracked = byArena.get(arena);
+        }
+        if (tracked == null) tracked = lookup(entity);
+        if (tracked != null) tracked.entityIds.add(entity.getId());
+    }
+
+    /**
+     * Containment: discards tracked projectiles (pearls, arrows, potions) that have
+     * left their arena, and forgets entities that no longer exist.
+     */
+    public void tick() {
+        for (Tracked tracked : byArena.values()) {
+            if (tracked.entityIds.isEmpty()) continue;
+            IntIterator it = tracked.entityIds.iterator();
+            while (it.hasNext()) {
+                Entity entity = tracked.level.getEntity(it.nextInt());
+                if (entity == null || entity.isRemoved()) {
+                    it.remove();
+                } else if (entity instanceof Projectile && !tracked.arena.isInside(entity.blockPosition())) {
+                    LOGGER.debug("[ArenaEntityTracker] Discarded {} that left arena '{}'",
+                            entity.getType().toShortString(), tracked.arena.getName());
+                    entity.discard();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the claimed arena containing the entity's position, or null.
+     */
+    public ArenaData getArenaAt(Entity entity) {
+        Tracked tracked = lookup(entity);
+        return tracked != null ? tracked.arena : null;
+    }
+
+    private Tracked lookup(Entity entity) {
+        List<Tracked> candidates = byChunk.get(ChunkPos.asLong(entity.getBlockX() >> 4, entity.getBlockZ() >> 4));
+        if (candidates == null) return null;
+        for (int i = 0; i < candidates.size(); i++) {
+            Tracked tracked = candidates.get(i);
+            if (tracked.level == entity.level() && tracked.arena.isInside(entity.blockPosition())) return tracked;
+        }
+        return null;
+    }
+
+    private static boolean isTrackedType(Entity entity) {
+        return entity instanceof ItemEntity || entity instanceof Projectile || entity instanceof ExperienceOrb;
+    }
+
+    private static void forEachChunk(ArenaData arena, java.util.function.LongConsumer action) {
+        int minCx = Math.min(arena.corner1.x, arena.corner2.x) >> 4;
+        int maxCx = Math.max(arena.corner1.x, arena.corner2.x) >> 4;
+        int minCz = Math.min(arena.corner1.z, arena.corner2.z) >> 4;
+        int maxCz = Math.max(arena.corner1.z, arena.corner2.z) >> 4;
+        for (int cx = minCx; cx <= maxCx; cx++)
+            for (int cz = minCz; cz <= maxCz; cz++)
+                action.accept(ChunkPos.asLong(cx, cz));
+    }
+
+    private static final class Tracked {
+        final ServerLevel level;
+        final ArenaData arena;
+        final IntOpenHashSet entityIds = new IntOpenHashSet();
+
+        Tracked(ServerLevel level, ArenaData arena) {
+            this.level = level;
+            this.arena = arena;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.pvpfight;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.AABB;
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * ArenaGenerator.java
+ *
+ * Stamps copies of a finalized arena's block volume into new locations, spread
+ * across server ticks under a time budget.
+ *
+ *  - A job copies the template volume into one or more cells (y-ascending, so
+ *    supporting blocks are placed first); block entities are copied with their NBT.
+ *  - Each finished cell yields a shifted {@link ArenaData}, handed to the job's
+ *    cell callback (e.g. registration), and the job callback runs once at the end
+ *    (e.g. one coalesced save).
+ *  - A cell may carry a box of stale blocks (an earlier copy) that is cleared to
+ *    air, along with its non-player entities, before the copy is placed.
+ *  - Jobs run one after another in submission order.
+ *  - Source and target chunks are ticketed first and copying waits until they are
+ *    loaded, so chunk generation stays off the server thread.
+ */
+public class ArenaGenerator {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    // place without neighbour updates: copies are already consistent
+    private static final int PLACE_FLAGS = Block.UPDATE_CLIENTS | Block.UPDATE_KNOWN_SHAPE;
+    private static final int BUDGET_CHECK_INTERVAL = 64;
+
+    /** Own ticket type: releasing a finished cell never drops the tickets of a fight in the same chunks. */
+    static final TicketType<ChunkPos> GENERATOR_TICKET =
+            TicketType.create("pvpfight_generator", Comparator.comparingLong(ChunkPos::toLong));
+
+    private final Deque<Job> jobs = new ArrayDeque<>();
+    private final ArenaChunkTickets tickets = new ArenaChunkTickets(GENERATOR_TICKET);
+
+    /**
+     * A target cell: block offset from the template plus the new arena's name.
+     * {@code clear} is an optional box {minX, minY, minZ, maxX, maxY, maxZ} of the
+     * target level that is emptied first (blocks inside the new copy are skipped).
+     */
+    public record Cell(String name, int dx, int dy, int dz, int[] clear) {
+        public Cell(String name, int dx, int dy, int dz) {
+            this(name, dx, dy, dz, null);
+        }
+    }
+
+    /**
+     * Queues a copy of {@code template} (from {@code source}) into the given cells of {@code target}.
+     */
+    public void submit(ArenaData template, ServerLevel source, ServerLevel target, List<Cell> cells,
+                       Consumer<ArenaData> onCell, Runnable onDone) {
+        if (!template.isComplete()) throw new IllegalArgumentException("Arena '" + template.getName() + "' is not finalized");
+        jobs.add(new Job(template, source, target, new ArrayList<>(cells), onCell, onDone));
+        LOGGER.info("[ArenaGenerator] Queued {} copies of arena '{}' into {}.",
+                cells.size(), template.getName(), target.dimension().location());
+    }
+
+    /**
+     * Places blocks until the budget is used up.
+     */
+    public void tick(long budgetNanos) {
+        if (jobs.isEmpty()) return;
+        long start = System.nanoTime();
+        while (!jobs.isEmpty()) {
+            Job job = jobs.peek();
+            boolean done;
+            try {
+                done = job.run(start, budgetNanos);
+            } catch (Exception e) {
+                LOGGER.error("[ArenaGenerator] Copy of arena '{}' failed, dropping job", job.template.getName(), e);
+                jobs.poll();
+                job.finish();
+                continue;
+            }
+            if (!done) return; // budget exhausted
+            jobs.poll();
+            job.finish();
+            if (System.nanoTime() - start >= budgetNanos) return;
+        }
+    }
+
+    public boolean isIdle() {
+        return jobs.isEmpty();
+    }
+
+    /** Cells still waiting to be built across all jobs. */
+    public int pendingCells() {
+        int n = 0;
+        for (Job job : jobs) n += job.cells.size() - job.cellIndex;
+        return n;
+    }
+
+    /**
+     * Grid cells next to the template: {@code count} cells in rows along +X/+Z,
+     * {@code spacing} blocks apart. Grid slots that would overlap (or come closer than
+     * {@code spacing} to) a registered arena of the same dimension or a cell still
+     * queued here are skipped, so the template, earlier runs and neighbours are never
+     * overwritten.
+     */
+    public List<Cell> gridCells(ArenaData template, String baseName, int count, int spacing) {
+        int sizeX = Math.abs(template.corner1.x - template.corner2.x) + 1;
+        int sizeZ = Math.abs(template.corner1.z - template.corner2.z) + 1;
+        int columns = (int) Math.ceil(Math.sqrt(count + 1));
+        String dimension = template.getDimension();
+
+        // occupied boxes as {minX, minY, minZ, maxX, maxY, maxZ}
+        List<int[]> occupied = new ArrayList<>();
+        Set<String> reservedNames = new HashSet<>();
+        for (ArenaData arena : ArenaDataMulti.getRepository().all()) {
+            if (arena.corner1 != null && arena.corner2 != null && dimension.equals(arena.getDimension())) {
+                occupied.add(box(arena, 0, 0, 0));
+            }
+        }
+        for (Job job : jobs) {
+            boolean sameLevel = job.target.dimension().location().toString().equals(dimension);
+            for (int c = job.cellIndex; c < job.cells.size(); c++) {
+                Cell cell = job.cells.get(c);
+                reservedNames.add(cell.name());
+                if (sameLevel) occupied.add(box(job.template, cell.dx(), cell.dy(), cell.dz()));
+            }
+        }
+
+        List<Cell> cells = new ArrayList<>(count);
+        int suffix = 1;
+        for (int i = 0; cells.size() < count; i++) {
+            int dx = (i % columns) * (sizeX + spacing);
+            int dz = (i / columns) * (sizeZ + spacing);
+            int[] candidate = box(template, dx, 0, dz);
+            if (overlapsAny(candidate, occupied, spacing)) continue;
+
+            String name;
+            do {
+                name = baseName + "_" + suffix++;
+            } while (ArenaDataMulti.getArena(name) != null || reservedNames.contains(name));
+            cells.add(new Cell(name, dx, 0, dz));
+            occupied.add(candidate);
+        }
+        return cells;
+    }
+
+    private static int[] box(ArenaData arena, int dx, int dy, int dz) {
+        return new int[] {
+                Math.min(arena.corner1.x, arena.corner2.x) + dx,
+                Math.min(arena.corner1.y, arena.corner2.y) + dy,
+                Math.min(arena.corner1.z, arena.corner2.z) + dz,
+                Math.max(arena.corner1.x, arena.corner2.x) + dx,
+                Math.max(arena.corner1.y, arena.corner2.y) + dy,
+                Math.max(arena.corner1.z, arena.corner2.z) + dz };
+    }
+
+    private static boolean overlapsAny(int[] a, List<int[]> boxes, int gap) {
+        for (int[] b : boxes) {
+            if (a[0] <= b[3] + gap && a[3] + gap >= b[0]
+                    && a[1] <= b[4] && a[4] >= b[1]
+                    && a[2] <= b[5] + gap && a[5] + gap >= b[2]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class Job {
+        final ArenaData template;
+        final ServerLevel source;
+        final ServerLevel target;
+        final List<Cell> cells;
+        final Consumer<ArenaData> onCell;
+        final Runnable onDone;
+
+        final int minX, minY, minZ, sizeX, sizeY, sizeZ;
+        final long volume;
+        final BlockPos.MutableBlockPos from = new BlockPos.MutableBlockPos();
+        final BlockPos.MutableBlockPos to = new BlockPos.MutableBlockPos();
+        int cellIndex;
+        long cursor;
+        int built;
+        // arena of the cell being built (its chunks are ticketed), null between cells
+        ArenaData building;
+        // ticketed area of the cell's stale box while it is cleared, null otherwise
+        ArenaData clearing;
+        long clearCursor;
+
+        Job(ArenaData template, ServerLevel source, ServerLevel target, List<Cell> cells,
+            Consumer<ArenaData> onCell, Runnable onDone) {
+            this.template = template;
+            this.source = source;
+            this.target = target;
+            this.cells = cells;
+            this.onCell = onCell;
+            this.onDone = onDone;
+            this.minX = Math.min(template.corner1.x, template.corner2.x);
+            this.minY = Math.min(template.corner1.y, template.corner2.y);
+            this.minZ = Math.min(template.corner1.z, template.corner2.z);
+            this.sizeX = Math.abs(template.corner1.x - template.corner2.x) + 1;
+            this.sizeY = Math.abs(template.corner1.y - template.corner2.y) + 1;
+            this.sizeZ = Math.abs(template.corner1.z - template.corner2.z) + 1;
+            this.volume = (long) sizeX * sizeY * sizeZ;
+        }
+
+        /** Copies blocks; returns true once every cell is built. */
+        boolean run(long start, long budgetNanos) {
+            int sinceCheck = 0;
+            tickets.acquire(source, template);
+            while (cellIndex < cells.size()) {
+                Cell cell = cells.get(cellIndex);
+                if (building == null) {
+                    building = template.copyShifted(cell.name(), cell.dx(), cell.dy(), cell.dz(),
+                            target.dimension().location().toString());
+                    tickets.acquire(target, building);
+                    if (cell.clear() != null) {
+                        clearing = boxArea(cell.name() + "_clear", cell.clear());
+                        tickets.acquire(target, clearing);
+                    }
+                }
+                // wait for the chunk system instead of generating chunks in setBlock
+                if (!tickets.isReady(template) || !tickets.isReady(building)) return false;
+                if (clearing != null) {
+                    if (!tickets.isReady(clearing)) return false;
+                    int[] box = cell.clear();
+                    if (clearCursor == 0) discardEntities(box);
+                    long clearVolume = (long) (box[3] - box[0] + 1) * (box[4] - box[1] + 1) * (box[5] - box[2] + 1);
+                    while (clearCursor < clearVolume) {
+                        clearBlock(cell, box, clearCursor++);
+                        if (++sinceCheck >= BUDGET_CHECK_INTERVAL) {
+                            sinceCheck = 0;
+                            if (System.nanoTime() - start >= budgetNanos) return false;
+                        }
+                    }
+                    tickets.release(clearing);
+                    clearing = null;
+                }
+                while (cursor < volume) {
+                    copyBlock(cell, cursor++);
+                    if (++sinceCheck >= BUDGET_CHECK_INTERVAL) {
+                        sinceCheck = 0;
+                        if (System.nanoTime() - start >= budgetNanos) return false;
+                    }
+                }
+                completeCell(cell);
+            }
+            return true;
+        }
+
+        private void copyBlock(Cell cell, long index) {
+            int layer = sizeX * sizeZ;
+            int y = (int) (index / layer);
+            int rest = (int) (index % layer);
+            from.set(minX + rest % sizeX, minY + y, minZ + rest / sizeX);
+            to.set(from.getX() + cell.dx(), from.getY() + cell.dy(), from.getZ() + cell.dz());
+
+            BlockState state = source.getBlockState(from);
+            if (target.getBlockState(to) != state) target.setBlock(to, state, PLACE_FLAGS);
+
+            BlockEntity sourceEntity = source.getBlockEntity(from);
+            if (sourceEntity != null) {
+                CompoundTag tag = sourceEntity.saveWithoutMetadata();
+                BlockEntity targetEntity = target.getBlockEntity(to);
+                if (targetEntity != null) {
+                    targetEntity.load(tag);
+                    targetEntity.setChanged();
+                }
+            }
+        }
+
+        /** Sets one block of the stale box to air, unless the new copy will overwrite it. */
+        private void clearBlock(Cell cell, int[] box, long index) {
+            int sizeBoxX = box[3] - box[0] + 1;
+            int layer = sizeBoxX * (box[5] - box[2] + 1);
+            int y = (int) (index / layer);
+            int rest = (int) (index % layer);
+            to.set(box[0] + rest % sizeBoxX, box[1] + y, box[2] + rest / sizeBoxX);
+
+            int x = to.getX() - cell.dx() - minX;
+            int yy = to.getY() - cell.dy() - minY;
+            int z = to.getZ() - cell.dz() - minZ;
+            if (x >= 0 && x < sizeX && yy >= 0 && yy < sizeY && z >= 0 && z < sizeZ) return;
+            if (!target.getBlockState(to).isAir()) target.setBlock(to, Blocks.AIR.defaultBlockState(), PLACE_FLAGS);
+        }
+
+        /** Removes leftover entities (item frames, armor stands, drops) of the stale box. */
+        private void discardEntities(int[] box) {
+            AABB area = new AABB(box[0], box[1], box[2], box[3] + 1, box[4] + 1, box[5] + 1);
+            for (Entity entity : target.getEntities((Entity) null, area, e -> !(e instanceof Player))) {
+                entity.discard();
+            }
+        }
+
+        private ArenaData boxArea(String name, int[] box) {
+            ArenaData area = new ArenaData(name);
+            area.corner1 = new ArenaData.Pos(box[0], box[1], box[2]);
+            area.corner2 = new ArenaData.Pos(box[3], box[4], box[5]);
+            return area;
+        }
+
+        private void completeCell(Cell cell) {
+            ArenaData arena = building;
+            tickets.release(arena);
+            building = null;
+            cellIndex++;
+            cursor = 0;
+            clearCursor = 0;
+            built++;
+            if (onCell != null) onCell.accept(arena);
+        }
+
+        void finish() {
+            if (building != null) tickets.release(building);
+            if (clearing != null) tickets.release(clearing);
+            tickets.release(template);
+            LOGGER.info("[ArenaGenerator] Built {}/{} copies of arena '{}'.", built, cells.size(), template.getName());
+            if (onDone != null) onDone.run();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.pvpfight;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ArenaInstancer.java
+ *
+ * Elastic arena capacity: when fights are queued and every arena is busy, copies
+ * of template arenas are placed into cells of a grid in the void
+ * {@code pvpfight:pvp_arenas} dimension (see data/pvpfight/dimension).
+ *
+ *  - Instances are built by the {@link ArenaGenerator} under its tick budget and
+ *    registered in memory (never saved); they then rotate through the normal arena pool.
+ *  - Instances unused for {@code instanceIdleMinutes} are retired; their cell goes
+ *    back to the shared free list and is reused by any template.
+ *  - The box each cell was stamped with is kept in config/pvpfight/instance_cells.json,
+ *    so after a restart old copies are known: a reused cell first has the part of
+ *    its old box outside the new copy cleared.
+ *  - Released arenas drop their chunk tickets, so dormant cells unload on their own.
+ */
+public class ArenaInstancer {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    public static final ResourceKey<Level> PVP_ARENAS =
+            ResourceKey.create(Registries.DIMENSION, new ResourceLocation(PvPFightMod.MODID, "pvp_arenas"));
+
+    /** Cells per grid row. */
+    private static final int GRID_WIDTH = 64;
+    private static final int SWEEP_INTERVAL_TICKS = 20 * 30;
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final File CELLS_FILE = new File("config/pvpfight/instance_cells.json");
+    private static final int FORMAT_VERSION = 1;
+
+    private final FightManager fightManager;
+    private final Map<String, Instance> instances = new LinkedHashMap<>();
+    // cells that held a copy and are free again, for any template
+    private final IntArrayFIFOQueue freeCells = new IntArrayFIFOQueue();
+    // cell → box {minX, minY, minZ, maxX, maxY, maxZ} that may still hold blocks of a copy
+    private final Int2ObjectOpenHashMap<int[]> stamps = new Int2ObjectOpenHashMap<>();
+    // requested tag ("" for any) → instances under construction for it
+    private final Map<String, Integer> buildingByTag = new HashMap<>();
+    private CompletableFuture<CellsFile> loading;
+    private boolean loaded;
+    private int nextCell;
+    private int building;
+    private int ticks;
+
+    public ArenaInstancer(FightManager fightManager) {
+        this.fightManager = fightManager;
+    }
+
+    /**
+     * Builds instances for queued demand. {@code queuedTags} holds the requested
+     * tag (or null) of every queued pair that has no arena yet.
+     */
+    public void tick(MinecraftServer server, List<String> queuedTags) {
+        if (!Config.isInstancedArenas()) return;
+        if (!loaded) {
+            if (loading == null) loadCells(server);
+            return;
+        }
+
+        ServerLevel target = server.getLevel(PVP_ARENAS);
+        if (target == null) {
+            if (!queuedTags.isEmpty() && ticks == 0) {
+                LOGGER.warn("[ArenaInstancer] Dimension {} is not loaded, cannot instance arenas.", PVP_ARENAS.location());
+            }
+        } else if (!queuedTags.isEmpty()) {
+            // pairs already covered by an instance under construction for their tag are skipped
+            Map<String, Integer> covered = new HashMap<>(buildingByTag);
+            for (String tag : queuedTags) {
+                String key = tagKey(tag);
+                int pending = covered.getOrDefault(key, 0);
+                if (pending > 0) {
+                    covered.put(key, pending - 1);
+                    continue;
+                }
+                if (instances.size() + building >= Config.getMaxInstances()) break;
+                build(server, target, tag);
+            }
+        }
+
+        if (++ticks >= SWEEP_INTERVAL_TICKS) {
+            ticks = 0;
+            retireIdle();
+        }
+    }
+
+    public int liveInstances() {
+        return instances.size();
+    }
+
+    public boolean isInstance(ArenaData arena) {
+        return arena != null && instances.containsKey(arena.getName());
+    }
+
+    private void build(MinecraftServer server, ServerLevel target, String tag) {
+        ArenaData template = pickTemplate(tag);
+        if (template == null) return;
+
+        int sizeX = Math.abs(template.corner1.x - template.corner2.x) + 1;
+        int sizeZ = Math.abs(template.corner1.z - template.corner2.z) + 1;
+        int cellSize = Config.getInstanceCellSize();
+        if (sizeX > cellSize || sizeZ > cellSize) {
+            LOGGER.warn("[ArenaInstancer] Template '{}' ({}x{}) does not fit a {}-block cell.",
+                    template.getName(), sizeX, sizeZ, cellSize);
+            return;
+        }
+
+        int cell = !freeCells.isEmpty() ? freeCells.dequeueInt() : nextCell++;
+
+        int minX = Math.min(template.corner1.x, template.corner2.x);
+        int minY = Math.min(template.corner1.y, template.corner2.y);
+        int minZ = Math.min(template.corner1.z, template.corner2.z);
+        int originX = (cell % GRID_WIDTH) * cellSize;
+        int originZ = (cell / GRID_WIDTH) * cellSize;
+        int[] box = {originX, minY, originZ, originX + sizeX - 1,
+                Math.max(template.corner1.y, template.corner2.y), originZ + sizeZ - 1};
+        String name = "instance_" + cell;
+
+        // an earlier copy sticking out of the new one is cleared first
+        int[] stale = stamps.get(cell);
+        int[] clear = stale != null && !contains(box, stale) ? stale : null;
+        stamp(cell, clear != null ? union(stale, box) : box);
+
+        String key = tagKey(tag);
+        building++;
+        buildingByTag.merge(key, 1, Integer::sum);
+        PvPFightMod.getArenaGenerator().submit(template, template.resolveLevel(server), target,
+                List.of(new ArenaGenerator.Cell(name, originX - minX, 0, originZ - minZ, clear)),
+                arena -> {
+                    arena.instanced = true;
+                    instances.put(name, new Instance(arena, cell));
+                    stamp(cell, box);
+                    ArenaDataMulti.registerArena(arena);
+                    LOGGER.info("[ArenaInstancer] Instance '{}' of '{}' is ready ({} live).",
+                            name, template.getName(), instances.size());
+                    fightManager.startNextQueuedFight();
+                },
+                () -> {
+                    building--;
+                    buildingByTag.computeIfPresent(key, (k, n) -> n > 1 ? n - 1 : null);
+                    // a failed copy leaves its cell (with the stamped box) free for the next build
+                    if (!instances.containsKey(name)) freeCells.enqueue(cell);
+                });
+    }
+
+    /** First configured template carrying the tag (or any, if no tag requested). */
+    private ArenaData pickTemplate(String tag) {
+        ArenaData fallback = null;
+        for (String raw : Config.getInstanceTemplates().split(",")) {
+            ArenaData template = ArenaDataMulti.getArena(raw.trim());
+            if (template == null || template.instanced || !template.isComplete()) continue;
+            if (tag == null || template.getTags().contains(tag.toLowerCase(Locale.ROOT))) return template;
+            if (fallback == null) fallback = template;
+        }
+        return tag == null ? fallback : null; // no template with that tag
+    }
+
+    private void retireIdle() {
+        long idleNanos = Config.getInstanceIdleMinutes() * 60_000_000_000L;
+        long now = System.nanoTime();
+        for (Iterator<Instance> it = instances.values().iterator(); it.hasNext(); ) {
+            Instance inst = it.next();
+            if (!inst.arena.isAvailable()) {
+                inst.idleSince = -1;
+                continue;
+            }
+            if (inst.idleSince < 0) {
+                inst.idleSince = now;
+                continue;
+            }
+            if (now - inst.idleSince < idleNanos) continue;
+
+            it.remove();
+            ArenaDataMulti.unregisterArena(inst.arena.getName());
+            freeCells.enqueue(inst.cell);
+            LOGGER.info("[ArenaInstancer] Retired idle instance '{}' ({} live).", inst.arena.getName(), instances.size());
+        }
+    }
+
+    /** Forgets all instances (server stop); the blocks stay in the dimension and their cells on file. */
+    public void clear() {
+        for (String name : new ArrayList<>(instances.keySet())) ArenaDataMulti.unregisterArena(name);
+        instances.clear();
+        freeCells.clear();
+        stamps.clear();
+        buildingByTag.clear();
+        loading = null;
+        loaded = false;
+        nextCell = 0;
+        building = 0;
+    }
+
+    // =====================================================
+    // === Cell Persistence
+    // =====================================================
+
+    /** Reads the stamped cells on the I/O pool; every known cell starts out free. */
+    private void loadCells(MinecraftServer server) {
+        CompletableFuture<CellsFile> future = FightIo.supply("instance_cells", ArenaInstancer::readCells);
+        loading = future;
+        FightIo.onServer(server, future, (data, error) -> {
+            if (loading != future) return; // cleared meanwhile
+            if (error != null) {
+                // unknown cells could be stamped over, so stay off until the file is fixed
+                LOGGER.error("[ArenaInstancer] Could not read {}, instancing disabled until restart.",
+                        CELLS_FILE.getAbsolutePath(), error);
+                return;
+            }
+            List<CellStamp> cells = new ArrayList<>(data.cells);
+            cells.sort((a, b) -> Integer.compare(a.cell, b.cell));
+            for (CellStamp stamp : cells) {
+                if (stamp.box == null || stamp.box.length != 6 || stamp.cell < 0 || stamps.containsKey(stamp.cell)) continue;
+                stamps.put(stamp.cell, stamp.box);
+                freeCells.enqueue(stamp.cell);
+                nextCell = Math.max(nextCell, stamp.cell + 1);
+            }
+            loaded = true;
+            LOGGER.info("[ArenaInstancer] {} stamped cells known.", stamps.size());
+        });
+    }
+
+    private static CellsFile readCells() throws IOException {
+        if (!CELLS_FILE.exists()) return new CellsFile();
+        try (Reader reader = Files.newBufferedReader(CELLS_FILE.toPath(), StandardCharsets.UTF_8)) {
+            CellsFile data = GSON.fromJson(reader, CellsFile.class);
+            if (data == null) data = new CellsFile();
+            if (data.cells == null) data.cells = new ArrayList<>();
+            return data;
+        }
+    }
+
+    /** Records the box a cell may hold blocks in and saves all stamps on the I/O pool. */
+    private void stamp(int cell, int[] box) {
+        stamps.put(cell, box);
+
+        CellsFile data = new CellsFile();
+        data.version = FORMAT_VERSION;
+        for (Int2ObjectOpenHashMap.Entry<int[]> e : stamps.int2ObjectEntrySet()) {
+            CellStamp s = new CellStamp();
+            s.cell = e.getIntKey();
+            s.box = e.getValue().clone();
+            data.cells.add(s);
+        }
+        FightIo.run("instance_cells", () -> writeCells(data)).whenComplete((ok, error) -> {
+            if (error != null) LOGGER.error("[ArenaInstancer] Error saving instance cells", FightIo.unwrap(error));
+        });
+    }
+
+    private static void writeCells(CellsFile data) throws IOException {
+        File dir = CELLS_FILE.getParentFile();
+        if (!dir.exists()) dir.mkdirs();
+
+        Path target = CELLS_FILE.toPath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            GSON.toJson(data, writer);
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // =====================================================
+    // === Helpers
+    // =====================================================
+
+    private static String tagKey(String tag) {
+        return tag == null ? "" : tag.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean contains(int[] outer, int[] inner) {
+        return outer[0] <= inner[0] && outer[1] <= inner[1] && outer[2] <= inner[2]
+                && outer[3] >= inner[3] && outer[4] >= inner[4] && outer[5] >= inner[5];
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        return new int[] {Math.min(a[0], b[0]), Math.min(a[1], b[1]), Math.min(a[2], b[2]),
+                Math.max(a[3], b[3]), Math.max(a[4], b[4]), Math.max(a[5], b[5])};
+    }
+
+    private static final class Instance {
+        final ArenaData arena;
+        final int cell;
+        long idleSince = -1;
+
+        Instance(ArenaData arena, int cell) {
+            this.arena = arena;
+            this.cell = cell;
+        }
+    }
+
+    private static class CellsFile {
+        int version;
+        List<CellStamp> cells = new ArrayList<>();
+    }
+
+    private static class CellStamp {
+        int cell;
+        int[] box;
+    }
+}
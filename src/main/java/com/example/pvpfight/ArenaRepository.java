@@ -0,0 +1,350 @@
+package com.example.pvpfight;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * ArenaRepository.java
+ *
+ * Indexed in-memory store for all arenas.
+ *
+ *  - Primary index: lowercase name → arena (O(1)).
+ *  - Free / busy sets of fully configured arenas, ordered by name (O(log n) first-free).
+ *  - Free arenas by dimension, size class, tag and team capacity, each ordered least recently
+ *    used first (O(log n) first-match).
+ *  - Free arenas ordered by last use (LRU) and regions ordered by busy count,
+ *    for the {@link ArenaSelectionPolicy} implementations.
+ *  - Immutable, pre-sorted name snapshot (rebuilt only when arenas are added or
+ *    removed) and a name prefix trie for tab-completion.
+ *
+ * Arenas report availability and geometry changes back through
+ * {@link #availabilityChanged} / {@link #geometryChanged}, so the indexes stay in sync.
+ */
+public class ArenaRepository {
+
+    static final Comparator<ArenaData> BY_NAME =
+            Comparator.comparing((ArenaData a) -> a.getName().toLowerCase(Locale.ROOT));
+    /** Least recently released first; never-used arenas (0) lead, by name. */
+    static final Comparator<ArenaData> BY_LAST_USED =
+            Comparator.comparingLong((ArenaData a) -> a.lastUsed).thenComparing(BY_NAME);
+
+    /** Regions are 512×512 blocks (32×32 chunks) per dimension. */
+    private static final int REGION_SHIFT = 9;
+
+    private final Map<String, ArenaData> byName = new HashMap<>();
+    private final NavigableSet<ArenaData> free = new TreeSet<>(BY_NAME);
+    private final NavigableSet<ArenaData> busy = new TreeSet<>(BY_NAME);
+    private final NavigableSet<ArenaData> freeByLastUsed = new TreeSet<>(BY_LAST_USED);
+    private final Map<String, NavigableSet<ArenaData>> freeByDimension = new HashMap<>();
+    private final Map<ArenaData.SizeClass, NavigableSet<ArenaData>> freeBySize = new EnumMap<>(ArenaData.SizeClass.class);
+    private final Map<String, NavigableSet<ArenaData>> freeByTag = new HashMap<>();
+    // free arenas by the number of teams they can host (2 for plain duel arenas)
+    private final NavigableMap<Integer, NavigableSet<ArenaData>> freeByTeams = new TreeMap<>();
+    private final Map<String, Integer> tagCounts = new HashMap<>();
+    private final Map<String, Region> regions = new HashMap<>();
+    // regions that have at least one free arena, least busy first
+    private final NavigableSet<Region> regionsByLoad = new TreeSet<>(Region.BY_LOAD);
+    private long useClock;
+
+    private final NameTrie nameTrie = new NameTrie();
+    private volatile List<String> sortedNames = List.of();
+    private volatile List<String> sortedTags = List.of();
+
+    // =========================================================
+    // === Mutations
+    // =========================================================
+
+    /** Adds or replaces an arena (by name). */
+    public synchronized void put(ArenaData arena) {
+        ArenaData old = byName.put(key(arena.getName()), arena);
+        if (old != null) {
+            unindex(old);
+            old.repository = null;
+        }
+        arena.repository = this;
+        index(arena);
+        if (old == null) rebuildNames();
+        nameTrie.add(arena.getName());
+        rebuildTags();
+    }
+
+    /** Removes an arena by name; returns the removed arena or null. */
+    public synchronized ArenaData remove(String name) {
+        if (name == null) return null;
+        ArenaData removed = byName.remove(key(name));
+        if (removed != null) {
+            unindex(removed);
+            removed.repository = null;
+            nameTrie.remove(removed.getName());
+            rebuildNames();
+            rebuildTags();
+        }
+        return removed;
+    }
+
+    /** Replaces the whole content (used on load). */
+    public synchronized void replaceAll(Collection<ArenaData> arenas) {
+        for (ArenaData a : byName.values()) a.repository = null;
+        byName.clear();
+        free.clear();
+        busy.clear();
+        freeByLastUsed.clear();
+        tagCounts.clear();
+        regions.clear();
+        regionsByLoad.clear();
+        freeByDimension.clear();
+        freeBySize.clear();
+        freeByTag.clear();
+        freeByTeams.clear();
+        nameTrie.clear();
+        for (ArenaData a : arenas) {
+            ArenaData dup = byName.put(key(a.getName()), a);
+            if (dup != null) {
+                unindex(dup);
+                dup.repository = null;
+            }
+            a.repository = this;
+            index(a);
+            nameTrie.add(a.getName());
+        }
+        rebuildNames();
+        rebuildTags();
+    }
+
+    public synchronized void clear() {
+        replaceAll(List.of());
+    }
+
+    /** Called by {@link ArenaData#setAvailable} before the flag changes. */
+    synchronized void availabilityChanged(ArenaData arena, boolean available) {
+        unindex(arena);
+        if (available && !arena.available) arena.lastUsed = ++useClock;
+        arena.available = available;
+        index(arena);
+    }
+
+    /** Called by {@link ArenaData} before corners, dimension or tags change. */
+    synchronized void geometryChanged(ArenaData arena, Runnable change) {
+        unindex(arena);
+        change.run();
+        index(arena);
+        rebuildTags();
+    }
+
+    // =========================================================
+    // === Queries
+    // =========================================================
+
+    public synchronized ArenaData get(String name) {
+        return name == null ? null : byName.get(key(name));
+    }
+
+    public synchronized List<ArenaData> all() {
+        return new ArrayList<>(byName.values());
+    }
+
+    public synchronized int size() {
+        return byName.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return byName.isEmpty();
+    }
+
+    /** Pre-sorted, immutable name list (no copy, no sort per call). */
+    public List<String> sortedNames() {
+        return sortedNames;
+    }
+
+    /** Arena names starting with the prefix (any case), in order, for suggestions. */
+    public synchronized void forEachNameWithPrefix(String prefix, int limit, Consumer<String> action) {
+        nameTrie.forEachWithPrefix(prefix, limit, action);
+    }
+
+    public synchronized ArenaData firstFree() {
+        return free.isEmpty() ? null : free.first();
+    }
+
+    /** Free arena that was released longest ago (or never used). */
+    public synchronized ArenaData firstFreeLeastRecentlyUsed() {
+        return freeByLastUsed.isEmpty() ? null : freeByLastUsed.first();
+    }
+
+    /** LRU free arena in the region with the fewest busy arenas. */
+    public synchronized ArenaData firstFreeInLeastLoadedRegion() {
+        return regionsByLoad.isEmpty() ? null : first(regionsByLoad.first().free);
+    }
+
+    public synchronized ArenaData firstFreeInDimension(String dimension) {
+        return first(freeByDimension.get(dimension));
+    }
+
+    public synchronized ArenaData firstFreeOfSize(ArenaData.SizeClass size) {
+        return first(freeBySize.get(size));
+    }
+
+    /**
+     * LRU free arena with spawns for {@code teams} teams and at least {@code teamSize}
+     * spawns for each of them; with a tag, only arenas carrying it are considered.
+     * Walks the free sets in LRU order until an arena fits.
+     */
+    public synchronized ArenaData firstFreeFitting(String tag, int teams, int teamSize) {
+        if (tag != null) return firstFitting(freeByTag.get(key(tag)), teams, teamSize);
+        ArenaData best = null;
+        for (NavigableSet<ArenaData> set : freeByTeams.tailMap(teams, true).values()) {
+            ArenaData a = firstFitting(set, teams, teamSize);
+            if (a != null && (best == null || BY_LAST_USED.compare(a, best) < 0)) best = a;
+        }
+        return best;
+    }
+
+    /** True if the arena has spawns for {@code teams} teams, each with at least {@code teamSize}. */
+    static boolean fits(ArenaData arena, int teams, int teamSize) {
+        if (arena.teamCount() < teams) return false;
+        for (int t = 0; t < teams; t++) {
+            if (arena.spawnCount(t) < teamSize) return false;
+        }
+        return true;
+    }
+
+    public synchronized ArenaData firstFreeWithTag(String tag) {
+        return tag == null ? null : first(freeByTag.get(key(tag)));
+    }
+
+    /** True if any configured arena (free or busy) carries the tag. */
+    public synchronized boolean hasTag(String tag) {
+        return tag != null && tagCounts.containsKey(key(tag));
+    }
+
+    /** Pre-sorted, immutable list of all known tags. */
+    public List<String> sortedTags() {
+        return sortedTags;
+    }
+
+    public synchronized int freeCount() {
+        return free.size();
+    }
+
+    public synchronized int busyCount() {
+        return busy.size();
+    }
+
+    // =========================================================
+    // === Index maintenance
+    // =========================================================
+
+    private void index(ArenaData a) {
+        if (!a.isComplete()) return; // still being set up – never handed out
+
+        for (String tag : a.getTags()) tagCounts.merge(key(tag), 1, Integer::sum);
+        Region region = regions.computeIfAbsent(regionKey(a), Region::new);
+        regionsByLoad.remove(region);
+
+        if (!a.isAvailable()) {
+            busy.add(a);
+            region.busy++;
+        } else {
+            free.add(a);
+            freeByLastUsed.add(a);
+            region.free.add(a);
+            freeByDimension.computeIfAbsent(a.getDimension(), d -> new TreeSet<>(BY_LAST_USED)).add(a);
+            freeBySize.computeIfAbsent(a.getSizeClass(), s -> new TreeSet<>(BY_LAST_USED)).add(a);
+            freeByTeams.computeIfAbsent(a.teamCount(), n -> new TreeSet<>(BY_LAST_USED)).add(a);
+            for (String tag : a.getTags()) {
+                freeByTag.computeIfAbsent(key(tag), t -> new TreeSet<>(BY_LAST_USED)).add(a);
+            }
+        }
+        if (!region.free.isEmpty()) regionsByLoad.add(region);
+    }
+
+    private void unindex(ArenaData a) {
+        boolean wasBusy = busy.remove(a);
+        boolean wasFree = free.remove(a);
+        if (!wasBusy && !wasFree) return; // was never indexed
+
+        for (String tag : a.getTags()) {
+            tagCounts.computeIfPresent(key(tag), (t, n) -> n > 1 ? n - 1 : null);
+        }
+
+        Region region = regions.get(regionKey(a));
+        if (region != null) {
+            regionsByLoad.remove(region);
+            if (wasBusy) region.busy--;
+            if (wasFree) region.free.remove(a);
+            if (region.busy <= 0 && region.free.isEmpty()) regions.remove(region.key);
+            else if (!region.free.isEmpty()) regionsByLoad.add(region);
+        }
+
+        if (!wasFree) return;
+        freeByLastUsed.remove(a);
+        removeFrom(freeByDimension, a.getDimension(), a);
+        removeFrom(freeBySize, a.getSizeClass(), a);
+        removeFrom(freeByTeams, a.teamCount(), a);
+        for (String tag : a.getTags()) removeFrom(freeByTag, key(tag), a);
+    }
+
+    private static String regionKey(ArenaData a) {
+        return a.getDimension() + "|" + (a.corner1.x >> REGION_SHIFT) + "|" + (a.corner1.z >> REGION_SHIFT);
+    }
+
+    private static <K> void removeFrom(Map<K, NavigableSet<ArenaData>> index, K key, ArenaData a) {
+        NavigableSet<ArenaData> set = index.get(key);
+        if (set == null) return;
+        set.remove(a);
+        if (set.isEmpty()) index.remove(key);
+    }
+
+    private static ArenaData first(NavigableSet<ArenaData> set) {
+        return set == null || set.isEmpty() ? null : set.first();
+    }
+
+    private static ArenaData firstFitting(NavigableSet<ArenaData> set, int teams, int teamSize) {
+        if (set == null) return null;
+        for (ArenaData a : set) {
+            if (fits(a, teams, teamSize)) return a;
+        }
+        return null;
+    }
+
+    private void rebuildNames() {
+        List<String> names = new ArrayList<>(byName.size());
+        for (ArenaData a : byName.values()) names.add(a.getName());
+        names.sort(String::compareToIgnoreCase);
+        sortedNames = List.copyOf(names);
+    }
+
+    private void rebuildTags() {
+        List<String> tags = new ArrayList<>(tagCounts.keySet());
+        tags.sort(null);
+        sortedTags = List.copyOf(tags);
+    }
+
+    /** Arenas of one region; ordered by busy count while it has free arenas. */
+    private static final class Region {
+        static final Comparator<Region> BY_LOAD =
+                Comparator.comparingInt((Region r) -> r.busy).thenComparing(r -> r.key);
+
+        final String key;
+        final NavigableSet<ArenaData> free = new TreeSet<>(BY_LAST_USED);
+        int busy;
+
+        Region(String key) {
+            this.key = key;
+        }
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
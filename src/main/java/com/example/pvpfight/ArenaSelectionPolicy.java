@@ -0,0 +1,120 @@
+package com.example.pvpfight;
+
+import java.util.Locale;
+
+/**
+ * ArenaSelectionPolicy.java
+ *
+ * Decides which free arena a starting fight gets. All policies answer from the
+ * {@link ArenaRepository} indexes, so a pick is O(log n) even with hundreds of arenas.
+ *
+ *  - FIRST_FREE:          first free arena by name (old behaviour).
+ *  - LEAST_RECENTLY_USED: arena released longest ago, so wear is spread evenly.
+ *  - SPREAD_REGIONS:      arena in the 512×512 region with the fewest running
+ *                         fights, to keep loaded chunks spread out.
+ *  - SIZE_MATCHED:        smallest size class that fits the team size.
+ *
+ * A challenger-requested tag ({@code /fight <player> <tag>}) is applied on top of
+ * any policy: only arenas with that tag are used, and the fight waits in the
+ * queue if they are all busy. Fights only get arenas with spawns for every team
+ * and at least as many spawns per team as the largest team has players.
+ */
+@FunctionalInterface
+public interface ArenaSelectionPolicy {
+
+    /**
+     * Returns a free arena for the request, or null if none fits right now.
+     */
+    ArenaData select(ArenaRepository repository, Request request);
+
+    /**
+     * What a fight asks for.
+     * @param tag      requested arena tag, or null for any arena
+     * @param teamSize players per side (1 for duels)
+     * @param teams    number of teams (2 for duels)
+     */
+    record Request(String tag, int teamSize, int teams) {
+        public static final Request ANY = new Request(null, 1, 2);
+    }
+
+    enum Type {
+        FIRST_FREE, LEAST_RECENTLY_USED, SPREAD_REGIONS, SIZE_MATCHED;
+
+        public static Type parse(String value) {
+            if (value == null) return LEAST_RECENTLY_USED;
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                return LEAST_RECENTLY_USED;
+            }
+        }
+    }
+
+    ArenaSelectionPolicy FIRST_FREE = (repo, req) -> repo.firstFree();
+
+    ArenaSelectionPolicy LEAST_RECENTLY_USED = (repo, req) -> repo.firstFreeLeastRecentlyUsed();
+
+    ArenaSelectionPolicy SPREAD_REGIONS = (repo, req) -> repo.firstFreeInLeastLoadedRegion();
+
+    /** Smallest fitting size class first, then larger ones, then smaller ones. */
+    ArenaSelectionPolicy SIZE_MATCHED = (repo, req) -> {
+        ArenaData.SizeClass[] sizes = ArenaData.SizeClass.values();
+        int wanted = sizeFor(req.teamSize()).ordinal();
+        for (int i = wanted; i < sizes.length; i++) {
+            ArenaData arena = repo.firstFreeOfSize(sizes[i]);
+            if (arena != null) return arena;
+        }
+        for (int i = wanted - 1; i >= 0; i--) {
+            ArenaData arena = repo.firstFreeOfSize(sizes[i]);
+            if (arena != null) return arena;
+        }
+        return null;
+    };
+
+    /**
+     * Returns the policy for the configured type, with tag filtering applied.
+     */
+    static ArenaSelectionPolicy of(Type type) {
+        ArenaSelectionPolicy base = switch (type) {
+            case FIRST_FREE -> FIRST_FREE;
+            case SPREAD_REGIONS -> SPREAD_REGIONS;
+            case SIZE_MATCHED -> SIZE_MATCHED;
+            default -> LEAST_RECENTLY_USED;
+        };
+        return withTeams(withTags(base));
+    }
+
+    /**
+     * Wraps a policy so requested tags are honoured. Tagged arenas are picked least
+     * recently used first; an unknown tag falls back to the base policy.
+     */
+    static ArenaSelectionPolicy withTags(ArenaSelectionPolicy base) {
+        return (repo, req) -> {
+            if (req.tag() == null) return base.select(repo, req);
+            ArenaData tagged = repo.firstFreeWithTag(req.tag());
+            if (tagged != null || repo.hasTag(req.tag())) return tagged;
+            return base.select(repo, req);
+        };
+    }
+
+    /**
+     * Wraps a policy so a fight gets an arena with spawns for all of its teams and
+     * enough spawns for every member. When the policy's pick falls short, the least
+     * recently used free arena that fits is taken (among the tagged ones for a known tag).
+     */
+    static ArenaSelectionPolicy withTeams(ArenaSelectionPolicy inner) {
+        return (repo, req) -> {
+            ArenaData arena = inner.select(repo, req);
+            if (arena != null && ArenaRepository.fits(arena, req.teams(), req.teamSize())) return arena;
+            String tag = req.tag() != null && repo.hasTag(req.tag()) ? req.tag() : null;
+            return repo.firstFreeFitting(tag, req.teams(), req.teamSize());
+        };
+    }
+
+    /** Size class that fits a team of the given size. */
+    static ArenaData.SizeClass sizeFor(int teamSize) {
+        if (teamSize <= 1) return ArenaData.SizeClass.SMALL;
+        if (teamSize <= 3) return ArenaData.SizeClass.MEDIUM;
+        return ArenaData.SizeClass.LARGE;
+    }
+}
@@ -0,0 +1,538 @@
+package com.example.pvpfight;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32C;
+
+/**
+ * ArenaStore.java
+ *
+ * The single, schema-versioned arena store.
+ *
+ * JSON (config/pvpfight/arenas.json), current schema:
+ *   { "version": 4, "arenas": [ { "name": ..., "dimension": ..., "tags": [...], "corner1": {x,y,z}, ...,
+ *                                 "teamSpawns": [ [ {x,y,z}, ... ], ... ] }, ... ] }
+ *
+ * v4 added "teamSpawns" (extra spawns per team, for team fights).
+ * v3 added "dimension" and "tags"; v2 files load with the overworld and no tags.
+ *
+ * Legacy shapes are migrated explicitly on load and rewritten in the current schema:
+ *   - v0 bare array:        [ {arena}, ... ]
+ *   - v1 wrapped array:     { "arenas": [ ... ] }          (no version field)
+ *   - v0 name map:          { "duel": {arena}, ... }        (name defaults to the key)
+ *   - old arena_data.json   (PvPFightConfigManager)         merged once, then renamed
+ *
+ * Parsing is streaming (JsonReader, no DOM tree, no reflection). Large installs can
+ * switch to the compact binary format (arenas.bin) via the arenaStorageFormat option;
+ * whichever of the two files is newer is loaded.
+ *
+ * arenas.json is parsed once: the result is kept in a binary cache (arenas.cache),
+ * reused as long as the JSON's mtime, size and CRC32C are unchanged.
+ */
+public final class ArenaStore {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    public static final int SCHEMA_VERSION = 4;
+    private static final int BINARY_MAGIC = 0x50565041; // "PVPA"
+
+    static final File JSON_FILE = new File("config/pvpfight/arenas.json");
+    static final File BINARY_FILE = new File("config/pvpfight/arenas.bin");
+    static final File LEGACY_FILE = new File("config/pvpfight/arena_data.json");
+    // binary parse cache of arenas.json, keyed by its mtime, size and CRC32C
+    static final File CACHE_FILE = new File("config/pvpfight/arenas.cache");
+    private static final int CACHE_MAGIC = 0x50565043; // "PVPC"
+
+    public enum Format {
+        JSON, BINARY;
+
+        public static Format parse(String value) {
+            return "binary".equalsIgnoreCase(value) ? BINARY : JSON;
+        }
+    }
+
+    private ArenaStore() {}
+
+    // =========================================================
+    // === Load
+    // =========================================================
+
+    /**
+     * Result of a load: the arenas, whether the source needs rewriting (legacy
+     * schema or merged legacy file) and whether arena_data.json was merged, in
+     * which case it is renamed by {@link #retireLegacy()} once the rewrite is saved.
+     */
+    public record Loaded(List<ArenaData> arenas, boolean needsRewrite, boolean legacyMerged) {}
+
+    public static Loaded load() {
+        List<ArenaData> arenas = new ArrayList<>();
+        boolean rewrite = false;
+        boolean failed = false;
+
+        File source = newestExisting(JSON_FILE, BINARY_FILE);
+        if (source == BINARY_FILE) {
+            try {
+                arenas.addAll(readBinary(BINARY_FILE));
+            } catch (IOException e) {
+                LOGGER.error("[ArenaStore] Error reading {}, falling back to JSON.", BINARY_FILE.getAbsolutePath(), e);
+                source = JSON_FILE.exists() ? JSON_FILE : null;
+                failed = source == null;
+            }
+        }
+        if (source == JSON_FILE) {
+            try {
+                rewrite = readJsonCached(arenas);
+            } catch (Exception e) {
+                LOGGER.error("[ArenaStore] Error loading arenas from {}.", JSON_FILE.getAbsolutePath(), e);
+                failed = true;
+            }
+        }
+
+        // A store that failed to read must not be overwritten by a partial rewrite
+        if (failed) {
+            LOGGER.warn("[ArenaStore] Arena store unreadable – skipping legacy merge and rewrite.");
+            return new Loaded(arenas, false, false);
+        }
+        boolean merged = LEGACY_FILE.exists() && mergeLegacyArenaData(arenas);
+        return new Loaded(arenas, rewrite || merged, merged);
+    }
+
+    /**
+     * Streams a JSON arena file of any known shape into {@code out}.
+     * Returns the schema version found (0/1 for legacy shapes).
+     */
+    static int readJson(File file, List<ArenaData> out) throws IOException {
+        try (Reader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return readJson(file, in, out);
+        }
+    }
+
+    private static int readJson(File file, Reader in, List<ArenaData> out) throws IOException {
+        try (JsonReader reader = new JsonReader(in)) {
+            reader.setLenient(true);
+
+            JsonToken root = reader.peek();
+            if (root == JsonToken.END_DOCUMENT || root == JsonToken.NULL) {
+                LOGGER.warn("[ArenaStore] Empty/null JSON at {}", file.getAbsolutePath());
+                return SCHEMA_VERSION;
+            }
+            if (root == JsonToken.BEGIN_ARRAY) {
+                readArenaArray(reader, out);
+                LOGGER.info("[ArenaStore] Migrating {} from v0 (bare array).", file.getName());
+                return 0;
+            }
+            if (root != JsonToken.BEGIN_OBJECT) {
+                LOGGER.error("[ArenaStore] Unsupported JSON root at {}: {}", file.getAbsolutePath(), root);
+                return SCHEMA_VERSION;
+            }
+
+            int version = -1;
+            boolean nameMap = false;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if (key.equals("version") && reader.peek() == JsonToken.NUMBER) {
+                    version = reader.nextInt();
+                } else if (key.equals("arenas") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    readArenaArray(reader, out);
+                } else if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    // v0 name map: { "duel": {arena} }
+                    ArenaData a = readArena(reader, key);
+                    if (a != null) out.add(a);
+                    nameMap = true;
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (version < 0) {
+                version = nameMap ? 0 : 1;
+                LOGGER.info("[ArenaStore] Migrating {} from v{} ({}).", file.getName(), version, nameMap ? "name map" : "wrapped array");
+            } else if (version > SCHEMA_VERSION) {
+                LOGGER.warn("[ArenaStore] {} has newer schema v{} (supported: v{}); unknown fields are ignored.",
+                        file.getName(), version, SCHEMA_VERSION);
+            }
+            return version;
+        }
+    }
+
+    /**
+     * Reads arenas.json through the binary parse cache: when the cache was written
+     * for the same mtime, size and CRC32C of the JSON, the parsed arenas come from
+     * the cache and JSON parsing is skipped. Returns true if the JSON needs rewriting.
+     */
+    private static boolean readJsonCached(List<ArenaData> out) throws IOException {
+        byte[] json = Files.readAllBytes(JSON_FILE.toPath());
+        long mtime = JSON_FILE.lastModified();
+        int hash = crc32c(json);
+
+        if (CACHE_FILE.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(CACHE_FILE.toPath())))) {
+                if (in.readInt() == CACHE_MAGIC && in.readLong() == mtime && in.readLong() == json.length && in.readInt() == hash) {
+                    out.addAll(readBinary(in, CACHE_FILE));
+                    LOGGER.debug("[ArenaStore] Loaded {} arenas from parse cache.", out.size());
+                    return false;
+                }
+            } catch (IOException e) {
+                LOGGER.warn("[ArenaStore] Ignoring unreadable parse cache: {}", e.getMessage());
+                out.clear();
+            }
+        }
+
+        int version = readJson(JSON_FILE, new InputStreamReader(
+                new ByteArrayInputStream(json), StandardCharsets.UTF_8), out);
+        if (version < SCHEMA_VERSION) return true; // rewritten (and cached) by the caller
+        writeCache(out, mtime, json.length, hash);
+        return false;
+    }
+
+    /** Writes the parse cache for the current arenas.json; failures only cost the next parse. */
+    private static void writeCache(Collection<ArenaData> arenas, long mtime, long size, int hash) {
+        Path path = CACHE_FILE.toPath();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(CACHE_MAGIC);
+                out.writeLong(mtime);
+                out.writeLong(size);
+                out.writeInt(hash);
+                writeBinary(out, arenas);
+            }
+            moveAtomically(tmp, path);
+        } catch (IOException e) {
+            LOGGER.warn("[ArenaStore] Could not write parse cache: {}", e.getMessage());
+        }
+    }
+
+    private static int crc32c(byte[] data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static void readArenaArray(JsonReader reader, List<ArenaData> out) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            ArenaData a = readArena(reader, null);
+            if (a != null) out.add(a);
+        }
+        reader.endArray();
+    }
+
+    /** Reads one arena object; {@code defaultName} is used if the object has no name. */
+    private static ArenaData readArena(JsonReader reader, String defaultName) throws IOException {
+        ArenaData a = new ArenaData();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (key) {
+                case "name" -> a.name = reader.nextString();
+                case "corner1" -> a.corner1 = readPos(reader);
+                case "corner2" -> a.corner2 = readPos(reader);
+                case "spawn1" -> a.spawn1 = readPos(reader);
+                case "spawn2" -> a.spawn2 = readPos(reader);
+                case "available" -> a.available = reader.nextBoolean();
+                case "dimension" -> a.dimension = reader.nextString();
+                case "tags" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) a.tags.add(reader.nextString().toLowerCase(Locale.ROOT));
+                    reader.endArray();
+                }
+                case "teamSpawns" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        List<ArenaData.Pos> spawns = new ArrayList<>();
+                        reader.beginArray();
+                        while (reader.hasNext()) spawns.add(readPos(reader));
+                        reader.endArray();
+                        a.teamSpawns.add(spawns);
+                    }
+                    reader.endArray();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (a.name == null || a.name.isBlank()) a.name = defaultName;
+        return (a.name == null || a.name.isBlank()) ? null : a;
+    }
+
+    private static ArenaData.Pos readPos(JsonReader reader) throws IOException {
+        ArenaData.Pos pos = new ArenaData.Pos();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "x" -> pos.x = reader.nextInt();
+                case "y" -> pos.y = reader.nextInt();
+                case "z" -> pos.z = reader.nextInt();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return pos;
+    }
+
+    /**
+     * One-time migration of PvPFightConfigManager's separate arena_data.json:
+     * arenas not already known are merged in. The file stays in place until the
+     * merged store is saved (see {@link #retireLegacy()}).
+     */
+    private static boolean mergeLegacyArenaData(List<ArenaData> arenas) {
+        List<ArenaData> legacy = new ArrayList<>();
+        try {
+            if (LEGACY_FILE.length() > 0) readJson(LEGACY_FILE, legacy);
+        } catch (Exception e) {
+            LOGGER.error("[ArenaStore] Could not read legacy {}; leaving it in place.", LEGACY_FILE.getAbsolutePath(), e);
+            return false;
+        }
+
+        java.util.Set<String> known = new java.util.HashSet<>();
+        for (ArenaData a : arenas) known.add(key(a.name));
+
+        int merged = 0;
+        for (ArenaData a : legacy) {
+            if (known.add(key(a.name))) {
+                arenas.add(a);
+                merged++;
+            }
+        }
+        LOGGER.info("[ArenaStore] Merged {} arenas from legacy {}.", merged, LEGACY_FILE.getName());
+        return true;
+    }
+
+    /**
+     * Renames the merged legacy arena_data.json; call only after the store holding
+     * its arenas was saved.
+     */
+    static void retireLegacy() {
+        if (!LEGACY_FILE.exists()) return;
+        File done = new File(LEGACY_FILE.getPath() + ".migrated");
+        if (!LEGACY_FILE.renameTo(done)) {
+            LOGGER.warn("[ArenaStore] Could not rename {} after migration.", LEGACY_FILE.getAbsolutePath());
+        }
+    }
+
+    // =========================================================
+    // === Save
+    // =========================================================
+
+    public static void save(Collection<ArenaData> arenas, Format format) throws IOException {
+        File target = format == Format.BINARY ? BINARY_FILE : JSON_FILE;
+        File dir = target.getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Could not create config directory: " + dir);
+        }
+
+        Path path = target.toPath();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        if (format == Format.BINARY) writeBinary(tmp, arenas);
+        else writeJson(tmp, arenas);
+        moveAtomically(tmp, path);
+
+        if (format == Format.JSON) {
+            byte[] json = Files.readAllBytes(path);
+            writeCache(arenas, target.lastModified(), json.length, crc32c(json));
+        }
+    }
+
+    private static void writeJson(Path path, Collection<ArenaData> arenas) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+             JsonWriter writer = new JsonWriter(out)) {
+            writer.setIndent("  ");
+            writer.beginObject();
+            writer.name("version").value(SCHEMA_VERSION);
+            writer.name("arenas").beginArray();
+            for (ArenaData a : arenas) {
+                writer.beginObject();
+                writer.name("name").value(a.name);
+                writer.name("dimension").value(a.getDimension());
+                if (!a.getTags().isEmpty()) {
+                    writer.name("tags").beginArray();
+                    for (String tag : a.getTags()) writer.value(tag);
+                    writer.endArray();
+                }
+                writePos(writer, "corner1", a.corner1);
+                writePos(writer, "corner2", a.corner2);
+                writePos(writer, "spawn1", a.spawn1);
+                writePos(writer, "spawn2", a.spawn2);
+                if (hasTeamSpawns(a)) {
+                    writer.name("teamSpawns").beginArray();
+                    for (List<ArenaData.Pos> spawns : a.teamSpawns) {
+                        writer.beginArray();
+                        for (ArenaData.Pos pos : spawns) {
+                            writer.beginObject().name("x").value(pos.x).name("y").value(pos.y).name("z").value(pos.z).endObject();
+                        }
+                        writer.endArray();
+                    }
+                    writer.endArray();
+                }
+                writer.name("available").value(a.available);
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+    }
+
+    private static void writePos(JsonWriter writer, String key, ArenaData.Pos pos) throws IOException {
+        if (pos == null) return;
+        writer.name(key).beginObject()
+                .name("x").value(pos.x)
+                .name("y").value(pos.y)
+                .name("z").value(pos.z)
+                .endObject();
+    }
+
+    // =========================================================
+    // === Binary format
+    // =========================================================
+    // int magic, int version, int count, then per arena:
+    //   UTF name, [v3: UTF dimension, short tag count, UTF tags...],
+    //   byte presence mask (corner1, corner2, spawn1, spawn2),
+    //   3 ints per present position, boolean available,
+    //   [v4: byte team count, per team: short spawn count, 3 ints per spawn]
+
+    static List<ArenaData> readBinary(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            return readBinary(in, file);
+        }
+    }
+
+    private static List<ArenaData> readBinary(DataInputStream in, File file) throws IOException {
+        if (in.readInt() != BINARY_MAGIC) throw new IOException("Not an arena store: " + file);
+        int version = in.readInt();
+        if (version < 2 || version > SCHEMA_VERSION) throw new IOException("Unsupported binary arena schema v" + version);
+
+        int count = in.readInt();
+        List<ArenaData> arenas = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ArenaData a = new ArenaData(in.readUTF());
+            if (version >= 3) {
+                a.dimension = in.readUTF();
+                int tags = in.readUnsignedShort();
+                for (int t = 0; t < tags; t++) a.tags.add(in.readUTF());
+            }
+            int mask = in.readUnsignedByte();
+            if ((mask & 1) != 0) a.corner1 = readPos(in);
+            if ((mask & 2) != 0) a.corner2 = readPos(in);
+            if ((mask & 4) != 0) a.spawn1 = readPos(in);
+            if ((mask & 8) != 0) a.spawn2 = readPos(in);
+            a.available = in.readBoolean();
+            if (version >= 4) {
+                int teams = in.readUnsignedByte();
+                for (int t = 0; t < teams; t++) {
+                    int n = in.readUnsignedShort();
+                    List<ArenaData.Pos> spawns = new ArrayList<>(n);
+                    for (int k = 0; k < n; k++) spawns.add(readPos(in));
+                    a.teamSpawns.add(spawns);
+                }
+            }
+            arenas.add(a);
+        }
+        return arenas;
+    }
+
+    private static void writeBinary(Path path, Collection<ArenaData> arenas) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            writeBinary(out, arenas);
+        }
+    }
+
+    private static void writeBinary(DataOutputStream out, Collection<ArenaData> arenas) throws IOException {
+        out.writeInt(BINARY_MAGIC);
+        out.writeInt(SCHEMA_VERSION);
+        out.writeInt(arenas.size());
+        for (ArenaData a : arenas) {
+            out.writeUTF(a.name);
+            out.writeUTF(a.getDimension());
+            out.writeShort(a.getTags().size());
+            for (String tag : a.getTags()) out.writeUTF(tag);
+            int mask = (a.corner1 != null ? 1 : 0) | (a.corner2 != null ? 2 : 0)
+                    | (a.spawn1 != null ? 4 : 0) | (a.spawn2 != null ? 8 : 0);
+            out.writeByte(mask);
+            writePos(out, a.corner1);
+            writePos(out, a.corner2);
+            writePos(out, a.spawn1);
+            writePos(out, a.spawn2);
+            out.writeBoolean(a.available);
+            List<List<ArenaData.Pos>> teams = a.teamSpawns != null ? a.teamSpawns : List.of();
+            out.writeByte(teams.size());
+            for (List<ArenaData.Pos> spawns : teams) {
+                out.writeShort(spawns.size());
+                for (ArenaData.Pos pos : spawns) writePos(out, pos);
+            }
+        }
+    }
+
+    private static ArenaData.Pos readPos(DataInputStream in) throws IOException {
+        return new ArenaData.Pos(in.readInt(), in.readInt(), in.readInt());
+    }
+
+    private static void writePos(DataOutputStream out, ArenaData.Pos pos) throws IOException {
+        if (pos == null) return;
+        out.writeInt(pos.x);
+        out.writeInt(pos.y);
+        out.writeInt(pos.z);
+    }
+
+    // =========================================================
+    // === Helpers
+    // =========================================================
+
+    private static boolean hasTeamSpawns(ArenaData a) {
+        if (a.teamSpawns == null) return false;
+        for (List<ArenaData.Pos> spawns : a.teamSpawns) if (!spawns.isEmpty()) return true;
+        return false;
+    }
+
+    private static File newestExisting(File a, File b) {
+        if (!a.exists()) return b.exists() ? b : null;
+        if (!b.exists()) return a;
+        return b.lastModified() > a.lastModified() ? b : a;
+    }
+
+    private static void moveAtomically(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.pvpfight;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * ChallengeInbox.java
+ *
+ * Open fight requests, any number per target (up to {@link #MAX_INCOMING}).
+ *
+ *  - Per target: challenger → request in arrival order, so accept/deny by
+ *    challenger is O(1) and the oldest challenge is the first entry.
+ *  - Per challenger: the same requests by target, for /fight cancel and logout.
+ *  - Expiry: one hashed timing wheel advanced once per server tick. Requests that
+ *    are answered early stay in their slot and are dropped lazily when it comes round.
+ *
+ * Server thread only.
+ */
+final class ChallengeInbox {
+
+    /** Max. open challenges a single player can receive. */
+    static final int MAX_INCOMING = 16;
+
+    private static final int WHEEL_SLOTS = 64; // power of two
+    private static final int WHEEL_MASK = WHEEL_SLOTS - 1;
+
+    enum AddResult { ADDED, DUPLICATE, FULL }
+
+    private final Map<UUID, LinkedHashMap<UUID, FightManager.PendingRequest>> incoming = new HashMap<>();
+    private final Map<UUID, LinkedHashMap<UUID, FightManager.PendingRequest>> outgoing = new HashMap<>();
+    private final List<ArrayList<FightManager.PendingRequest>> wheel = new ArrayList<>(WHEEL_SLOTS);
+    private long now;
+
+    ChallengeInbox() {
+        for (int i = 0; i < WHEEL_SLOTS; i++) wheel.add(new ArrayList<>());
+    }
+
+    /** Registers a request that expires after {@code timeoutTicks}. */
+    AddResult add(FightManager.PendingRequest req, int timeoutTicks) {
+        UUID from = req.from.getUUID();
+        UUID target = req.target.getUUID();
+        LinkedHashMap<UUID, FightManager.PendingRequest> in = incoming.computeIfAbsent(target, k -> new LinkedHashMap<>());
+        if (in.containsKey(from)) return AddResult.DUPLICATE;
+        if (in.size() >= MAX_INCOMING) return AddResult.FULL;
+
+        in.put(from, req);
+        outgoing.computeIfAbsent(from, k -> new LinkedHashMap<>()).put(target, req);
+        req.deadline = now + Math.max(1, timeoutTicks);
+        wheel.get((int) (req.deadline & WHEEL_MASK)).add(req);
+        return AddResult.ADDED;
+    }
+
+    /** Removes and returns the challenge of {@code challenger} to {@code target}, or null. */
+    FightManager.PendingRequest remove(UUID target, UUID challenger) {
+        LinkedHashMap<UUID, FightManager.PendingRequest> in = incoming.get(target);
+        FightManager.PendingRequest req = in == null ? null : in.get(challenger);
+        if (req != null) unlink(req);
+        return req;
+    }
+
+    /** Removes and returns the oldest challenge to {@code target}, or null. */
+    FightManager.PendingRequest removeOldest(UUID target) {
+        LinkedHashMap<UUID, FightManager.PendingRequest> in = incoming.get(target);
+        if (in == null || in.isEmpty()) return null;
+        FightManager.PendingRequest req = in.values().iterator().next();
+        unlink(req);
+        return req;
+    }
+
+    /** Removes and returns all challenges sent by {@code challenger}. */
+    List<FightManager.PendingRequest> removeOutgoing(UUID challenger) {
+        LinkedHashMap<UUID, FightManager.PendingRequest> out = outgoing.get(challenger);
+        if (out == null) return List.of();
+        List<FightManager.PendingRequest> removed = new ArrayList<>(out.values());
+        for (FightManager.PendingRequest req : removed) unlink(req);
+        return removed;
+    }
+
+    /** Removes and returns every challenge the player sent or received. */
+    List<FightManager.PendingRequest> removeAll(UUID player) {
+        List<FightManager.PendingRequest> removed = new ArrayList<>(removeOutgoing(player));
+        LinkedHashMap<UUID, FightManager.PendingRequest> in = incoming.get(player);
+        if (in != null) {
+            List<FightManager.PendingRequest> received = new ArrayList<>(in.values());
+            for (FightManager.PendingRequest req : received) unlink(req);
+            removed.addAll(received);
+        }
+        return removed;
+    }
+
+    /** Visits the open challenges to {@code target}, oldest first. */
+    void forEachIncoming(UUID target, Consumer<FightManager.PendingRequest> action) {
+        LinkedHashMap<UUID, FightManager.PendingRequest> in = incoming.get(target);
+        if (in != null) in.values().forEach(action);
+    }
+
+    /**
+     * Advances the wheel by one tick; requests that reach their deadline are
+     * removed and passed to {@code onExpire}.
+     */
+    void tick(Consumer<FightManager.PendingRequest> onExpire) {
+        now++;
+        ArrayList<FightManager.PendingRequest> slot = wheel.get((int) (now & WHEEL_MASK));
+        for (int i = slot.size() - 1; i >= 0; i--) {
+            FightManager.PendingRequest req = slot.get(i);
+            if (!req.closed && req.deadline > now) continue; // due in a later round
+            // swap-remove, order within a slot does not matter
+            slot.set(i, slot.get(slot.size() - 1));
+            slot.remove(slot.size() - 1);
+            if (!req.closed) {
+                unlink(req);
+                onExpire.accept(req);
+            }
+        }
+    }
+
+    void clear() {
+        incoming.clear();
+        outgoing.clear();
+        for (ArrayList<FightManager.PendingRequest> slot : wheel) slot.clear();
+    }
+
+    private void unlink(FightManager.PendingRequest req) {
+        req.closed = true;
+        UUID from = req.from.getUUID();
+        UUID target = req.target.getUUID();
+        removeEntry(incoming, target, from);
+        removeEntry(outgoing, from, target);
+    }
+
+    private static void removeEntry(Map<UUID, LinkedHashMap<UUID, FightManager.PendingRequest>> index, UUID owner, UUID other) {
+        LinkedHashMap<UUID, FightManager.PendingRequest> map = index.get(owner);
+        if (map == null) return;
+        map.remove(other);
+        if (map.isEmpty()) index.remove(owner);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.pvpfight;
+
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.phys.AABB;
+
+/**
+ * CombatTelemetry.java
+ *
+ * Attack samples of one fight for anti-cheat analysis: per fighter a fixed-size
+ * ring of attack timestamps, attacker→target reach (eye to hitbox) and the
+ * rotation change in the tick before the hit. All rings live in flat primitive
+ * arrays allocated with the fight; recording a sample allocates nothing.
+ *
+ * Only attacks during ACTIVE fights are recorded (see FightProtections); the
+ * {@link TelemetryAnalyzer} reads copies made by {@link #snapshot}.
+ *
+ * Server thread only.
+ */
+public final class CombatTelemetry {
+
+    /** Samples kept per fighter. */
+    static final int CAPACITY = 128;
+
+    private final int participants;
+    // [participant * CAPACITY + slot]
+    private final long[] attackNanos;
+    private final float[] reach;
+    private final float[] rotation;
+    private final int[] head;
+    private final int[] count;
+    // total samples per fighter at the last snapshot (skip unchanged fighters)
+    private final int[] analyzedAt;
+    private final boolean[] flagged;
+
+    public CombatTelemetry(int participants) {
+        this.participants = participants;
+        this.attackNanos = new long[participants * CAPACITY];
+        this.reach = new float[participants * CAPACITY];
+        this.rotation = new float[participants * CAPACITY];
+        this.head = new int[participants];
+        this.count = new int[participants];
+        this.analyzedAt = new int[participants];
+        this.flagged = new boolean[participants];
+    }
+
+    /** Records one attack of fighter {@code attacker} on {@code target}. */
+    public void recordAttack(int attacker, ServerPlayer player, Entity target, long nowNanos) {
+        if (attacker < 0) return;
+        int slot = attacker * CAPACITY + head[attacker];
+        attackNanos[slot] = nowNanos;
+        reach[slot] = reachTo(player, target.getBoundingBox());
+        rotation[slot] = Math.abs(Mth.wrapDegrees(player.getYRot() - player.yRotO))
+                + Math.abs(player.getXRot() - player.xRotO);
+        head[attacker] = (head[attacker] + 1) % CAPACITY;
+        count[attacker]++;
+    }
+
+    /** Distance from the player's eyes to the closest point of the box. */
+    private static float reachTo(ServerPlayer player, AABB box) {
+        double ex = player.getX();
+        double ey = player.getEyeY();
+        double ez = player.getZ();
+        double dx = Math.max(0, Math.max(box.minX - ex, ex - box.maxX));
+        double dy = Math.max(0, Math.max(box.minY - ey, ey - box.maxY));
+        double dz = Math.max(0, Math.max(box.minZ - ez, ez - box.maxZ));
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Copies the fighter's samples (oldest first) if there are new ones since the
+     * last snapshot and the fighter has not been flagged yet; null otherwise.
+     */
+    Snapshot snapshot(int participant) {
+        int total = count[participant];
+        if (flagged[participant] || total == analyzedAt[participant]) return null;
+        analyzedAt[participant] = total;
+
+        int n = Math.min(total, CAPACITY);
+        long[] times = new long[n];
+        float[] reaches = new float[n];
+        float[] rotations = new float[n];
+        int start = total > CAPACITY ? head[participant] : 0;
+        int base = participant * CAPACITY;
+        for (int i = 0; i < n; i++) {
+            int slot = base + (start + i) % CAPACITY;
+            times[i] = attackNanos[slot];
+            reaches[i] = reach[slot];
+            rotations[i] = rotation[slot];
+        }
+        return new Snapshot(participant, times, reaches, rotations);
+    }
+
+    void markFlagged(int participant) {
+        flagged[participant] = true;
+    }
+
+    public int participants() {
+        return participants;
+    }
+
+    /** Immutable copy of one fighter's ring, handed to the analyzer thread. */
+    record Snapshot(int participant, long[] attackNanos, float[] reach, float[] rotation) {}
+}
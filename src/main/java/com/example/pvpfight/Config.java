@@ -22,7 +22,43 @@ public class Config {
     public static final ForgeConfigSpec.IntValue postWinInvulnerabilitySeconds;
     public static final ForgeConfigSpec.BooleanValue allowEnvironmentDamage;
     public static final ForgeConfigSpec.BooleanValue forfeitOnLeaveArena;
+    public static final ForgeConfigSpec.IntValue arenaBoundsMargin;
+    public static final ForgeConfigSpec.BooleanValue friendlyFire;
     public static final ForgeConfigSpec.BooleanValue announceToAll;
+    public static final ForgeConfigSpec.IntValue teardownBudgetMicros;
+    public static final ForgeConfigSpec.EnumValue<ArenaStore.Format> arenaStorageFormat;
+    public static final ForgeConfigSpec.EnumValue<ArenaSelectionPolicy.Type> arenaSelectionPolicy;
+    public static final ForgeConfigSpec.IntValue arenaGenerationBudgetMicros;
+    // === Instanzierte Arenen ===
+    public static final ForgeConfigSpec.BooleanValue instancedArenas;
+    public static final ForgeConfigSpec.ConfigValue<String> instanceTemplates;
+    public static final ForgeConfigSpec.IntValue maxInstances;
+    public static final ForgeConfigSpec.IntValue instanceCellSize;
+    public static final ForgeConfigSpec.IntValue instanceIdleMinutes;
+    // === Matchmaking zwischen Servern ===
+    public static final ForgeConfigSpec.EnumValue<MatchmakingTransport.Type> matchmakingTransport;
+    public static final ForgeConfigSpec.ConfigValue<String> nodeId;
+    public static final ForgeConfigSpec.IntValue matchmakingPort;
+    public static final ForgeConfigSpec.ConfigValue<String> matchmakingPeers;
+    public static final ForgeConfigSpec.ConfigValue<String> matchmakingBindAddress;
+    public static final ForgeConfigSpec.ConfigValue<String> matchmakingSecret;
+    // === Rate-Limits für Befehle ===
+    public static final ForgeConfigSpec.BooleanValue rateLimitEnabled;
+    public static final ForgeConfigSpec.IntValue challengeBurst;
+    public static final ForgeConfigSpec.IntValue challengesPerMinute;
+    public static final ForgeConfigSpec.IntValue responseBurst;
+    public static final ForgeConfigSpec.IntValue responsesPerMinute;
+    // === Anti-Cheat-Telemetrie ===
+    public static final ForgeConfigSpec.BooleanValue combatTelemetry;
+    public static final ForgeConfigSpec.DoubleValue reachFlagBlocks;
+    public static final ForgeConfigSpec.IntValue cpsFlag;
+    public static final ForgeConfigSpec.IntValue snapFlagDegrees;
+    // === Kampfaufzeichnungen ===
+    public static final ForgeConfigSpec.BooleanValue replayRecording;
+    public static final ForgeConfigSpec.IntValue replayBudgetKb;
+    public static final ForgeConfigSpec.IntValue replayRetention;
+    // === Turniere ===
+    public static final ForgeConfigSpec.IntValue tournamentNoShowSeconds;
     // === Belohnungen (Rewards) ===
     public static final ForgeConfigSpec.IntValue winnerXp;
     public static final ForgeConfigSpec.IntValue loserXp;
@@ -49,14 +85,161 @@ public class Config {
                 .define("allowEnvironmentDamage", false);
 
         forfeitOnLeaveArena = BUILDER
-                .comment("If true, a player automatically loses when leaving the arena.")
-                .define("forfeitOnLeaveArena", true);
+                .comment("If true, a fighter who leaves the arena (past arenaBoundsMargin) during the fight loses.",
+                        "If false (default, the behaviour before this option was enforced), they are teleported back inside.",
+                        "Older config.json files that still say true are reset to false once on load (see the server log).")
+                .define("forfeitOnLeaveArena", false);
+
+        arenaBoundsMargin = BUILDER
+                .comment("Blocks a fighter may stray past the arena walls (warned only) before being sent back or forfeiting.")
+                .defineInRange("arenaBoundsMargin", 2, 0, 16);
+
+        friendlyFire = BUILDER
+                .comment("If true, fighters of the same team can hurt each other in team fights.")
+                .define("friendlyFire", false);
 
         announceToAll = BUILDER
-                .comment("If true, fight victories are announced in the global chat.")
+                .comment("If true, fight victories are announced to the fight's audience (fighters and spectators).")
                 .define("announceToAll", true);
 
+        teardownBudgetMicros = BUILDER
+                .comment("Time budget (microseconds per tick) for post-fight teardown work (restore, rewards, teleport, cleanup).")
+                .defineInRange("teardownBudgetMicros", 2000, 100, 50000);
+
+        arenaStorageFormat = BUILDER
+                .comment("Arena store format: JSON (arenas.json, human-editable) or BINARY (arenas.bin, compact, for many arenas).")
+                .defineEnum("arenaStorageFormat", ArenaStore.Format.JSON);
+
+        arenaSelectionPolicy = BUILDER
+                .comment("How a free arena is picked: FIRST_FREE, LEAST_RECENTLY_USED, SPREAD_REGIONS or SIZE_MATCHED.")
+                .defineEnum("arenaSelectionPolicy", ArenaSelectionPolicy.Type.LEAST_RECENTLY_USED);
+
+        arenaGenerationBudgetMicros = BUILDER
+                .comment("Time budget (microseconds per tick) for placing blocks of generated arena copies.")
+                .defineInRange("arenaGenerationBudgetMicros", 5000, 500, 50000);
+
         BUILDER.pop();
+            // === Instanced arena settings ===
+        BUILDER.push("instancing");
+
+        instancedArenas = BUILDER
+                .comment("If true, copies of template arenas are placed in the pvpfight:pvp_arenas dimension when all arenas are busy.")
+                .define("instancedArenas", false);
+
+        instanceTemplates = BUILDER
+                .comment("Comma-separated names of finalized arenas used as instance templates.")
+                .define("instanceTemplates", "");
+
+        maxInstances = BUILDER
+                .comment("Maximum number of instanced arenas alive at the same time.")
+                .defineInRange("maxInstances", 64, 1, 4096);
+
+        instanceCellSize = BUILDER
+                .comment("Side length (blocks) of one instance grid cell; must be larger than every template.")
+                .defineInRange("instanceCellSize", 256, 32, 1024);
+
+        instanceIdleMinutes = BUILDER
+                .comment("Instanced arenas that stay unused this long are retired and their cell is recycled.")
+                .defineInRange("instanceIdleMinutes", 10, 1, 1440);
+
+        BUILDER.pop(); // closes "instancing"
+            // === Cross-server matchmaking ===
+        BUILDER.push("matchmaking");
+
+        matchmakingTransport = BUILDER
+                .comment("LOCAL: single server, no routing. SOCKET: share queue and arena load with the peers below.")
+                .defineEnum("matchmakingTransport", MatchmakingTransport.Type.LOCAL);
+
+        nodeId = BUILDER
+                .comment("This backend's server name in the proxy config (players are routed with it).")
+                .define("nodeId", "pvp-1");
+
+        matchmakingPort = BUILDER
+                .comment("TCP port this node listens on for matchmaking messages.")
+                .defineInRange("matchmakingPort", 25590, 1, 65535);
+
+        matchmakingPeers = BUILDER
+                .comment("Comma-separated host:port list of the other nodes' matchmaking ports.")
+                .define("matchmakingPeers", "");
+
+        matchmakingBindAddress = BUILDER
+                .comment("Address the matchmaking port binds to. Loopback by default; set the node's private address for multi-host setups.")
+                .define("matchmakingBindAddress", "127.0.0.1");
+
+        matchmakingSecret = BUILDER
+                .comment("Shared secret of all nodes. When set, every message is signed (HMAC-SHA256) and unsigned or stale messages are dropped.",
+                        "Connections from hosts not listed in matchmakingPeers are always refused.")
+                .define("matchmakingSecret", "");
+
+        BUILDER.pop(); // closes "matchmaking"
+            // === Command rate limits (ops are exempt) ===
+        BUILDER.push("ratelimit");
+
+        rateLimitEnabled = BUILDER
+                .comment("If true, players are limited by the token buckets below.")
+                .define("rateLimitEnabled", true);
+
+        challengeBurst = BUILDER
+                .comment("Fight requests a player can send back-to-back.")
+                .defineInRange("challengeBurst", 3, 1, 100);
+
+        challengesPerMinute = BUILDER
+                .comment("Fight requests regained per minute after the burst is used up.")
+                .defineInRange("challengesPerMinute", 6, 1, 600);
+
+        responseBurst = BUILDER
+                .comment("accept/deny/cancel/queue/spectate commands a player can run back-to-back.")
+                .defineInRange("responseBurst", 10, 1, 100);
+
+        responsesPerMinute = BUILDER
+                .comment("accept/deny/cancel/queue/spectate commands regained per minute.")
+                .defineInRange("responsesPerMinute", 30, 1, 600);
+
+        BUILDER.pop(); // closes "ratelimit"
+            // === Combat telemetry (anti-cheat reports to ops) ===
+        BUILDER.push("anticheat");
+
+        combatTelemetry = BUILDER
+                .comment("If true, attacks in running fights are sampled and analysed; outliers are reported to ops.")
+                .define("combatTelemetry", true);
+
+        reachFlagBlocks = BUILDER
+                .comment("95th percentile reach (blocks, eye to hitbox) above which a fighter is reported.")
+                .defineInRange("reachFlagBlocks", 3.4, 3.0, 6.0);
+
+        cpsFlag = BUILDER
+                .comment("Clicks per second above which a fighter is reported.")
+                .defineInRange("cpsFlag", 16, 5, 50);
+
+        snapFlagDegrees = BUILDER
+                .comment("Rotation change (degrees) in the tick before a hit that counts as a snap; reported if most hits snap.")
+                .defineInRange("snapFlagDegrees", 60, 10, 360);
+
+        BUILDER.pop(); // closes "anticheat"
+            // === Fight replays ===
+        BUILDER.push("replays");
+
+        replayRecording = BUILDER
+                .comment("If true, every fight is recorded to config/pvpfight/replays for /fight replay.")
+                .define("replayRecording", true);
+
+        replayBudgetKb = BUILDER
+                .comment("Max. uncompressed size (KiB) of one fight recording; longer fights are truncated.")
+                .defineInRange("replayBudgetKb", 256, 16, 8192);
+
+        replayRetention = BUILDER
+                .comment("Number of replay files to keep; the oldest are deleted after each save. 0 keeps all.")
+                .defineInRange("replayRetention", 200, 0, 100000);
+
+        BUILDER.pop(); // closes "replays"
+            // === Tournaments ===
+        BUILDER.push("tournaments");
+
+        tournamentNoShowSeconds = BUILDER
+                .comment("Seconds a tournament match waits for an offline entrant before the opponent advances by walkover.")
+                .defineInRange("tournamentNoShowSeconds", 120, 10, 3600);
+
+        BUILDER.pop(); // closes "tournaments"
             // === Reward settings ===
         BUILDER.push("rewards");
 
@@ -109,9 +292,129 @@ public class Config {
         return forfeitOnLeaveArena.get();
     }
 
+    public static int getArenaBoundsMargin() {
+        return arenaBoundsMargin.get();
+    }
+
+    public static boolean isFriendlyFire() {
+        return friendlyFire.get();
+    }
+
     public static boolean isAnnounceToAll() {
         return announceToAll.get();
     }
+
+    public static int getTeardownBudgetMicros() {
+        return teardownBudgetMicros.get();
+    }
+
+    public static ArenaStore.Format getArenaStorageFormat() {
+        return arenaStorageFormat.get();
+    }
+
+    public static ArenaSelectionPolicy.Type getArenaSelectionPolicy() {
+        return arenaSelectionPolicy.get();
+    }
+
+    public static int getArenaGenerationBudgetMicros() {
+        return arenaGenerationBudgetMicros.get();
+    }
+
+    public static boolean isInstancedArenas() {
+        return instancedArenas.get();
+    }
+
+    public static String getInstanceTemplates() {
+        return instanceTemplates.get();
+    }
+
+    public static int getMaxInstances() {
+        return maxInstances.get();
+    }
+
+    public static int getInstanceCellSize() {
+        return instanceCellSize.get();
+    }
+
+    public static int getInstanceIdleMinutes() {
+        return instanceIdleMinutes.get();
+    }
+
+    public static MatchmakingTransport.Type getMatchmakingTransport() {
+        return matchmakingTransport.get();
+    }
+
+    public static String getNodeId() {
+        return nodeId.get();
+    }
+
+    public static int getMatchmakingPort() {
+        return matchmakingPort.get();
+    }
+
+    public static String getMatchmakingPeers() {
+        return matchmakingPeers.get();
+    }
+
+    public static String getMatchmakingBindAddress() {
+        return matchmakingBindAddress.get();
+    }
+
+    public static String getMatchmakingSecret() {
+        return matchmakingSecret.get();
+    }
+
+    public static boolean isRateLimitEnabled() {
+        return rateLimitEnabled.get();
+    }
+
+    public static int getChallengeBurst() {
+        return challengeBurst.get();
+    }
+
+    public static int getChallengesPerMinute() {
+        return challengesPerMinute.get();
+    }
+
+    public static int getResponseBurst() {
+        return responseBurst.get();
+    }
+
+    public static int getResponsesPerMinute() {
+        return responsesPerMinute.get();
+    }
+
+    public static boolean isCombatTelemetry() {
+        return combatTelemetry.get();
+    }
+
+    public static double getReachFlagBlocks() {
+        return reachFlagBlocks.get();
+    }
+
+    public static int getCpsFlag() {
+        return cpsFlag.get();
+    }
+
+    public static int getSnapFlagDegrees() {
+        return snapFlagDegrees.get();
+    }
+
+    public static boolean isReplayRecording() {
+        return replayRecording.get();
+    }
+
+    public static int getReplayBudgetKb() {
+        return replayBudgetKb.get();
+    }
+
+    public static int getReplayRetention() {
+        return replayRetention.get();
+    }
+
+    public static int getTournamentNoShowSeconds() {
+        return tournamentNoShowSeconds.get();
+    }
     // === Reward Getter-Methoden ===
 
     public static int getWinnerXp() {
@@ -3,36 +3,61 @@ package com.example.pvpfight;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
+import net.minecraft.commands.SharedSuggestionProvider;
 import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraftforge.event.RegisterCommandsEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import com.example.pvpfight.PvPFightMod;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
 /**
  * FightCommands.java
  *
  * Defines all player and admin commands for the PvP Fight Mod.
  *
  *  PLAYER COMMANDS:
- *   - /fight <player>         → send fight request
- *   - /fight accept <player>  → accept a fight
+ *   - /fight <player> [tag]   → send fight request (optionally for a tagged arena)
+ *   - /fight accept [player]  → accept a fight (the oldest one without a name)
  *   - /fight deny <player>    → deny a fight
  *   - /fight cancel           → cancel own request
  *   - /fight queue            → show queued fights
+ *   - /fight spectate [player|arena] → watch a fight (without argument: stop watching)
+ *   - /tournament join|leave  → enter / withdraw from the open tournament
+ *   - /tournament status      → show tournament progress
  *
  *  ADMIN COMMANDS (requires permission level 2+):
  *   - /fight abort            → immediately abort active fight
+ *   - /fight teams <a b vs c d [vs ...]> [#tag] → start a team fight (2v2, NvN, free-for-all)
+ *   - /fight replay <id>      → play back a recorded fight with armor stands
+ *   - /fight metrics          → show rate limiter counters
  *   - /fight reload           → reload config
  *   - /arena new <name>       → create a new arena (preferred)
  *   - /arena_new <name>       → create a new arena (legacy)
+ *   - /arena select <name>    → select an arena for editing
+ *   - /arena generate <template> <count> <spacing> → stamp copies of an arena on a grid
+ *   - /arena tag|untag <name> <tag> → add/remove an arena tag
  *   - /arena setcorner 1|2    → define arena corners
  *   - /arena setspawn 1|2     → define arena spawn points
+ *   - /arena addspawn <team>  → add a spawn for a team (more teams / members)
+ *   - /arena clearspawns <team> → remove a team's extra spawns
  *   - /arena info             → show arena info
  *   - /arena clear            → clear arena data
+ *   - /lobby set [name]       → set (named) lobby point at your position
+ *   - /lobby remove <name>    → remove a lobby point
+ *   - /lobby list             → list lobby points and occupancy
+ *   - /tournament create <single|double|swiss> [tag] → open a tournament (optionally for tagged arenas)
+ *   - /tournament start       → close entries, build the bracket and start matches
+ *   - /tournament cancel      → drop the tournament
  */
 @Mod.EventBusSubscriber
 public class FightCommands {
@@ -42,6 +67,35 @@ public class FightCommands {
         register(event.getDispatcher());
     }
 
+    // --- suggestion providers (prefix tries, no sorting or copying per keystroke) ---
+
+    private static final SuggestionProvider<CommandSourceStack> ONLINE_PLAYERS = (ctx, builder) -> {
+        ServerPlayer self = ctx.getSource().getPlayer();
+        String selfName = self != null ? self.getGameProfile().getName() : null;
+        PlayerNameIndex.forEachWithPrefix(builder.getRemaining(), name -> {
+            if (!name.equals(selfName)) builder.suggest(name);
+        });
+        return builder.buildFuture();
+    };
+
+    /** Only players who actually challenge the sender. */
+    private static final SuggestionProvider<CommandSourceStack> CHALLENGERS = (ctx, builder) -> {
+        ServerPlayer self = ctx.getSource().getPlayer();
+        if (self != null) {
+            String prefix = builder.getRemainingLowerCase();
+            PvPFightMod.getFightManager().forEachIncomingChallenger(self.getUUID(), name -> {
+                if (name.toLowerCase(Locale.ROOT).startsWith(prefix)) builder.suggest(name);
+            });
+        }
+        return builder.buildFuture();
+    };
+
+    private static final SuggestionProvider<CommandSourceStack> ARENA_NAMES = (ctx, builder) -> {
+        ArenaDataMulti.getRepository().forEachNameWithPrefix(builder.getRemaining(),
+                PlayerNameIndex.SUGGESTION_LIMIT, builder::suggest);
+        return builder.buildFuture();
+    };
+
     public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
 
         // =======================
@@ -51,24 +105,15 @@ public class FightCommands {
             Commands.literal("fight")
                 // --- send fight request ---
                 .then(Commands.argument("target", StringArgumentType.word())
-                    .executes(ctx -> {
-                        ServerPlayer from = ctx.getSource().getPlayerOrException();
-                        String targetName = StringArgumentType.getString(ctx, "target");
-                        ServerPlayer target = from.getServer().getPlayerList().getPlayerByName(targetName);
-
-                        if (target == null) {
-                            from.sendSystemMessage(Component.literal("§cPlayer not found: " + targetName));
-                            return 0;
-                        }
-                        if (target == from) {
-                            from.sendSystemMessage(Component.literal("§cYou cannot fight yourself."));
-                            return 0;
-                        }
-
-                        PvPFightMod.getFightManager().sendRequest(from, target);
-                        return 1;
-                    }))
-                
+                    .suggests(ONLINE_PLAYERS)
+                    .executes(ctx -> sendChallenge(ctx.getSource(), StringArgumentType.getString(ctx, "target"), null))
+                    // --- optional arena tag ---
+                    .then(Commands.argument("tag", StringArgumentType.word())
+                        .suggests((ctx, builder) -> SharedSuggestionProvider.suggest(
+                                ArenaDataMulti.getRepository().sortedTags(), builder))
+                        .executes(ctx -> sendChallenge(ctx.getSource(),
+                                StringArgumentType.getString(ctx, "target"),
+                                StringArgumentType.getString(ctx, "tag")))))                
                 // --- set lobby (admin only) ---
                 .then(Commands.literal("setlobby")
                     .requires(src -> src.hasPermission(2))
@@ -81,11 +126,19 @@ public class FightCommands {
                 
                 // --- accept ---
                 .then(Commands.literal("accept")
+                    .executes(ctx -> {
+                        ServerPlayer self = ctx.getSource().getPlayerOrException();
+                        if (!RateLimiter.RESPONSE.tryAcquire(ctx.getSource())) return 0;
+                        PvPFightMod.getFightManager().acceptOldest(self);
+                        return 1;
+                    })
                     .then(Commands.argument("player", StringArgumentType.word())
+                        .suggests(CHALLENGERS)
                         .executes(ctx -> {
                             ServerPlayer self = ctx.getSource().getPlayerOrException();
+                            if (!RateLimiter.RESPONSE.tryAcquire(ctx.getSource())) return 0;
                             String challengerName = StringArgumentType.getString(ctx, "player");
-                            ServerPlayer challenger = self.getServer().getPlayerList().getPlayerByName(challengerName);
+                            ServerPlayer challenger = PlayerNameIndex.resolve(self.getServer(), challengerName);
 
                             if (challenger == null) {
                                 self.sendSystemMessage(Component.literal("§cPlayer not found: " + challengerName));
@@ -99,10 +152,12 @@ public class FightCommands {
                 // --- deny ---
                 .then(Commands.literal("deny")
                     .then(Commands.argument("player", StringArgumentType.word())
+                        .suggests(CHALLENGERS)
                         .executes(ctx -> {
                             ServerPlayer self = ctx.getSource().getPlayerOrException();
+                            if (!RateLimiter.RESPONSE.tryAcquire(ctx.getSource())) return 0;
                             String challengerName = StringArgumentType.getString(ctx, "player");
-                            ServerPlayer challenger = self.getServer().getPlayerList().getPlayerByName(challengerName);
+                            ServerPlayer challenger = PlayerNameIndex.resolve(self.getServer(), challengerName);
 
                             if (challenger == null) {
                                 self.sendSystemMessage(Component.literal("§cPlayer not found: " + challengerName));
@@ -117,6 +172,7 @@ public class FightCommands {
                 .then(Commands.literal("cancel")
                     .executes(ctx -> {
                         ServerPlayer self = ctx.getSource().getPlayerOrException();
+                        if (!RateLimiter.RESPONSE.tryAcquire(ctx.getSource())) return 0;
                         PvPFightMod.getFightManager().cancelOwnRequest(self);
                         return 1;
                     }))
@@ -125,11 +181,28 @@ public class FightCommands {
                 .then(Commands.literal("queue")
                     .executes(ctx -> {
                         ServerPlayer self = ctx.getSource().getPlayerOrException();
+                        if (!RateLimiter.RESPONSE.tryAcquire(ctx.getSource())) return 0;
                         String info = PvPFightMod.getFightManager().getQueueStatus();
                         self.sendSystemMessage(Component.literal(info));
                         return 1;
                     }))
 
+                // --- spectate [player|arena] ---
+                .then(Commands.literal("spectate")
+                    .executes(ctx -> {
+                        ServerPlayer self = ctx.getSource().getPlayerOrException();
+                        if (!RateLimiter.RESPONSE.tryAcquire(ctx.getSource())) return 0;
+                        if (!PvPFightMod.getFightManager().stopSpectating(self)) {
+                            self.sendSystemMessage(Component.literal("§7You are not watching a fight."));
+                            return 0;
+                        }
+                        self.sendSystemMessage(Component.literal("§7You stopped watching."));
+                        return 1;
+                    })
+                    .then(Commands.argument("target", StringArgumentType.word())
+                        .suggests(ONLINE_PLAYERS)
+                        .executes(ctx -> spectate(ctx.getSource(), StringArgumentType.getString(ctx, "target")))))
+
                 // --- abort (admin only) ---
                 .then(Commands.literal("abort")
                     .requires(src -> src.hasPermission(2))
@@ -140,6 +213,33 @@ public class FightCommands {
                         return 1;
                     }))
 
+                // --- team fight (admin only) ---
+                .then(Commands.literal("teams")
+                    .requires(src -> src.hasPermission(2))
+                    .then(Commands.argument("teams", StringArgumentType.greedyString())
+                        .executes(ctx -> startTeamFight(ctx.getSource(), StringArgumentType.getString(ctx, "teams")))))
+
+                // --- replay (admin only) ---
+                .then(Commands.literal("replay")
+                    .requires(src -> src.hasPermission(2))
+                    .then(Commands.argument("id", StringArgumentType.word())
+                        .executes(ctx -> {
+                            ServerPlayer admin = ctx.getSource().getPlayerOrException();
+                            FightReplays.play(admin, StringArgumentType.getString(ctx, "id"));
+                            return 1;
+                        })))
+
+                // --- metrics (admin only) ---
+                .then(Commands.literal("metrics")
+                    .requires(src -> src.hasPermission(2))
+                    .executes(ctx -> {
+                        for (RateLimiter limiter : RateLimiter.all()) {
+                            ctx.getSource().sendSuccess(() -> Component.literal("§eRate limit §6" + limiter.getName()
+                                    + "§e: §a" + limiter.getAllowed() + " allowed§e, §c" + limiter.getRejected() + " rejected"), false);
+                        }
+                        return 1;
+                    }))
+
                 // --- reload config (admin only) ---
                 .then(Commands.literal("reload")
                     .requires(src -> src.hasPermission(2))
@@ -158,6 +258,7 @@ public class FightCommands {
            
                .then(Commands.literal("finalize")
                     .then(Commands.argument("name", StringArgumentType.word())
+                        .suggests(ARENA_NAMES)
                         .executes(ctx -> {
                             ServerPlayer admin = ctx.getSource().getPlayerOrException();
                             String name = StringArgumentType.getString(ctx, "name");
@@ -178,6 +279,43 @@ public class FightCommands {
                         })
                     )
                 )
+                // generate <template> <count> <spacing>
+                .then(Commands.literal("generate")
+                    .then(Commands.argument("template", StringArgumentType.word())
+                        .suggests(ARENA_NAMES)
+                        .then(Commands.argument("count", IntegerArgumentType.integer(1, 500))
+                            .then(Commands.argument("spacing", IntegerArgumentType.integer(0, 256))
+                                .executes(ctx -> generateArenas(ctx.getSource().getPlayerOrException(),
+                                        StringArgumentType.getString(ctx, "template"),
+                                        IntegerArgumentType.getInteger(ctx, "count"),
+                                        IntegerArgumentType.getInteger(ctx, "spacing")))))))
+                // select <name>
+                .then(Commands.literal("select")
+                    .then(Commands.argument("name", StringArgumentType.word())
+                        .suggests(ARENA_NAMES)
+                        .executes(ctx -> {
+                            ServerPlayer admin = ctx.getSource().getPlayerOrException();
+                            String name = StringArgumentType.getString(ctx, "name");
+                            if (!PvPFightMod.getArenaDataMulti().selectArena(admin, name)) {
+                                admin.sendSystemMessage(Component.literal("§cArena not found: §e" + name));
+                                return 0;
+                            }
+                            admin.sendSystemMessage(Component.literal("§aSelected arena §6" + name));
+                            return 1;
+                        })))
+                // tag <name> <tag> / untag <name> <tag>
+                .then(Commands.literal("tag")
+                    .then(Commands.argument("name", StringArgumentType.word())
+                        .suggests(ARENA_NAMES)
+                        .then(Commands.argument("tag", StringArgumentType.word())
+                            .executes(ctx -> setArenaTag(ctx.getSource().getPlayerOrException(),
+                                    StringArgumentType.getString(ctx, "name"), StringArgumentType.getString(ctx, "tag"), true)))))
+                .then(Commands.literal("untag")
+                    .then(Commands.argument("name", StringArgumentType.word())
+                        .suggests(ARENA_NAMES)
+                        .then(Commands.argument("tag", StringArgumentType.word())
+                            .executes(ctx -> setArenaTag(ctx.getSource().getPlayerOrException(),
+                                    StringArgumentType.getString(ctx, "name"), StringArgumentType.getString(ctx, "tag"), false)))))
                 // setcorner 1|2
                 .then(Commands.literal("setcorner")
                     .then(Commands.argument("id", IntegerArgumentType.integer(1, 2))
@@ -196,6 +334,21 @@ public class FightCommands {
                             PvPFightMod.getArenaDataMulti().setSpawn(admin, id);
                             return 1;
                         })))
+                // addspawn <team> / clearspawns <team>
+                .then(Commands.literal("addspawn")
+                    .then(Commands.argument("team", IntegerArgumentType.integer(1, 8))
+                        .executes(ctx -> {
+                            ServerPlayer admin = ctx.getSource().getPlayerOrException();
+                            PvPFightMod.getArenaDataMulti().addTeamSpawn(admin, IntegerArgumentType.getInteger(ctx, "team"));
+                            return 1;
+                        })))
+                .then(Commands.literal("clearspawns")
+                    .then(Commands.argument("team", IntegerArgumentType.integer(1, 8))
+                        .executes(ctx -> {
+                            ServerPlayer admin = ctx.getSource().getPlayerOrException();
+                            PvPFightMod.getArenaDataMulti().clearTeamSpawns(admin, IntegerArgumentType.getInteger(ctx, "team"));
+                            return 1;
+                        })))
                 // info
                 .then(Commands.literal("info")
                     .executes(ctx -> {
@@ -230,7 +383,7 @@ public class FightCommands {
         );
 
         // =======================
-        // /lobby set (admin only)
+        // /lobby set|remove|list (admin only)
         // =======================
         dispatcher.register(
             Commands.literal("lobby")
@@ -242,7 +395,210 @@ public class FightCommands {
                         admin.sendSystemMessage(Component.literal("§aLobby position has been saved."));
                         return 1;
                     })
+                    .then(Commands.argument("name", StringArgumentType.word())
+                        .executes(ctx -> {
+                            ServerPlayer admin = ctx.getSource().getPlayerOrException();
+                            String name = StringArgumentType.getString(ctx, "name");
+                            PvPFightMod.getLobbyManager().setLobbyPosition(admin, name);
+                            return 1;
+                        }))
+                )
+                .then(Commands.literal("remove")
+                    .then(Commands.argument("name", StringArgumentType.word())
+                        .suggests((ctx, builder) -> SharedSuggestionProvider.suggest(
+                                PvPFightMod.getLobbyManager().getLobbyNames(), builder))
+                        .executes(ctx -> {
+                            ServerPlayer admin = ctx.getSource().getPlayerOrException();
+                            String name = StringArgumentType.getString(ctx, "name");
+                            if (!PvPFightMod.getLobbyManager().removeLobby(name)) {
+                                admin.sendSystemMessage(Component.literal("§cLobby not found: §e" + name));
+                                return 0;
+                            }
+                            admin.sendSystemMessage(Component.literal("§aLobby §6" + name + " §aremoved."));
+                            return 1;
+                        }))
+                )
+                .then(Commands.literal("list")
+                    .executes(ctx -> {
+                        ServerPlayer admin = ctx.getSource().getPlayerOrException();
+                        PvPFightMod.getLobbyManager().printLobbies(admin);
+                        return 1;
+                    })
                 )
         );
+
+        // =======================
+        // /tournament command
+        // =======================
+        dispatcher.register(
+            Commands.literal("tournament")
+                .then(Commands.literal("create")
+                    .requires(src -> src.hasPermission(2))
+                    .then(Commands.argument("format", StringArgumentType.word())
+                        .suggests((ctx, builder) -> SharedSuggestionProvider.suggest(List.of("single", "double", "swiss"), builder))
+                        .executes(ctx -> createTournament(ctx.getSource(), StringArgumentType.getString(ctx, "format"), null))
+                        .then(Commands.argument("tag", StringArgumentType.word())
+                            .suggests((ctx, builder) -> SharedSuggestionProvider.suggest(
+                                    ArenaDataMulti.getRepository().sortedTags(), builder))
+                            .executes(ctx -> createTournament(ctx.getSource(),
+                                    StringArgumentType.getString(ctx, "format"),
+                                    StringArgumentType.getString(ctx, "tag"))))))
+                .then(Commands.literal("join")
+                    .executes(ctx -> reply(ctx.getSource(),
+                            PvPFightMod.getTournamentManager().join(ctx.getSource().getPlayerOrException()), null)))
+                .then(Commands.literal("leave")
+                    .executes(ctx -> reply(ctx.getSource(),
+                            PvPFightMod.getTournamentManager().leave(ctx.getSource().getPlayerOrException()), null)))
+                .then(Commands.literal("start")
+                    .requires(src -> src.hasPermission(2))
+                    .executes(ctx -> reply(ctx.getSource(), PvPFightMod.getTournamentManager().start(),
+                            "§aTournament started.")))
+                .then(Commands.literal("cancel")
+                    .requires(src -> src.hasPermission(2))
+                    .executes(ctx -> reply(ctx.getSource(), PvPFightMod.getTournamentManager().cancel(),
+                            "§eTournament cancelled.")))
+                .then(Commands.literal("status")
+                    .executes(ctx -> {
+                        String status = PvPFightMod.getTournamentManager().status();
+                        ctx.getSource().sendSuccess(() -> Component.literal(status), false);
+                        return 1;
+                    }))
+        );
+    }
+
+    private static int createTournament(CommandSourceStack source, String formatName, String tag) {
+        TournamentManager.Format format = TournamentManager.Format.parse(formatName);
+        if (format == null) {
+            source.sendFailure(Component.literal("§cUnknown format: " + formatName + " (single, double or swiss)"));
+            return 0;
+        }
+        if (tag != null && !ArenaDataMulti.getRepository().hasTag(tag)) {
+            source.sendFailure(Component.literal("§cNo arena has the tag: " + tag));
+            return 0;
+        }
+        return reply(source, PvPFightMod.getTournamentManager().create(source.getServer(), format, tag), null);
+    }
+
+    /** Reports the error of a manager call, or the success message (if any). */
+    private static int reply(CommandSourceStack source, String error, String success) {
+        if (error != null) {
+            source.sendFailure(Component.literal("§c" + error));
+            return 0;
+        }
+        if (success != null) source.sendSuccess(() -> Component.literal(success), true);
+        return 1;
+    }
+
+    private static int sendChallenge(CommandSourceStack source, String targetName, String tag)
+            throws CommandSyntaxException {
+        ServerPlayer from = source.getPlayerOrException();
+        if (!RateLimiter.CHALLENGE.tryAcquire(source)) return 0;
+        ServerPlayer target = PlayerNameIndex.resolve(from.getServer(), targetName);
+
+        if (target == null) {
+            from.sendSystemMessage(Component.literal("§cPlayer not found: " + targetName));
+            return 0;
+        }
+        if (target == from) {
+            from.sendSystemMessage(Component.literal("§cYou cannot fight yourself."));
+            return 0;
+        }
+        if (tag != null && !ArenaDataMulti.getRepository().hasTag(tag)) {
+            from.sendSystemMessage(Component.literal("§cNo arena has the tag: " + tag));
+            return 0;
+        }
+
+        PvPFightMod.getFightManager().sendRequest(from, target, tag);
+        return 1;
+    }
+
+    /** Watches the fight of the named player, or the fight in the named arena. */
+    private static int spectate(CommandSourceStack source, String target) throws CommandSyntaxException {
+        ServerPlayer self = source.getPlayerOrException();
+        if (!RateLimiter.RESPONSE.tryAcquire(source)) return 0;
+        ServerPlayer fighter = PlayerNameIndex.resolve(self.getServer(), target);
+        ArenaData arena = fighter == null ? ArenaDataMulti.getArena(target) : null;
+        if (fighter == null && arena == null) {
+            self.sendSystemMessage(Component.literal("§cNo player or arena named: " + target));
+            return 0;
+        }
+        String error = PvPFightMod.getFightManager().spectate(self, fighter, arena);
+        if (error != null) {
+            self.sendSystemMessage(Component.literal("§c" + error));
+            return 0;
+        }
+        return 1;
+    }
+
+    /** Parses "alice bob vs carol dave [vs ...] [#tag]" and starts the team fight. */
+    private static int startTeamFight(CommandSourceStack source, String spec) {
+        List<List<ServerPlayer>> teams = new ArrayList<>();
+        List<ServerPlayer> team = new ArrayList<>();
+        String tag = null;
+        for (String token : spec.trim().split("\\s+")) {
+            if (token.equalsIgnoreCase("vs")) {
+                teams.add(team);
+                team = new ArrayList<>();
+            } else if (token.startsWith("#") && token.length() > 1) {
+                tag = token.substring(1);
+            } else {
+                ServerPlayer player = PlayerNameIndex.resolve(source.getServer(), token);
+                if (player == null) {
+                    source.sendFailure(Component.literal("§cPlayer not found: " + token));
+                    return 0;
+                }
+                team.add(player);
+            }
+        }
+        teams.add(team);
+        if (tag != null && !ArenaDataMulti.getRepository().hasTag(tag)) {
+            source.sendFailure(Component.literal("§cNo arena has the tag: " + tag));
+            return 0;
+        }
+
+        String error = PvPFightMod.getFightManager().startTeamFight(teams, tag);
+        if (error != null) {
+            source.sendFailure(Component.literal("§c" + error));
+            return 0;
+        }
+        source.sendSuccess(() -> Component.literal("§aTeam fight started."), true);
+        return 1;
+    }
+
+    private static int generateArenas(ServerPlayer admin, String templateName, int count, int spacing) {
+        ArenaData template = ArenaDataMulti.getArena(templateName);
+        if (template == null) {
+            admin.sendSystemMessage(Component.literal("§cArena not found: §e" + templateName));
+            return 0;
+        }
+        if (!template.isConfigured()) {
+            admin.sendSystemMessage(Component.literal("§cArena §e" + templateName + " §cis not fully configured."));
+            return 0;
+        }
+
+        ServerLevel level = template.resolveLevel(admin.getServer());
+        List<ArenaGenerator.Cell> cells = PvPFightMod.getArenaGenerator().gridCells(template, template.getName(), count, spacing);
+        PvPFightMod.getArenaGenerator().submit(template, level, level, cells,
+                ArenaDataMulti::registerArena,
+                () -> {
+                    ArenaDataMulti.saveArenas();
+                    admin.sendSystemMessage(Component.literal("§aFinished generating §6" + count + " §acopies of §6" + templateName + "§a."));
+                });
+
+        admin.sendSystemMessage(Component.literal("§eGenerating §6" + count + " §ecopies of §6" + templateName
+                + " §e(" + PvPFightMod.getArenaGenerator().pendingCells() + " cells queued)..."));
+        return 1;
+    }
+
+    private static int setArenaTag(ServerPlayer admin, String name, String tag, boolean add) {
+        ArenaData arena = ArenaDataMulti.getArena(name);
+        if (arena == null) {
+            admin.sendSystemMessage(Component.literal("§cArena not found: §e" + name));
+            return 0;
+        }
+        boolean changed = add ? arena.addTag(tag) : arena.removeTag(tag);
+        if (changed) ArenaDataMulti.saveArenas();
+        admin.sendSystemMessage(Component.literal("§aArena §6" + arena.getName() + " §atags: §e" + arena.getTags()));
+        return changed ? 1 : 0;
     }
 }
@@ -0,0 +1,171 @@
+package com.example.pvpfight;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.eventbus.EventBus;
+import net.minecraftforge.eventbus.api.Event;
+import net.minecraftforge.eventbus.api.EventListenerHelper;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.IEventListener;
+import org.slf4j.Logger;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * FightEvent.java
+ *
+ * Fight lifecycle events on {@link MinecraftForge#EVENT_BUS}, for integrations
+ * (chat bridges, economy, scoreboards) that want to follow fights without parsing
+ * chat or logs:
+ *
+ *   ChallengeSent → ChallengeAccepted → [Queued] → Started → Ended → ArenaReleased
+ *
+ * All events are posted on the server thread and are informational (not cancellable).
+ * FightManager only builds an event when {@link #hasListeners} says someone listens
+ * for it, so installs without integrations pay nothing.
+ */
+public class FightEvent extends Event {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    // id of the Forge bus inside the shared listener lists (not exposed by EventBus)
+    private static final int BUS_ID = forgeBusId();
+
+    public FightEvent() {}
+
+    /** True if any listener on the Forge bus receives events of {@code type}. */
+    static boolean hasListeners(Class<? extends FightEvent> type) {
+        if (BUS_ID < 0) return true;
+        for (IEventListener listener : EventListenerHelper.getListenerList(type).getListeners(BUS_ID)) {
+            if (!(listener instanceof EventPriority)) return true; // priority markers are not listeners
+        }
+        return false;
+    }
+
+    static void post(FightEvent event) {
+        MinecraftForge.EVENT_BUS.post(event);
+    }
+
+    private static int forgeBusId() {
+        try {
+            Field field = EventBus.class.getDeclaredField("busID");
+            field.setAccessible(true);
+            return field.getInt(MinecraftForge.EVENT_BUS);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("[FightEvent] Cannot detect event listeners, fight events are always posted: {}", e.toString());
+            return -1;
+        }
+    }
+
+    // =========================================================
+    // === Challenges
+    // =========================================================
+
+    /** A player challenged another one; the challenge is open now. */
+    public static class ChallengeSent extends FightEvent {
+        private final ServerPlayer challenger;
+        private final ServerPlayer target;
+        private final String arenaTag;
+
+        public ChallengeSent(ServerPlayer challenger, ServerPlayer target, String arenaTag) {
+            this.challenger = challenger;
+            this.target = target;
+            this.arenaTag = arenaTag;
+        }
+
+        public ServerPlayer getChallenger() { return challenger; }
+        public ServerPlayer getTarget() { return target; }
+        /** Arena tag the challenge is restricted to, or null. */
+        public String getArenaTag() { return arenaTag; }
+    }
+
+    /** A challenge was accepted; followed by {@link Queued} or (after warm-up) {@link Started}. */
+    public static class ChallengeAccepted extends FightEvent {
+        private final ServerPlayer challenger;
+        private final ServerPlayer acceptor;
+        private final String arenaTag;
+
+        public ChallengeAccepted(ServerPlayer challenger, ServerPlayer acceptor, String arenaTag) {
+            this.challenger = challenger;
+            this.acceptor = acceptor;
+            this.arenaTag = arenaTag;
+        }
+
+        public ServerPlayer getChallenger() { return challenger; }
+        public ServerPlayer getAcceptor() { return acceptor; }
+        public String getArenaTag() { return arenaTag; }
+    }
+
+    /** No arena was free: the pair waits in the queue. */
+    public static class Queued extends FightEvent {
+        private final ServerPlayer challenger;
+        private final ServerPlayer acceptor;
+        private final String arenaTag;
+        private final int queueSize;
+
+        public Queued(ServerPlayer challenger, ServerPlayer acceptor, String arenaTag, int queueSize) {
+            this.challenger = challenger;
+            this.acceptor = acceptor;
+            this.arenaTag = arenaTag;
+            this.queueSize = queueSize;
+        }
+
+        public ServerPlayer getChallenger() { return challenger; }
+        public ServerPlayer getAcceptor() { return acceptor; }
+        public String getArenaTag() { return arenaTag; }
+        /** Waiting pairs including this one. */
+        public int getQueueSize() { return queueSize; }
+    }
+
+    // =========================================================
+    // === Fights
+    // =========================================================
+
+    /** The countdown is over and the fighters can hit each other. */
+    public static class Started extends FightEvent {
+        private final List<ServerPlayer> participants;
+        private final ArenaData arena;
+
+        public Started(List<ServerPlayer> participants, ArenaData arena) {
+            this.participants = List.copyOf(participants);
+            this.arena = arena;
+        }
+
+        /** Fighters in ledger order (immutable). */
+        public List<ServerPlayer> getParticipants() { return participants; }
+        public ArenaData getArena() { return arena; }
+    }
+
+    /** A fight was decided; rewards and teleports follow over the next ticks. */
+    public static class Ended extends FightEvent {
+        private final FightResult result;
+
+        public Ended(FightResult result) {
+            this.result = result;
+        }
+
+        /** Participants and teams, the winning team, duration and the (final) damage ledger. */
+        public FightResult getResult() { return result; }
+    }
+
+    /**
+     * The arena is free again (fight torn down, warm-up cancelled or crash recovery).
+     * Posted after the oldest queued challenge had its chance to claim an arena, so
+     * listeners that start fights of their own (tournaments) never starve the queue.
+     */
+    public static class ArenaReleased extends FightEvent {
+        private final ArenaData arena;
+        private final FightResult result;
+
+        public ArenaReleased(ArenaData arena, FightResult result) {
+            this.arena = arena;
+            this.result = result;
+        }
+
+        public ArenaData getArena() { return arena; }
+        /** Result of the fight that used the arena, or null if none was decided. */
+        public FightResult getResult() { return result; }
+    }
+}
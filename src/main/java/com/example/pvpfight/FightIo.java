@@ -0,0 +1,164 @@
+package com.example.pvpfight;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.server.MinecraftServer;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * FightIo.java
+ *
+ * The mod's one place for file I/O off the server thread (arena store, lobbies,
+ * config.json, replays).
+ *
+ *  - A small bounded pool of daemon threads; when its queue is full the caller
+ *    runs the task itself, so a burst of saves slows down instead of piling up.
+ *  - Tasks are submitted on a lane (usually the file they touch). Tasks of one lane
+ *    run in submission order, so two quick saves of the same file never overtake
+ *    each other; different lanes run in parallel.
+ *  - {@link #onServer} hands results back to the server thread via server.execute.
+ *  - {@link #drain} (server stop) waits for every queued task before the JVM may exit.
+ *
+ * Callers snapshot live state on the server thread and only pass immutable copies in.
+ * The fight journal keeps its own fsync thread (group commit per tick).
+ */
+public final class FightIo {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final int THREADS = 2;
+    private static final int QUEUE = 256;
+    private static final long DRAIN_SECONDS = 10;
+
+    /** Last task per lane; removed once it completes with nothing queued behind it. */
+    private static final Map<String, CompletableFuture<?>> LANES = new ConcurrentHashMap<>();
+    private static ThreadPoolExecutor pool;
+
+    /** A blocking I/O step that may throw. */
+    @FunctionalInterface
+    public interface Task<T> {
+        T call() throws Exception;
+    }
+
+    /** A blocking I/O step without a result. */
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private FightIo() {}
+
+    // =========================================================
+    // === Submission
+    // =========================================================
+
+    /** Runs the task on the I/O pool after every earlier task of the same lane. */
+    public static <T> CompletableFuture<T> supply(String lane, Task<T> task) {
+        ThreadPoolExecutor executor = executor();
+        synchronized (LANES) {
+            CompletableFuture<?> previous = LANES.get(lane);
+            CompletableFuture<?> after = previous == null
+                    ? CompletableFuture.completedFuture(null)
+                    : previous.handle((r, e) -> null); // a failed save must not block the lane
+            CompletableFuture<T> next = after.thenApplyAsync(ignored -> {
+                try {
+                    return task.call();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+            LANES.put(lane, next);
+            next.whenComplete((r, e) -> LANES.remove(lane, next));
+            return next;
+        }
+    }
+
+    /** Like {@link #supply}, for tasks without a result. */
+    public static CompletableFuture<Void> run(String lane, Action action) {
+        return supply(lane, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Delivers the outcome of an I/O future on the server thread. {@code error} is the
+     * unwrapped cause, or null on success.
+     */
+    public static <T> void onServer(MinecraftServer server, CompletableFuture<T> future,
+                                    BiConsumer<? super T, Throwable> callback) {
+        future.whenComplete((result, error) -> server.execute(() -> callback.accept(result, unwrap(error))));
+    }
+
+    static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) error = error.getCause();
+        return error;
+    }
+
+    private static synchronized ThreadPoolExecutor executor() {
+        if (pool == null) {
+            AtomicInteger n = new AtomicInteger();
+            pool = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(QUEUE), r -> {
+                        Thread t = new Thread(r, "PvPFight-IO-" + n.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            pool.allowCoreThreadTimeOut(true);
+        }
+        return pool;
+    }
+
+    // =========================================================
+    // === Shutdown
+    // =========================================================
+
+    /**
+     * Waits for all queued I/O (server stop, after the last save was submitted).
+     * The pool is started again on the next submission.
+     */
+    public static void drain() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_SECONDS);
+        List<CompletableFuture<?>> pending;
+        synchronized (LANES) {
+            pending = new ArrayList<>(LANES.values());
+        }
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn("[FightIo] {} I/O lanes did not finish within {} s.", LANES.size(), DRAIN_SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // individual failures were already logged by their callers
+        }
+
+        ThreadPoolExecutor executor;
+        synchronized (FightIo.class) {
+            executor = pool;
+            pool = null;
+        }
+        if (executor == null) return;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                LOGGER.warn("[FightIo] I/O pool did not terminate in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
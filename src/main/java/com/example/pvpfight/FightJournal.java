@@ -0,0 +1,354 @@
+package com.example.pvpfight;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * FightJournal.java
+ *
+ * Write-ahead journal of fight session transitions (config/pvpfight/fights.journal),
+ * so a crash mid-fight can be recovered on the next start without admin fix-ups.
+ *
+ * Records (each framed as [int length][payload][int crc32]):
+ *   OPEN(arena, p1, p2) | OPEN_N(arena, n, p1…pn) → STATE(arena, state) … → CLOSE(arena)
+ *   RESTORE_PENDING(player) / RESTORED(player)
+ *
+ *  - Appends made during a tick are handed to a writer thread as one batch; the
+ *    writer drains every waiting batch and fsyncs once (group commit).
+ *  - {@link #replay()} rebuilds open sessions and pending restores; a torn tail
+ *    record ends the replay. The file is then compacted to just the live state,
+ *    and again whenever it grows past {@link #COMPACT_BYTES}.
+ */
+public class FightJournal {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    static final File FILE = new File("config/pvpfight/fights.journal");
+    private static final long COMPACT_BYTES = 1 << 20;
+
+    private static final byte OPEN = 1;
+    private static final byte STATE = 2;
+    private static final byte CLOSE = 3;
+    private static final byte RESTORE_PENDING = 4;
+    private static final byte RESTORED = 5;
+    // any number of participants (team fights); OPEN is still read for old journals
+    private static final byte OPEN_N = 6;
+
+    /** Session as known to the journal (mirrors what is on disk). */
+    record Session(String arena, List<UUID> players, FightManager.FightState state) {}
+
+    /** Outcome of a replay. */
+    record Recovery(List<Session> openSessions, Set<UUID> pendingRestore) {}
+
+    // live mirror of the journal content, used for compaction
+    private final Map<String, Session> open = new LinkedHashMap<>();
+    private final Set<UUID> pendingRestore = new HashSet<>();
+
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+    private final BlockingQueue<byte[]> writes = new LinkedBlockingQueue<>();
+    private final Object fileLock = new Object();
+    private FileChannel channel;
+    private Thread writer;
+
+    // =========================================================
+    // === Appends (server thread)
+    // =========================================================
+
+    synchronized void open(ArenaData arena, List<UUID> players) {
+        Session s = new Session(arena.getName(), List.copyOf(players), FightManager.FightState.WARMING);
+        open.put(s.arena(), s);
+        append(OPEN_N, out -> writeOpen(out, s));
+    }
+
+    synchronized void state(ArenaData arena, FightManager.FightState state) {
+        Session s = open.get(arena.getName());
+        if (s == null) return;
+        open.put(s.arena(), new Session(s.arena(), s.players(), state));
+        append(STATE, out -> {
+            out.writeUTF(s.arena());
+            out.writeByte(state.ordinal());
+        });
+    }
+
+    synchronized void close(ArenaData arena) {
+        if (open.remove(arena.getName()) == null) return;
+        append(CLOSE, out -> out.writeUTF(arena.getName()));
+    }
+
+    synchronized void restorePending(UUID player) {
+        if (!pendingRestore.add(player)) return;
+        append(RESTORE_PENDING, out -> writeUuid(out, player));
+    }
+
+    synchronized void restored(UUID player) {
+        if (!pendingRestore.remove(player)) return;
+        append(RESTORED, out -> writeUuid(out, player));
+    }
+
+    synchronized boolean isRestorePending(UUID player) {
+        return pendingRestore.contains(player);
+    }
+
+    /**
+     * Hands this tick's records to the writer as one batch (call once per tick).
+     */
+    synchronized void commit() {
+        if (batch.size() == 0 || writer == null) return;
+        writes.add(batch.toByteArray());
+        batch.reset();
+    }
+
+    // =========================================================
+    // === Lifecycle
+    // =========================================================
+
+    /**
+     * Reads the journal, rewrites it compacted and starts the writer.
+     */
+    Recovery replay() {
+        open.clear();
+        pendingRestore.clear();
+        int records = 0;
+        if (FILE.exists()) {
+            try (InputStream raw = Files.newInputStream(FILE.toPath());
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+                while (readRecord(in)) records++;
+            } catch (IOException e) {
+                LOGGER.warn("[FightJournal] Stopped replay after {} records: {}", records, e.getMessage());
+            }
+        }
+
+        Recovery recovery = new Recovery(new ArrayList<>(open.values()), new HashSet<>(pendingRestore));
+        LOGGER.info("[FightJournal] Replayed {} records: {} open sessions, {} players to restore.",
+                records, recovery.openSessions().size(), recovery.pendingRestore().size());
+        // the caller resolves the open sessions; only pending restores stay journaled
+        open.clear();
+        startWriter();
+        return recovery;
+    }
+
+    /** Flushes everything and stops the writer (server stop). */
+    void shutdown() {
+        commit();
+        Thread w = writer;
+        writer = null;
+        if (w == null) return;
+        w.interrupt();
+        try {
+            w.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (fileLock) {
+            drainAndSync();
+            closeChannel();
+        }
+    }
+
+    private void startWriter() {
+        synchronized (fileLock) {
+            compactLocked(snapshot());
+        }
+        writer = new Thread(this::writeLoop, "PvPFight-Journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void writeLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                byte[] first = writes.take();
+                synchronized (fileLock) {
+                    write(first);
+                    drainAndSync();
+                    if (channel != null && channel.size() > COMPACT_BYTES) compactLocked(snapshot());
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                LOGGER.error("[FightJournal] Journal write failed", e);
+            }
+        }
+    }
+
+    /** Writes all waiting batches, then one fsync for the whole group. */
+    private void drainAndSync() {
+        List<byte[]> pending = new ArrayList<>();
+        writes.drainTo(pending);
+        try {
+            for (byte[] b : pending) write(b);
+            if (channel != null) channel.force(false);
+        } catch (IOException e) {
+            LOGGER.error("[FightJournal] Journal sync failed", e);
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        if (channel == null) return;
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining()) channel.write(buf);
+    }
+
+    // =========================================================
+    // === Compaction
+    // =========================================================
+
+    /** Serialized live state (server-thread view, copied under the lock). */
+    private byte[] snapshot() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        synchronized (this) {
+            for (Session s : open.values()) {
+                frame(bytes, OPEN_N, out -> writeOpen(out, s));
+                frame(bytes, STATE, out -> {
+                    out.writeUTF(s.arena());
+                    out.writeByte(s.state().ordinal());
+                });
+            }
+            for (UUID player : pendingRestore) frame(bytes, RESTORE_PENDING, out -> writeUuid(out, player));
+        }
+        return bytes.toByteArray();
+    }
+
+    private void compactLocked(byte[] content) {
+        closeChannel();
+        try {
+            FILE.getParentFile().mkdirs();
+            File tmp = new File(FILE.getPath() + ".tmp");
+            Files.write(tmp.toPath(), content);
+            try {
+                Files.move(tmp.toPath(), FILE.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.move(tmp.toPath(), FILE.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            channel = FileChannel.open(FILE.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            channel.force(true);
+        } catch (IOException e) {
+            LOGGER.error("[FightJournal] Could not compact journal {}", FILE.getAbsolutePath(), e);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        channel = null;
+    }
+
+    // =========================================================
+    // === Encoding
+    // =========================================================
+
+    @FunctionalInterface
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private synchronized void append(byte type, Body body) {
+        frame(batch, type, body);
+    }
+
+    private static void frame(ByteArrayOutputStream target, byte type, Body body) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(48);
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeByte(type);
+            body.write(out);
+            byte[] bytes = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+
+            DataOutputStream frame = new DataOutputStream(target);
+            frame.writeInt(bytes.length);
+            frame.write(bytes);
+            frame.writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+    }
+
+    /** Applies one record to the mirror; false at end of file or on a torn/corrupt record. */
+    private boolean readRecord(DataInputStream in) throws IOException {
+        byte[] bytes;
+        try {
+            int length = in.readInt();
+            if (length <= 0 || length > 4096) return false;
+            bytes = new byte[length];
+            in.readFully(bytes);
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            if (in.readInt() != (int) crc.getValue()) return false;
+        } catch (EOFException e) {
+            return false;
+        }
+
+        DataInputStream rec = new DataInputStream(new ByteArrayInputStream(bytes));
+        switch (rec.readByte()) {
+            case OPEN -> {
+                String arena = rec.readUTF();
+                open.put(arena, new Session(arena, List.of(readUuid(rec), readUuid(rec)), FightManager.FightState.WARMING));
+            }
+            case OPEN_N -> {
+                String arena = rec.readUTF();
+                int n = rec.readUnsignedByte();
+                UUID[] players = new UUID[n];
+                for (int i = 0; i < n; i++) players[i] = readUuid(rec);
+                open.put(arena, new Session(arena, List.of(players), FightManager.FightState.WARMING));
+            }
+            case STATE -> {
+                String arena = rec.readUTF();
+                FightManager.FightState state = FightManager.FightState.values()[rec.readByte()];
+                Session s = open.get(arena);
+                if (s != null) open.put(arena, new Session(arena, s.players(), state));
+            }
+            case CLOSE -> open.remove(rec.readUTF());
+            case RESTORE_PENDING -> pendingRestore.add(readUuid(rec));
+            case RESTORED -> pendingRestore.remove(readUuid(rec));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeOpen(DataOutputStream out, Session s) throws IOException {
+        out.writeUTF(s.arena());
+        out.writeByte(s.players().size());
+        for (UUID player : s.players()) writeUuid(out, player);
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
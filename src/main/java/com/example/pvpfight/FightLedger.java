@@ -0,0 +1,116 @@
+package com.example.pvpfight;
+
+import net.minecraft.tags.DamageTypeTags;
+import net.minecraft.world.damagesource.DamageSource;
+import net.minecraft.world.damagesource.DamageTypes;
+
+/**
+ * FightLedger.java
+ *
+ * Damage bookkeeping of one fight in flat primitive arrays indexed by
+ * participant (fixed at fight start): post-mitigation damage dealt and taken,
+ * hits, crits, and damage taken per {@link Source}. Recording a hit touches a
+ * few array slots only – no boxing, no maps, no allocation.
+ *
+ * Server thread only.
+ */
+public final class FightLedger {
+
+    /** Damage categories for the per-source breakdown. */
+    public enum Source { MELEE, PROJECTILE, MAGIC, EXPLOSION, FIRE, FALL, OTHER }
+
+    private static final Source[] SOURCES = Source.values();
+
+    private final int participants;
+    private final float[] dealt;
+    private final float[] taken;
+    private final int[] hits;
+    private final int[] crits;
+    // [victim * SOURCES.length + source]
+    private final float[] takenBySource;
+
+    public FightLedger(int participants) {
+        this.participants = participants;
+        this.dealt = new float[participants];
+        this.taken = new float[participants];
+        this.hits = new int[participants];
+        this.crits = new int[participants];
+        this.takenBySource = new float[participants * SOURCES.length];
+    }
+
+    /**
+     * Records damage applied to {@code victim}; {@code attacker} is -1 for the
+     * environment, anyone outside the fight and teammates (no credit for friendly fire).
+     */
+    public void recordDamage(int victim, int attacker, Source source, float amount) {
+        if (amount <= 0 || victim < 0) return;
+        taken[victim] += amount;
+        takenBySource[victim * SOURCES.length + source.ordinal()] += amount;
+        if (attacker >= 0 && attacker != victim) {
+            dealt[attacker] += amount;
+            hits[attacker]++;
+        }
+    }
+
+    public void recordCrit(int attacker) {
+        if (attacker >= 0) crits[attacker]++;
+    }
+
+    /** Participant with the best damage balance (dealt − taken); ties go to the lower index. */
+    public int leader() {
+        int best = 0;
+        for (int i = 1; i < participants; i++) {
+            if (dealt[i] - taken[i] > dealt[best] - taken[best]) best = i;
+        }
+        return best;
+    }
+
+    /**
+     * Team with the best summed damage balance; {@code teamOf} maps participants to
+     * teams {@code 0..teams-1}. Ties go to the lower team.
+     */
+    public int leaderTeam(int[] teamOf, int teams) {
+        float[] balance = new float[teams];
+        for (int i = 0; i < participants; i++) balance[teamOf[i]] += dealt[i] - taken[i];
+        int best = 0;
+        for (int t = 1; t < teams; t++) {
+            if (balance[t] > balance[best]) best = t;
+        }
+        return best;
+    }
+
+    public int participants() {
+        return participants;
+    }
+
+    public float dealt(int participant) {
+        return dealt[participant];
+    }
+
+    public float taken(int participant) {
+        return taken[participant];
+    }
+
+    public int hits(int participant) {
+        return hits[participant];
+    }
+
+    public int crits(int participant) {
+        return crits[participant];
+    }
+
+    public float taken(int participant, Source source) {
+        return takenBySource[participant * SOURCES.length + source.ordinal()];
+    }
+
+    /** Category of a damage source (tag and damage-type key lookups only). */
+    public static Source classify(DamageSource src) {
+        if (src.is(DamageTypeTags.IS_PROJECTILE)) return Source.PROJECTILE;
+        if (src.is(DamageTypeTags.IS_EXPLOSION)) return Source.EXPLOSION;
+        if (src.is(DamageTypeTags.IS_FIRE)) return Source.FIRE;
+        if (src.is(DamageTypeTags.IS_FALL)) return Source.FALL;
+        if (src.is(DamageTypes.MAGIC) || src.is(DamageTypes.INDIRECT_MAGIC)) return Source.MAGIC;
+        if (src.getEntity() != null && src.getDirectEntity() == src.getEntity()) return Source.MELEE;
+        return Source.OTHER;
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.pvpfight;
+
+import com.mojang.authlib.GameProfile;
+import com.mojang.logging.LogUtils;
+import net.minecraft.core.BlockPos;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestAssertException;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.tags.DamageTypeTags;
+import net.minecraft.world.damagesource.DamageSource;
+import net.minecraftforge.common.util.FakePlayer;
+import net.minecraftforge.fml.util.ObfuscationReflectionHelper;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * FightLoadTests.java
+ *
+ * GameTest load suite for the FightManager.
+ * Spawns fake players, registers N in-memory arenas and drives
+ * request → accept → countdown → damage → end through the real code paths.
+ *
+ * Run headless with: ./gradlew runGameTestServer
+ * Results are logged and appended to logs/pvpfight-loadtest.csv (one row per run),
+ * so two builds can be compared side by side.
+ */
+@GameTestHolder(PvPFightMod.MODID)
+@PrefixGameTestTemplate(false)
+public class FightLoadTests {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final File RESULTS_FILE = new File("logs/pvpfight-loadtest.csv");
+
+    private static final int CELL = 6;          // grid spacing of the generated arenas
+    private static final int COMBAT_TICKS = 40; // non-lethal exchange before the final hit
+    private static final float HIT_DAMAGE = 0.5F;
+    private static final int TIMEOUT_TICKS = 2400;
+
+    // Each size runs in its own batch so the runs never overlap.
+    @GameTest(template = "empty", batch = "pvpfight_load_10", timeoutTicks = TIMEOUT_TICKS)
+    public static void concurrentFights10(GameTestHelper helper) {
+        runLoad(helper, 10);
+    }
+
+    @GameTest(template = "empty", batch = "pvpfight_load_100", timeoutTicks = TIMEOUT_TICKS)
+    public static void concurrentFights100(GameTestHelper helper) {
+        runLoad(helper, 100);
+    }
+
+    @GameTest(template = "empty", batch = "pvpfight_load_500", timeoutTicks = TIMEOUT_TICKS)
+    public static void concurrentFights500(GameTestHelper helper) {
+        runLoad(helper, 500);
+    }
+
+    private static void runLoad(GameTestHelper helper, int fights) {
+        LoadRun run = new LoadRun(helper, fights);
+        try {
+            run.setUp();
+        } catch (RuntimeException e) {
+            run.cleanUp();
+            throw e;
+        }
+        helper.succeedWhen(() -> {
+            try {
+                run.tick();
+                run.assertFinished();
+            } catch (GameTestAssertException e) {
+                // last check before the timeout: the test fails, leave nothing behind
+                if (helper.getTick() >= TIMEOUT_TICKS - 1) run.cleanUp();
+                throw e;
+            } catch (RuntimeException e) {
+                run.cleanUp();
+                throw e;
+            }
+        });
+    }
+
+    // =====================================================
+    // === Single load run
+    // =====================================================
+
+    private static final class LoadRun {
+        private final GameTestHelper helper;
+        private final ServerLevel level;
+        private final MinecraftServer server;
+        private final FightManager fightManager;
+        private final int fights;
+
+        private final ArenaData[] arenas;
+        private final ServerPlayer[] challengers;
+        private final ServerPlayer[] targets;
+        private final long[] acceptedAt;
+        private final long[] startedAt;
+        private final int[] ticksFighting;
+        private final boolean[] ended;
+
+        private final List<Long> tickNanos = new ArrayList<>();
+        private long allocStart;
+        private int remaining;
+        private boolean reported;
+
+        LoadRun(GameTestHelper helper, int fights) {
+            this.helper = helper;
+            this.level = helper.getLevel();
+            this.server = level.getServer();
+            this.fightManager = PvPFightMod.getFightManager();
+            this.fights = fights;
+            this.arenas = new ArenaData[fights];
+            this.challengers = new ServerPlayer[fights];
+            this.targets = new ServerPlayer[fights];
+            this.acceptedAt = new long[fights];
+            this.startedAt = new long[fights];
+            this.ticksFighting = new int[fights];
+            this.ended = new boolean[fights];
+            this.remaining = fights;
+        }
+
+        void setUp() {
+            int perRow = (int) Math.ceil(Math.sqrt(fights));
+            BlockPos origin = helper.absolutePos(new BlockPos(0, 1, 0));
+
+            for (int i = 0; i < fights; i++) {
+                BlockPos base = origin.offset((i % perRow) * CELL, 0, (i / perRow) * CELL);
+                ArenaData arena = new ArenaData("loadtest_" + fights + "_" + i);
+                arena.setCorner1(base);
+                arena.setCorner2(base.offset(CELL - 2, 3, CELL - 2));
+                arena.setSpawn1(base.offset(1, 1, 1));
+                arena.setSpawn2(base.offset(CELL - 3, 1, CELL - 3));
+                arena.instanced = true; // never written to arenas.json
+                ArenaDataMulti.registerArena(arena);
+                arenas[i] = arena;
+
+                challengers[i] = fakePlayer("load_a" + fights + "_" + i, base);
+                targets[i] = fakePlayer("load_b" + fights + "_" + i, base);
+            }
+
+            allocStart = allocatedBytes();
+            for (int i = 0; i < fights; i++) {
+                fightManager.sendRequest(challengers[i], targets[i]);
+                acceptedAt[i] = System.nanoTime();
+                fightManager.accept(targets[i], challengers[i]);
+            }
+            LOGGER.info("[FightLoadTests] Started load run with {} concurrent fights.", fights);
+        }
+
+        void tick() {
+            tickNanos.add(server.tickTimes[Math.floorMod(server.getTickCount() - 1, server.tickTimes.length)]);
+
+            for (int i = 0; i < fights; i++) {
+                if (ended[i]) continue;
+                ServerPlayer a = challengers[i];
+                ServerPlayer b = targets[i];
+
+                if (!fightManager.isPlayerInFight(a) && !fightManager.isPlayerInFight(b)) {
+                    ended[i] = true;
+                    remaining--;
+                    continue;
+                }
+                if (startedAt[i] == 0) {
+                    if (!fightManager.hasFightStarted(a)) continue;
+                    startedAt[i] = System.nanoTime();
+                }
+
+                int t = ticksFighting[i]++;
+                if (t < COMBAT_TICKS) {
+                    if ((t & 1) == 0) hit(a, b, HIT_DAMAGE);
+                    else hit(b, a, HIT_DAMAGE);
+                } else if (t == COMBAT_TICKS) {
+                    hit(a, b, b.getMaxHealth() * 2);
+                }
+            }
+        }
+
+        void assertFinished() {
+            if (remaining > 0) {
+                throw new GameTestAssertException(remaining + " of " + fights + " fights still running");
+            }
+            if (!reported) {
+                reported = true;
+                report();
+                cleanUp();
+            }
+        }
+
+        /** Ends fights still running and removes the run's arenas from the pool. */
+        void cleanUp() {
+            for (int i = 0; i < fights; i++) {
+                if (challengers[i] != null && fightManager.isPlayerInFight(challengers[i])) {
+                    fightManager.endFight(level, fightManager.getActiveFightFor(challengers[i]));
+                }
+            }
+            for (ArenaData arena : arenas) {
+                if (arena != null) ArenaDataMulti.unregisterArena(arena.getName());
+            }
+        }
+
+        /**
+         * A melee hit through {@link ServerPlayer#hurt}, so every damage event and the
+         * armor/absorption maths run like in a real fight. Test players never tick,
+         * so the hurt cooldown of the previous hit is cleared by hand.
+         */
+        private void hit(ServerPlayer attacker, ServerPlayer target, float amount) {
+            target.invulnerableTime = 0;
+            target.hurt(level.damageSources().playerAttack(attacker), amount);
+        }
+
+        private ServerPlayer fakePlayer(String name, BlockPos pos) {
+            UUID id = UUID.nameUUIDFromBytes(("pvpfight-load:" + name).getBytes(StandardCharsets.UTF_8));
+            ServerPlayer player = new LoadTestPlayer(level, new GameProfile(id, name));
+            player.moveTo(pos.getX() + 0.5, pos.getY() + 1, pos.getZ() + 0.5, 0.0F, 0.0F);
+            player.setHealth(player.getMaxHealth());
+            return player;
+        }
+
+        private void report() {
+            long allocBytes = allocatedBytes() - allocStart;
+            int ticks = Math.max(1, tickNanos.size());
+
+            long[] sortedTicks = tickNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+            double meanMs = Arrays.stream(sortedTicks).average().orElse(0) / 1_000_000.0;
+            double p95Ms = percentile(sortedTicks, 0.95) / 1_000_000.0;
+            double maxMs = sortedTicks.length == 0 ? 0 : sortedTicks[sortedTicks.length - 1] / 1_000_000.0;
+
+            long[] latencies = new long[fights];
+            for (int i = 0; i < fights; i++) latencies[i] = startedAt[i] - acceptedAt[i];
+            Arrays.sort(latencies);
+            double startMeanMs = Arrays.stream(latencies).average().orElse(0) / 1_000_000.0;
+            double startMaxMs = latencies[latencies.length - 1] / 1_000_000.0;
+
+            LOGGER.info("[FightLoadTests] fights={} ticks={} ms/tick mean={} p95={} max={} alloc={} MB ({} KB/tick) accept→start mean={} ms max={} ms",
+                    fights, ticks, fmt(meanMs), fmt(p95Ms), fmt(maxMs),
+                    fmt(allocBytes / 1048576.0), fmt(allocBytes / 1024.0 / ticks),
+                    fmt(startMeanMs), fmt(startMaxMs));
+
+            appendCsv(String.join(",",
+                    Long.toString(System.currentTimeMillis()), Integer.toString(fights), Integer.toString(ticks),
+                    fmt(meanMs), fmt(p95Ms), fmt(maxMs),
+                    fmt(allocBytes / 1048576.0), fmt(allocBytes / 1024.0 / ticks),
+                    fmt(startMeanMs), fmt(startMaxMs)));
+        }
+    }
+
+    /**
+     * Fake player that can take damage. Forge's {@link FakePlayer} is invulnerable to
+     * everything and never ticks, so its spawn protection would never run out either.
+     */
+    private static final class LoadTestPlayer extends FakePlayer {
+        private static final Field SPAWN_INVULNERABLE_TIME;
+
+        static {
+            try {
+                // ServerPlayer.spawnInvulnerableTime (SRG name, remapped to the runtime mappings)
+                SPAWN_INVULNERABLE_TIME = ObfuscationReflectionHelper.findField(ServerPlayer.class, "f_8931_");
+            } catch (ObfuscationReflectionHelper.UnableToFindFieldException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        LoadTestPlayer(ServerLevel level, GameProfile profile) {
+            super(level, profile);
+            try {
+                SPAWN_INVULNERABLE_TIME.setInt(this, 0);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean isInvulnerableTo(DamageSource source) {
+            return isRemoved() || isInvulnerable() && !source.is(DamageTypeTags.BYPASSES_INVULNERABILITY);
+        }
+    }
+
+    // =====================================================
+    // === Helpers
+    // =====================================================
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean) {
+            return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0L;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0L;
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+    }
+
+    private static String fmt(double v) {
+        return String.format(java.util.Locale.ROOT, "%.3f", v);
+    }
+
+    private static void appendCsv(String row) {
+        try {
+            File dir = RESULTS_FILE.getParentFile();
+            if (dir != null && !dir.exists()) dir.mkdirs();
+            boolean header = !RESULTS_FILE.exists();
+            try (FileWriter writer = new FileWriter(RESULTS_FILE, StandardCharsets.UTF_8, true)) {
+                if (header) {
+                    writer.write("timestamp,fights,ticks,mean_ms_per_tick,p95_ms_per_tick,max_ms_per_tick,"
+                            + "alloc_mb,alloc_kb_per_tick,accept_to_start_mean_ms,accept_to_start_max_ms\n");
+                }
+                writer.write(row + "\n");
+            }
+        } catch (Exception e) {
+            LOGGER.error("[FightLoadTests] Could not write results to {}", RESULTS_FILE.getAbsolutePath(), e);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import net.minecraft.world.entity.EquipmentSlot;
 import net.minecraft.world.entity.item.ItemEntity;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.GameType;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.dimension.DimensionType;
 import org.slf4j.Logger;
@@ -20,10 +21,18 @@ import java.util.concurrent.ConcurrentHashMap;
  * FightManager.java
  *
  * Handles full PvP fight lifecycle:
- *  - Requests / accept / deny / cancel
- *  - Teleport → countdown → start flow
- *  - Arena assignment & release
+ *  - Requests / accept / deny / cancel (several open challenges per player)
+ *  - Team fights (N teams of M players) started by admins; a duel is two teams of one
+ *  - Chunk warm-up → teleport → countdown → start flow (tick-driven)
+ *  - Arena assignment & release (instanced arenas on demand)
+ *  - Staggered teardown (restore → reward → teleport → cleanup → release)
+ *  - Routing queued pairs to other nodes (MatchmakingTransport)
  *  - Disconnect handling
+ *  - Crash recovery from the write-ahead FightJournal
+ *  - Periodic combat telemetry analysis (TelemetryAnalyzer)
+ *  - Fight recording for replays (FightRecorder / FightReplays)
+ *  - Lifecycle events for other mods (FightEvent, only built when someone listens)
+ *  - Spectators (FightSpectators); fight messages go to each fight's audience only
  *  - Inventory backup / restore
  *  - Anti-duplication tagging system
  */
@@ -31,18 +40,35 @@ public class FightManager {
 
     private static final Logger LOGGER = LogUtils.getLogger();
 
-    private final Map<UUID, ActiveFight> activeFights = new ConcurrentHashMap<>();
-    private final Map<UUID, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+    // global player → seat index: one lookup yields the session and the participant's slot
+    private final Map<UUID, Seat> seats = new ConcurrentHashMap<>();
+    private final ChallengeInbox challenges = new ChallengeInbox();
     private final Set<UUID> frozenPlayers = ConcurrentHashMap.newKeySet();
     private final Queue<PendingRequest> queuedFights = new LinkedList<>();
+    // both players of every queued pair, kept in step with queuedFights
+    private final Set<UUID> queuedPlayers = new HashSet<>();
+    private final List<ActiveFight> sessions = new ArrayList<>();
+    private final ArenaChunkTickets chunkTickets = new ArenaChunkTickets();
+    private final FightTeardown teardown = new FightTeardown(this);
+    private final ArenaEntityTracker entityTracker = new ArenaEntityTracker();
+    private final FightSpectators spectators = new FightSpectators();
+    private final ArenaInstancer instancer = new ArenaInstancer(this);
+    private final FightJournal journal = new FightJournal();
+    private final TelemetryAnalyzer telemetryAnalyzer = new TelemetryAnalyzer();
+    // arenas left claimed by a crash: swept once their chunks (and entities) are loaded
+    private final Map<ArenaData, Integer> recoverySweeps = new IdentityHashMap<>();
+    private MatchmakingTransport transport;
+    private int ticks;
+
+    /** Upper bound for chunk warm-up before teleporting anyway (10 s). */
+    private static final int MAX_WARMUP_TICKS = 200;
+    /** Most fighters in one session (replays and the journal store the count in a byte). */
+    static final int MAX_PARTICIPANTS = 64;
 
 
     private final ArenaDataMulti arenaManager;
     private final LobbyManager lobbyManager;
 
-    private final int REQUEST_TIMEOUT = Config.getRequestTimeoutSeconds();
-    private final int COUNTDOWN_SECONDS = Config.getCountdownSeconds();
-
     public FightManager(ArenaDataMulti arenaManager, LobbyManager lobbyManager) {
         this.arenaManager = arenaManager;
         this.lobbyManager = lobbyManager;
@@ -54,57 +80,139 @@ public class FightManager {
     // =====================================================
 
     public void sendRequest(ServerPlayer from, ServerPlayer target) {
-        if (pendingRequests.containsKey(target.getUUID())) {
-            Util.sendMessage(from, "§cThat player already has a pending fight request!");
+        sendRequest(from, target, null);
+    }
+
+    /**
+     * Sends a challenge; {@code arenaTag} (may be null) restricts the fight to arenas with that tag.
+     */
+    public void sendRequest(ServerPlayer from, ServerPlayer target, String arenaTag) {
+        if (isBusy(from)) {
+            Util.sendMessage(from, "§cYou are already in a fight or waiting for an arena.");
             return;
         }
+        if (isBusy(target)) {
+            Util.sendMessage(from, "§6" + target.getName().getString() + " §cis already in a fight or waiting for an arena.");
+            return;
+        }
+        PendingRequest req = new PendingRequest(from, target, System.currentTimeMillis(), arenaTag);
+        switch (challenges.add(req, Config.getRequestTimeoutSeconds() * 20)) {
+            case DUPLICATE -> {
+                Util.sendMessage(from, "§cYou already challenged that player!");
+                return;
+            }
+            case FULL -> {
+                Util.sendMessage(from, "§cThat player has too many pending fight requests!");
+                return;
+            }
+            default -> { }
+        }
 
-        PendingRequest req = new PendingRequest(from, target, System.currentTimeMillis());
-        pendingRequests.put(target.getUUID(), req);
-
-        Util.sendMessage(from, "§eYou challenged §6" + target.getName().getString() + "§e!");
-        Util.sendMessage(target, "§6" + from.getName().getString() + " §ewants to fight you!");
+        String arenaHint = arenaTag != null ? " §7(arena: §e" + arenaTag + "§7)" : "";
+        Util.sendMessage(from, "§eYou challenged §6" + target.getName().getString() + "§e!" + arenaHint);
+        Util.sendMessage(target, "§6" + from.getName().getString() + " §ewants to fight you!" + arenaHint);
         Util.sendClickableAcceptDeny(target, from.getName().getString());
+        if (FightEvent.hasListeners(FightEvent.ChallengeSent.class)) {
+            FightEvent.post(new FightEvent.ChallengeSent(from, target, arenaTag));
+        }
 
         LOGGER.info("[FightManager] Fight request sent from {} to {}", from.getName().getString(), target.getName().getString());
+    }
 
-        new Timer(true).schedule(new TimerTask() {
-            @Override public void run() {
-                if (pendingRequests.remove(target.getUUID()) != null) {
-                    Util.sendMessage(from, "§7Your fight request to §e" + target.getName().getString() + " §7has expired.");
-                    Util.sendMessage(target, "§7The fight request from §e" + from.getName().getString() + " §7has expired.");
-                    LOGGER.info("[FightManager] Request timed out between {} and {}", from.getName().getString(), target.getName().getString());
-                }
-            }
-        }, REQUEST_TIMEOUT * 1000L);
+    /** Called by the expiry wheel once a request timed out. */
+    private void expire(PendingRequest req) {
+        Util.sendMessage(req.from, "§7Your fight request to §e" + req.target.getName().getString() + " §7has expired.");
+        Util.sendMessage(req.target, "§7The fight request from §e" + req.from.getName().getString() + " §7has expired.");
+        LOGGER.info("[FightManager] Request timed out between {} and {}", req.from.getName().getString(), req.target.getName().getString());
     }
 
     public void accept(ServerPlayer acceptor, ServerPlayer challenger) {
-        PendingRequest req = pendingRequests.remove(acceptor.getUUID());
-        if (req == null || !req.from.equals(challenger)) {
+        if (isBusy(acceptor)) {
+            Util.sendMessage(acceptor, "§cYou are already in a fight or waiting for an arena.");
+            return;
+        }
+        PendingRequest req = challenges.remove(acceptor.getUUID(), challenger.getUUID());
+        if (req == null) {
             Util.sendMessage(acceptor, "§cNo valid fight request from that player.");
             return;
         }
+        if (rejectBusyChallenger(acceptor, req)) return;
+        if (FightEvent.hasListeners(FightEvent.ChallengeAccepted.class)) {
+            FightEvent.post(new FightEvent.ChallengeAccepted(challenger, acceptor, req.arenaTag));
+        }
+
+        startOrQueue(challenger, acceptor, req.arenaTag, "§aYou accepted the challenge! Teleporting...",
+                "§aYour challenge was accepted! Teleporting...");
+    }
+
+    /** Accepts the oldest open challenge to the player. */
+    public void acceptOldest(ServerPlayer acceptor) {
+        if (isBusy(acceptor)) {
+            Util.sendMessage(acceptor, "§cYou are already in a fight or waiting for an arena.");
+            return;
+        }
+        PendingRequest req = challenges.removeOldest(acceptor.getUUID());
+        if (req == null) {
+            Util.sendMessage(acceptor, "§cYou have no pending fight requests.");
+            return;
+        }
+        if (rejectBusyChallenger(acceptor, req)) return;
+        if (FightEvent.hasListeners(FightEvent.ChallengeAccepted.class)) {
+            FightEvent.post(new FightEvent.ChallengeAccepted(req.from, acceptor, req.arenaTag));
+        }
+
+        startOrQueue(req.from, acceptor, req.arenaTag, "§aYou accepted the challenge of §6"
+                + req.from.getName().getString() + "§a! Teleporting...", "§aYour challenge was accepted! Teleporting...");
+    }
 
-        ArenaData arena = arenaManager.getAvailableArena();
-            if (arena == null) {
+    /** Drops an accepted challenge whose sender got into a fight or queue meanwhile. */
+    private boolean rejectBusyChallenger(ServerPlayer acceptor, PendingRequest req) {
+        if (!isBusy(req.from)) return false;
+        Util.sendMessage(acceptor, "§6" + req.from.getName().getString()
+                + " §cis already in a fight or waiting for an arena. The challenge was withdrawn.");
+        return true;
+    }
+
+    /**
+     * Starts the pair in a free arena, or puts it in the waiting queue. Refused if
+     * either player is already fighting or queued; otherwise every other open
+     * challenge of both players is withdrawn.
+     */
+    private void startOrQueue(ServerPlayer challenger, ServerPlayer acceptor, String arenaTag,
+                              String acceptorMessage, String challengerMessage) {
+        if (isBusy(challenger) || isBusy(acceptor)) {
+            LOGGER.warn("[FightManager] Not starting {} vs {}: a player is already fighting or queued",
+                    challenger.getName().getString(), acceptor.getName().getString());
+            return;
+        }
+        withdrawOtherRequests(challenger);
+        withdrawOtherRequests(acceptor);
+
+        PendingRequest req = new PendingRequest(challenger, acceptor, System.currentTimeMillis(), arenaTag);
+        ArenaData arena = selectArena(req);
+        if (arena == null) {
             Util.sendMessage(acceptor, "§eNo arena is currently free. You’ve been added to the waiting queue.");
             Util.sendMessage(challenger, "§eNo arena is currently free. You’ll be teleported once one opens.");
-            queuedFights.add(new PendingRequest(challenger, acceptor, System.currentTimeMillis()));
+            queuedFights.add(req);
+            queuedPlayers.add(challenger.getUUID());
+            queuedPlayers.add(acceptor.getUUID());
+            if (FightEvent.hasListeners(FightEvent.Queued.class)) {
+                FightEvent.post(new FightEvent.Queued(challenger, acceptor, arenaTag, queuedFights.size()));
+            }
             LOGGER.info("[FightManager] Queued fight between {} and {}", challenger.getName().getString(), acceptor.getName().getString());
             return;
         }
 
         arena.setAvailable(false);
 
-        Util.sendMessage(acceptor, "§aYou accepted the challenge! Teleporting...");
-        Util.sendMessage(challenger, "§aYour challenge was accepted! Teleporting...");
+        Util.sendMessage(acceptor, acceptorMessage);
+        Util.sendMessage(challenger, challengerMessage);
 
         startTeleportAndCountdown(challenger, acceptor, arena);
     }
 
     public void deny(ServerPlayer denier, ServerPlayer challenger) {
-        PendingRequest removed = pendingRequests.remove(denier.getUUID());
+        PendingRequest removed = challenges.remove(denier.getUUID(), challenger.getUUID());
         if (removed == null) {
             Util.sendMessage(denier, "§cNo fight request to deny.");
             return;
@@ -115,182 +223,678 @@ public class FightManager {
         LOGGER.info("[FightManager] Request denied between {} and {}", challenger.getName().getString(), denier.getName().getString());
     }
 
+    /** Names of the players who currently challenge {@code target} (for suggestions). */
+    public void forEachIncomingChallenger(UUID target, java.util.function.Consumer<String> action) {
+        challenges.forEachIncoming(target, req -> action.accept(req.from.getGameProfile().getName()));
+    }
+
+    /** Cancels every open challenge the player has sent. */
     public void cancelOwnRequest(ServerPlayer player) {
-        PendingRequest toRemove = null;
-        UUID keyToRemove = null;
-
-        for (Map.Entry<UUID, PendingRequest> e : pendingRequests.entrySet()) {
-            if (e.getValue().from.equals(player)) {
-                keyToRemove = e.getKey();
-                toRemove = e.getValue();
-                break;
-            }
+        List<PendingRequest> removed = challenges.removeOutgoing(player.getUUID());
+        if (removed.isEmpty()) {
+            Util.sendMessage(player, "§7You have no active fight requests.");
+            return;
+        }
+        for (PendingRequest req : removed) {
+            Util.sendMessage(player, "§eYou cancelled your fight request to §6" + req.target.getName().getString());
         }
+    }
 
-        if (toRemove != null && keyToRemove != null) {
-            pendingRequests.remove(keyToRemove);
-            Util.sendMessage(player, "§eYou cancelled your fight request to §6" + toRemove.target.getName().getString());
-        } else {
-            Util.sendMessage(player, "§7You have no active fight requests.");
+    /** Withdraws all open challenges of a player whose fight was just accepted. */
+    private void withdrawOtherRequests(ServerPlayer player) {
+        for (PendingRequest req : challenges.removeAll(player.getUUID())) {
+            ServerPlayer other = req.from.equals(player) ? req.target : req.from;
+            Util.sendMessage(other, "§7The fight request with §e" + player.getName().getString()
+                    + " §7was withdrawn (they are fighting someone else).");
+        }
+    }
+
+    /** Withdraws all open challenges sent to or by a player who logs out. */
+    public void dropRequests(ServerPlayer player) {
+        for (PendingRequest req : challenges.removeAll(player.getUUID())) {
+            ServerPlayer other = req.from.equals(player) ? req.target : req.from;
+            Util.sendMessage(other, "§7The fight request with §e" + player.getName().getString() + " §7was withdrawn (logged out).");
         }
     }
 
     // =====================================================
-    // === Teleport → Countdown → Start
+    // === Warm-up → Teleport → Countdown → Start
     // =====================================================
 
     private void startTeleportAndCountdown(ServerPlayer p1, ServerPlayer p2, ArenaData arena) {
-        MinecraftServer server = p1.server;
-        ActiveFight fight = new ActiveFight(p1, p2, arena);
-        activeFights.put(p1.getUUID(), fight);
-        activeFights.put(p2.getUUID(), fight);
-
-        InventoryStash.saveToPlayerTag(p1);
-        InventoryStash.saveToPlayerTag(p2);
-
-        if(!p1.level().dimension().equals(Level.OVERWORLD)) {
-            p1.changeDimension(Objects.requireNonNull(server.getLevel(Level.OVERWORLD)));
-        }
-        if(!p2.level().dimension().equals(Level.OVERWORLD)) {
-            p2.changeDimension(Objects.requireNonNull(server.getLevel(Level.OVERWORLD)));
-        }
-
-        p1.teleportTo(p1.serverLevel(),
-                arena.getSpawn1().getX() + 0.5, arena.getSpawn1().getY(), arena.getSpawn1().getZ() + 0.5,
-                p1.getYRot(), p1.getXRot());
-        p2.teleportTo(p2.serverLevel(),
-                arena.getSpawn2().getX() + 0.5, arena.getSpawn2().getY(), arena.getSpawn2().getZ() + 0.5,
-                p2.getYRot(), p2.getXRot());
-
-        Util.announceToAll(server, "§6" + p1.getName().getString() + " §7and §6" + p2.getName().getString() +
-                " §7entered arena §e" + arena.getName());
-
-        setFrozen(p1, true);
-        setFrozen(p2, true);
-
-        new Thread(() -> {
-            try {
-                for (int i = COUNTDOWN_SECONDS; i > 0; i--) {
-                    int sec = i;
-                    server.execute(() -> {
-                        Util.sendMessage(p1, "§eFight starts in §6" + sec + "§e...");
-                        Util.sendMessage(p2, "§eFight starts in §6" + sec + "§e...");
-                    });
-                    Thread.sleep(1000);
+        startSession(new ActiveFight(List.of(List.of(p1), List.of(p2)), arena));
+    }
+
+    /**
+     * Claims the arena for all participants and starts pre-warming its chunks.
+     * Teleport happens in {@link #tick} once the chunks are loaded.
+     */
+    private void startSession(ActiveFight fight) {
+        List<UUID> ids = new ArrayList<>(fight.size());
+        for (int i = 0; i < fight.size(); i++) {
+            ServerPlayer p = fight.players[i];
+            spectators.stop(p);
+            seats.put(p.getUUID(), fight.seats[i]);
+            ids.add(p.getUUID());
+            lobbyManager.leaveLobby(p);
+        }
+        sessions.add(fight);
+        journal.open(fight.arena, ids);
+
+        ServerLevel level = fight.arena.resolveLevel(fight.players[0].server);
+        chunkTickets.acquire(level, fight.arena);
+        entityTracker.track(level, fight.arena);
+    }
+
+    /**
+     * Starts a fight between several teams right away (admin command, tournament
+     * matches); these fights are not queued. Players who are fighting or queued are
+     * refused. Only arenas with a spawn for every member of every team are used
+     * (fighters would spawn inside each other otherwise); the fight is refused when
+     * no free arena fits. Returns why the fight could not start, or null.
+     */
+    public String startTeamFight(List<List<ServerPlayer>> teams, String arenaTag) {
+        if (teams.size() < 2) return "A fight needs at least two teams.";
+        Set<UUID> seen = new HashSet<>();
+        int teamSize = 0;
+        for (List<ServerPlayer> team : teams) {
+            if (team.isEmpty()) return "Every team needs at least one player.";
+            teamSize = Math.max(teamSize, team.size());
+            for (ServerPlayer p : team) {
+                if (!seen.add(p.getUUID())) return p.getName().getString() + " is in more than one team.";
+                if (isPlayerInFight(p)) return p.getName().getString() + " is already in a fight.";
+                if (isQueued(p)) return p.getName().getString() + " is waiting for an arena.";
+            }
+        }
+        if (seen.size() > MAX_PARTICIPANTS) return "At most " + MAX_PARTICIPANTS + " fighters per fight.";
+
+        ArenaSelectionPolicy policy = ArenaSelectionPolicy.of(Config.getArenaSelectionPolicy());
+        ArenaData arena = policy.select(ArenaDataMulti.getRepository(),
+                new ArenaSelectionPolicy.Request(arenaTag, teamSize, teams.size()));
+        if (arena == null) {
+            return "No free arena has spawns for " + teams.size() + " teams of " + teamSize
+                    + " right now. Add spawns with /arena addspawn <team>.";
+        }
+
+        arena.setAvailable(false);
+        ActiveFight fight = new ActiveFight(teams, arena);
+        for (ServerPlayer p : fight.players) {
+            dropRequests(p);
+            Util.sendMessage(p, "§aFight §6" + fight.describe() + " §ais starting! Teleporting...");
+        }
+        startSession(fight);
+        LOGGER.info("[FightManager] Fight {} claimed arena {}", fight.describe(), arena.getName());
+        return null;
+    }
+
+    /**
+     * Drives all sessions that are not yet running. Called once per server tick.
+     */
+    public void tick(MinecraftServer server) {
+        for (int i = 0; i < sessions.size(); i++) {
+            ActiveFight fight = sessions.get(i);
+            if (fight.recorder != null && fight.state != FightState.ENDING) fight.recorder.tick();
+            switch (fight.state) {
+                case WARMING -> {
+                    fight.stateTicks++;
+                    boolean ready = chunkTickets.isReady(fight.arena);
+                    if (ready || fight.stateTicks >= MAX_WARMUP_TICKS) {
+                        if (!ready) {
+                            LOGGER.warn("[FightManager] Arena {} not fully loaded after {} ticks, teleporting anyway.",
+                                    fight.arena.getName(), fight.stateTicks);
+                        }
+                        teleportIntoArena(server, fight);
+                    }
+                }
+                case COUNTDOWN -> {
+                    int remainingTicks = Config.getCountdownSeconds() * 20 - fight.stateTicks;
+                    if (remainingTicks <= 0) {
+                        for (ServerPlayer p : fight.players) setFrozen(p, false);
+                        startFight(fight);
+                    } else if (remainingTicks % 20 == 0) {
+                        tell(fight, "§eFight starts in §6" + remainingTicks / 20 + "§e...");
+                    }
+                    fight.stateTicks++;
                 }
+                default -> { }
+            }
+        }
 
-                server.execute(() -> {
-                    setFrozen(p1, false);
-                    setFrozen(p2, false);
-                    startFight(p1, p2, arena);
-                });
+        challenges.tick(this::expire);
+        entityTracker.tick();
+        teardown.tick(Config.getTeardownBudgetMicros() * 1000L);
+        instancer.tick(server, queuedArenaTags());
+        if (++ticks % 20 == 0) routeQueuedPairs(server);
+        if (ticks % TelemetryAnalyzer.INTERVAL_TICKS == 0) telemetryAnalyzer.submit(server, sessions);
+        if (!recoverySweeps.isEmpty()) tickRecoverySweeps(server);
+        journal.commit();
+    }
+
+    // =====================================================
+    // === Crash recovery (FightJournal)
+    // =====================================================
+
+    /**
+     * Replays the fight journal on server start: arenas of interrupted fights are
+     * swept and released, and their players are marked for restore on next login.
+     * Arenas saved as busy without a journaled session are released directly.
+     */
+    public void recover() {
+        FightJournal.Recovery recovery = journal.replay();
+        for (FightJournal.Session s : recovery.openSessions()) {
+            ArenaData arena = ArenaDataMulti.getArena(s.arena());
+            if (arena != null) {
+                arena.setAvailable(false);
+                recoverySweeps.put(arena, 0);
+            }
+            if (s.state() != FightState.WARMING) {
+                for (UUID player : s.players()) journal.restorePending(player);
+            }
+        }
+
+        int released = 0;
+        for (ArenaData arena : ArenaDataMulti.getAllArenas()) {
+            if (!arena.isAvailable() && !recoverySweeps.containsKey(arena)) {
+                arena.setAvailable(true);
+                released++;
+            }
+        }
+        journal.commit();
 
-            } catch (InterruptedException ignored) {}
-        }, "PvPFight-Countdown").start();
+        if (!recovery.openSessions().isEmpty() || released > 0) {
+            LOGGER.warn("[FightManager] Recovered {} interrupted fights, released {} stale arenas.",
+                    recovery.openSessions().size(), released);
+        }
+    }
+
+    private void tickRecoverySweeps(MinecraftServer server) {
+        for (Iterator<Map.Entry<ArenaData, Integer>> it = recoverySweeps.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<ArenaData, Integer> e = it.next();
+            ArenaData arena = e.getKey();
+            ServerLevel level = arena.resolveLevel(server);
+            chunkTickets.acquire(level, arena);
+            if (!chunkTickets.isReady(arena)) continue;
+            // entities load a little after their chunks
+            if (e.getValue() < 20) {
+                e.setValue(e.getValue() + 1);
+                continue;
+            }
+
+            int removed = FightProtections.sweepArena(level, arena);
+            chunkTickets.release(arena);
+            it.remove();
+            arena.setAvailable(true);
+            LOGGER.info("[FightManager] Recovered arena {} ({} leftover entities removed).", arena.getName(), removed);
+            startNextQueuedFight();
+            if (FightEvent.hasListeners(FightEvent.ArenaReleased.class)) {
+                FightEvent.post(new FightEvent.ArenaReleased(arena, null));
+            }
+        }
     }
 
-    private void startFight(ServerPlayer p1, ServerPlayer p2, ArenaData arena) {
-        Util.sendMessage(p1, "§aFight started! Good luck!");
-        Util.sendMessage(p2, "§aFight started! Fight fair!");
-        Util.announceToAll(p1.server, "§6" + p1.getName().getString() + " §7vs §6" + p2.getName().getString() +
-                " §7in arena §e" + arena.getName());
-        LOGGER.info("[FightManager] Fight started between {} and {} in arena {}", p1.getName().getString(), p2.getName().getString(), arena.getName());
+    /** Returns a player from an interrupted fight to the lobby with their own inventory. */
+    private void recoverPlayer(ServerPlayer player) {
+        if (InventoryStash.hasStash(player)) InventoryStash.restoreFromPlayerTag(player);
+        // eliminated fighters spectate; their prior mode was only kept in memory
+        if (player.isSpectator()) player.setGameMode(player.server.getDefaultGameType());
+        player.setHealth(player.getMaxHealth());
+        lobbyManager.teleportToLobby(player);
+        journal.restored(player.getUUID());
+        Util.sendMessage(player, "§eYour last fight was interrupted by a server restart. Your inventory has been restored.");
+        LOGGER.info("[FightManager] Restored {} after an interrupted fight.", player.getName().getString());
+    }
+
+    // =====================================================
+    // === Cross-server matchmaking
+    // =====================================================
+
+    void setTransport(MatchmakingTransport transport) {
+        if (this.transport != null) this.transport.close();
+        this.transport = transport;
+    }
+
+    /**
+     * Publishes this node's load and offers queued pairs to the least-loaded peer
+     * with free arenas. Tagged pairs stay local (peers may not have the tag). An
+     * offered pair stays queued here until the peer acknowledges it.
+     */
+    private void routeQueuedPairs(MinecraftServer server) {
+        if (transport == null) return;
+        transport.publishLoad(ArenaDataMulti.getRepository().freeCount(), queuedFights.size());
+        receiveRoutedPairs(server);
+        if (queuedFights.isEmpty()) return;
+        // local instancing still has room – keep the pairs here
+        if (Config.isInstancedArenas() && instancer.liveInstances() < Config.getMaxInstances()) return;
+
+        List<MatchmakingTransport.NodeLoad> peers = new ArrayList<>();
+        for (MatchmakingTransport.NodeLoad peer : transport.peers()) {
+            if (peer.freeArenas() > 0) peers.add(peer);
+        }
+        if (peers.isEmpty()) return;
+
+        for (PendingRequest req : queuedFights) {
+            if (peers.isEmpty()) break;
+            if (req.arenaTag != null || req.routingTo != null) continue;
+
+            MatchmakingTransport.NodeLoad best = Collections.min(peers,
+                    Comparator.comparingInt(p -> p.queuedPairs() - p.freeArenas()));
+            req.routingTo = best.nodeId();
+            FightIo.onServer(server, transport.routePair(new MatchmakingTransport.RoutedPair(req.from.getUUID(),
+                            req.target.getUUID(), null, transport.nodeId(), best.nodeId())),
+                    (acked, error) -> handOverRoutedPair(req, Boolean.TRUE.equals(acked)));
+
+            // count the pair against the peer until its next load report
+            peers.remove(best);
+            if (best.freeArenas() > 1) {
+                peers.add(new MatchmakingTransport.NodeLoad(best.nodeId(), best.freeArenas() - 1,
+                        best.queuedPairs(), best.updatedAtMillis()));
+            }
+        }
+    }
+
+    /**
+     * Moves an offered pair to its node once the node acknowledged it. A pair that
+     * started here meanwhile, was withdrawn or lost a player stays put (the peer's
+     * inbox entry simply expires); an unacknowledged one is offered again later.
+     */
+    private void handOverRoutedPair(PendingRequest req, boolean acked) {
+        String node = req.routingTo;
+        req.routingTo = null;
+        if (!queuedFights.contains(req)) return;
+        if (!acked) {
+            LOGGER.info("[FightManager] Node {} did not acknowledge pair {} / {}, keeping it queued.",
+                    node, req.from.getName().getString(), req.target.getName().getString());
+            return;
+        }
+        if (req.from.hasDisconnected() || req.target.hasDisconnected()) return;
+
+        queuedFights.remove(req);
+        unqueue(req);
+        Util.sendMessage(req.from, "§eAll arenas here are busy. Moving you to §6" + node + "§e...");
+        Util.sendMessage(req.target, "§eAll arenas here are busy. Moving you to §6" + node + "§e...");
+        Util.sendToServer(req.from, node);
+        Util.sendToServer(req.target, node);
+        LOGGER.info("[FightManager] Routed queued pair {} / {} to node {}",
+                req.from.getName().getString(), req.target.getName().getString(), node);
+    }
+
+    /**
+     * Claims newly routed pairs for players who are already online here and tells
+     * players whose routed pair expired before their opponent arrived.
+     */
+    private void receiveRoutedPairs(MinecraftServer server) {
+        for (MatchmakingTransport.RoutedPair pair : transport.pollArrived()) {
+            for (UUID id : List.of(pair.challenger(), pair.target())) {
+                ServerPlayer player = server.getPlayerList().getPlayer(id);
+                if (player != null) claimRoutedPair(player);
+            }
+        }
+        for (MatchmakingTransport.RoutedPair pair : transport.pollExpired()) {
+            for (UUID id : List.of(pair.challenger(), pair.target())) {
+                ServerPlayer player = server.getPlayerList().getPlayer(id);
+                if (player != null) {
+                    Util.sendMessage(player, "§cYour fight moved from §6" + pair.fromNode()
+                            + "§c was cancelled: your opponent did not arrive in time.");
+                }
+            }
+            LOGGER.info("[FightManager] Routed pair from node {} expired before both players arrived.", pair.fromNode());
+        }
+    }
+
+    /**
+     * Returns fighters and spectators whose fight was interrupted by a crash, then
+     * starts a pair routed here from another node once both players have arrived.
+     */
+    public void onPlayerJoin(ServerPlayer player) {
+        if (journal.isRestorePending(player.getUUID())) recoverPlayer(player);
+        spectators.recover(player);
+        if (transport != null) claimRoutedPair(player);
+    }
+
+    /** Marks the player as arrived for their routed pair and starts it once both are here. */
+    private void claimRoutedPair(ServerPlayer player) {
+        MatchmakingTransport.RoutedPair pair = transport.claimRouted(player.getUUID());
+        if (pair == null) return;
+
+        ServerPlayer challenger = player.server.getPlayerList().getPlayer(pair.challenger());
+        ServerPlayer target = player.server.getPlayerList().getPlayer(pair.target());
+        if (challenger == null || target == null) return;
+
+        LOGGER.info("[FightManager] Routed pair {} / {} arrived from node {}",
+                challenger.getName().getString(), target.getName().getString(), pair.fromNode());
+        startOrQueue(challenger, target, pair.arenaTag(), "§aYour fight is starting! Teleporting...",
+                "§aYour fight is starting! Teleporting...");
+    }
+
+    private List<String> queuedArenaTags() {
+        if (queuedFights.isEmpty()) return List.of();
+        List<String> tags = new ArrayList<>(queuedFights.size());
+        for (PendingRequest req : queuedFights) tags.add(req.arenaTag);
+        return tags;
+    }
+
+    private void teleportIntoArena(MinecraftServer server, ActiveFight fight) {
+        ArenaData arena = fight.arena;
+        ServerLevel level = arena.resolveLevel(server);
+
+        for (int i = 0; i < fight.size(); i++) {
+            ServerPlayer p = fight.players[i];
+            ArenaData.Pos spawn = arena.spawnFor(fight.teamOf[i], fight.memberOf[i]);
+            if (spawn == null) spawn = arena.spawn1;
+            p.teleportTo(level, spawn.x + 0.5, spawn.y, spawn.z + 0.5, p.getYRot(), p.getXRot());
+        }
+
+        // Stash after the teleport, so a dimension change can't trigger the join-restore
+        for (ServerPlayer p : fight.players) InventoryStash.saveToPlayerTag(p);
+        journal.state(arena, FightState.COUNTDOWN);
+        fight.recorder = FightReplays.startRecording(arena, List.of(fight.players));
+
+        tell(fight, "§6" + fight.describe() + " §7entered arena §e" + arena.getName());
+
+        for (ServerPlayer p : fight.players) setFrozen(p, true);
+
+        fight.state = FightState.COUNTDOWN;
+        fight.stateTicks = 0;
+    }
+
+    private void startFight(ActiveFight fight) {
+        ArenaData arena = fight.arena;
+        fight.state = FightState.ACTIVE;
+        fight.stateTicks = 0;
+        fight.startedAtMillis = System.currentTimeMillis();
+        journal.state(arena, FightState.ACTIVE);
+        if (FightEvent.hasListeners(FightEvent.Started.class)) {
+            FightEvent.post(new FightEvent.Started(List.of(fight.players), arena));
+        }
+
+        tell(fight, "§aFight started! §6" + fight.describe() + " §7in arena §e" + arena.getName() + "§7. Good luck!");
+        LOGGER.info("[FightManager] Fight started: {} in arena {}", fight.describe(), arena.getName());
+    }
+
+    /**
+     * Drops a session that never left the warm-up phase: nothing was stashed or
+     * teleported yet, so only the arena and its chunk tickets are released.
+     */
+    private void cancelWarming(ActiveFight fight) {
+        for (int i = 0; i < fight.size(); i++) seats.remove(fight.players[i].getUUID(), fight.seats[i]);
+        spectators.releaseAll(fight);
+        sessions.remove(fight);
+        chunkTickets.release(fight.arena);
+        entityTracker.discardAndUntrack(fight.arena);
+        fight.arena.setAvailable(true);
+        journal.close(fight.arena);
+        LOGGER.info("[FightManager] Fight in arena {} cancelled during warm-up.", fight.arena.getName());
+        // queued challenges get the first pick of a freed arena, tournaments the rest
+        startNextQueuedFight();
+        if (FightEvent.hasListeners(FightEvent.ArenaReleased.class)) {
+            FightEvent.post(new FightEvent.ArenaReleased(fight.arena, null));
+        }
     }
 
     // =====================================================
     // === Fight End / Abort / Disconnect
     // =====================================================
 
+    /**
+     * Ends a fight from outside (abort, shutdown): the damage leader wins, but the
+     * result is not decisive. Freezes all fighters and hands the rest to the
+     * staggered {@link FightTeardown} pipeline. Idempotent.
+     */
     public void endFight(ServerLevel level, ActiveFight fight) {
         if (fight == null) return;
+        endFight(level, fight, fight.ledger.leaderTeam(fight.teamOf, fight.teams), false);
+    }
 
-        ServerPlayer p1 = fight.player1;
-        ServerPlayer p2 = fight.player2;
-        ArenaData arena = fight.arena;
+    /**
+     * Takes the player out of their fight (1 HP, death, forfeit, disconnect). The
+     * fight ends once a single team is left standing; until then the player watches
+     * in spectator mode.
+     */
+    public void eliminate(ServerPlayer loser) {
+        Seat seat = seats.get(loser.getUUID());
+        if (seat == null) return;
+        ActiveFight fight = seat.fight;
+        if (fight.state == FightState.ENDING || fight.out[seat.index]) return;
+
+        fight.out[seat.index] = true;
+        int standing = fight.lastTeamStanding();
+        if (standing >= 0) {
+            endFight(null, fight, standing, true);
+            return;
+        }
+        fight.priorMode[seat.index] = loser.gameMode.getGameModeForPlayer();
+        loser.setGameMode(GameType.SPECTATOR);
+        tell(fight, "§c" + loser.getName().getString() + " §7is out!");
+    }
+
+    void endFight(ServerLevel level, ActiveFight fight, int winningTeam, boolean decisive) {
+        if (fight == null || fight.state == FightState.ENDING) return;
+        if (fight.state == FightState.WARMING) {
+            cancelWarming(fight);
+            return;
+        }
+
+        level = fight.arena.resolveLevel(fight.players[0].server);
+
+        fight.winningTeam = winningTeam;
+        long duration = fight.startedAtMillis > 0 ? System.currentTimeMillis() - fight.startedAtMillis : 0;
+        fight.result = new FightResult(List.of(fight.players), fight.teamOf, winningTeam, fight.arena, duration,
+                fight.ledger, decisive);
+        fight.state = FightState.ENDING;
+        fight.stateTicks = 0;
+        journal.state(fight.arena, FightState.ENDING);
+        if (FightEvent.hasListeners(FightEvent.Ended.class)) FightEvent.post(new FightEvent.Ended(fight.result));
+        String replayId = null;
+        if (fight.recorder != null) {
+            FightReplays.save(fight.recorder);
+            replayId = fight.recorder.getId();
+            fight.recorder = null;
+        }
+
+        if (replayId != null) tell(fight, "§7Replay of this fight: §e" + replayId);
+        tell(fight, "§eThe fight has ended!");
+        for (int i = 0; i < fight.size(); i++) {
+            if (!fight.gone[i]) setFrozen(fight.players[i], true);
+        }
 
-        Util.sendMessage(p1, "§eThe fight has ended!");
-        Util.sendMessage(p2, "§eThe fight has ended!");
+        teardown.submit(fight, level);
+    }
 
-        InventoryStash.restoreFromPlayerTag(p1);
-        InventoryStash.restoreFromPlayerTag(p2);
+    // --- Teardown stages (run by FightTeardown, one per step) ---
 
-        rewardPlayers(p1, p2);
+    void teardownRestore(ActiveFight fight) {
+        for (int i = 0; i < fight.size(); i++) {
+            if (fight.gone[i]) continue;
+            if (fight.priorMode[i] != null) fight.players[i].setGameMode(fight.priorMode[i]);
+            InventoryStash.restoreFromPlayerTag(fight.players[i]);
+        }
+    }
+
+    void teardownReward(ActiveFight fight) {
+        rewardPlayers(fight);
+        for (int i = 0; i < fight.size(); i++) {
+            if (!fight.gone[i]) Util.sendMessage(fight.players[i], fight.result.summary(i));
+        }
 
         if (Config.isAnnounceToAll()) {
-            ServerPlayer winner = (p1.getHealth() >= p2.getHealth()) ? p1 : p2;
-            ServerPlayer loser = (winner == p1) ? p2 : p1;
-
-            Util.announceToAll(winner.server,
-                    "§6⚔ " + winner.getName().getString() + " §7defeated §c" + loser.getName().getString() +
-                    " §7in arena §e" + fight.arena.getName() + "§7!");
-        }
-
-        p1.setHealth(p1.getMaxHealth());
-        p2.setHealth(p2.getMaxHealth());
-
-        lobbyManager.teleportToLobby(p1);
-        lobbyManager.teleportToLobby(p2);
-
-        new FightProtections().cleanupArena(level, arena);
-        arena.setAvailable(true);
-
-        activeFights.remove(p1.getUUID());
-        activeFights.remove(p2.getUUID());
-
-        // Check if there are queued fights waiting for a free arena
-        if (!queuedFights.isEmpty()) {
-            PendingRequest next = queuedFights.poll();
-            if (next != null) {
-                ServerPlayer q1 = next.from;
-                ServerPlayer q2 = next.target;
-                ArenaData nextArena = arenaManager.getAvailableArena();
-                if (q1 != null && q2 != null && nextArena != null) {
-                    nextArena.setAvailable(false);
-                    Util.sendMessage(q1, "§aAn arena just freed up! Starting your fight...");
-                    Util.sendMessage(q2, "§aAn arena just freed up! Starting your fight...");
-                    startTeleportAndCountdown(q1, q2, nextArena);
-                    LOGGER.info("[FightManager] Queued fight between {} and {} has started.", p1.getName().getString(), p2.getName().getString());
-                } else {
-                    queuedFights.add(next); // Requeue if players missing or no arena yet
-                }
-            }
+            tell(fight, "§6⚔ " + FightResult.names(fight.result.winners()) + " §7defeated §c"
+                    + FightResult.names(fight.result.losers()) + " §7in arena §e" + fight.arena.getName() + "§7!");
+        }
+
+        for (int i = 0; i < fight.size(); i++) {
+            if (!fight.gone[i]) fight.players[i].setHealth(fight.players[i].getMaxHealth());
+        }
+    }
+
+    void teardownTeleport(ActiveFight fight) {
+        for (int i = 0; i < fight.size(); i++) {
+            if (fight.gone[i]) continue;
+            ServerPlayer p = fight.players[i];
+            setFrozen(p, false);
+            lobbyManager.teleportToLobby(p);
+            seats.remove(p.getUUID(), fight.seats[i]);
+        }
+        spectators.releaseAll(fight);
+    }
+
+    void teardownCleanup(ServerLevel level, ActiveFight fight) {
+        new FightProtections().cleanupArena(level, fight.arena);
+        chunkTickets.release(fight.arena);
+    }
+
+    void teardownRelease(ActiveFight fight) {
+        fight.arena.setAvailable(true);
+        journal.close(fight.arena);
+        sessions.remove(fight);
+        LOGGER.info("[FightManager] Fight ended: {}", fight.result);
+
+        // queued challenges get the first pick of a freed arena, tournaments the rest
+        startNextQueuedFight();
+        if (FightEvent.hasListeners(FightEvent.ArenaReleased.class)) {
+            FightEvent.post(new FightEvent.ArenaReleased(fight.arena, fight.result));
+        }
+    }
+
+    /**
+     * Starts the oldest queued pair that a free arena fits. Pairs waiting for a
+     * tagged arena do not block pairs behind them.
+     */
+    void startNextQueuedFight() {
+        if (queuedFights.isEmpty()) return;
+        for (Iterator<PendingRequest> it = queuedFights.iterator(); it.hasNext(); ) {
+            PendingRequest next = it.next();
+            ServerPlayer q1 = next.from;
+            ServerPlayer q2 = next.target;
+            if (q1 == null || q2 == null) continue;
+
+            ArenaData nextArena = selectArena(next);
+            if (nextArena == null) continue;
+
+            it.remove();
+            unqueue(next);
+            nextArena.setAvailable(false);
+            Util.sendMessage(q1, "§aAn arena just freed up! Starting your fight...");
+            Util.sendMessage(q2, "§aAn arena just freed up! Starting your fight...");
+            startTeleportAndCountdown(q1, q2, nextArena);
+            LOGGER.info("[FightManager] Queued fight between {} and {} has started.", q1.getName().getString(), q2.getName().getString());
+            return;
         }
+    }
 
-        LOGGER.info("[FightManager] Fight ended in arena {}", arena.getName());
+    private ArenaData selectArena(PendingRequest req) {
+        ArenaSelectionPolicy policy = ArenaSelectionPolicy.of(Config.getArenaSelectionPolicy());
+        return policy.select(ArenaDataMulti.getRepository(), new ArenaSelectionPolicy.Request(req.arenaTag, 1, 2));
     }
 
     public void onPlayerDisconnect(ServerPlayer player) {
-        ActiveFight fight = activeFights.get(player.getUUID());
-        if (fight != null) {
-            ServerPlayer opponent = (fight.player1.equals(player)) ? fight.player2 : fight.player1;
-            Util.sendMessage(opponent, "§eYour opponent disconnected. You win!");
-            endFight(opponent.serverLevel(), fight);
+        Seat seat = seats.get(player.getUUID());
+        if (seat == null) return;
+        ActiveFight fight = seat.fight;
+        String name = player.getName().getString();
+        if (fight.state == FightState.WARMING) {
+            tell(fight, "§e" + name + " disconnected. The fight was cancelled.");
+            cancelWarming(fight);
+            return;
         }
+        if (fight.state != FightState.ENDING) {
+            tell(fight, "§e" + name + " disconnected.");
+            eliminate(player);
+        }
+        // The leaving player is saved right after this event, so finish their teardown now
+        if (fight.state == FightState.ENDING) teardown.flush(fight);
+        else leaveEarly(fight, seat.index);
+    }
+
+    /** Restores a fighter who leaves a team fight that goes on without them. */
+    private void leaveEarly(ActiveFight fight, int i) {
+        ServerPlayer p = fight.players[i];
+        fight.gone[i] = true;
+        if (fight.priorMode[i] != null) p.setGameMode(fight.priorMode[i]);
+        InventoryStash.restoreFromPlayerTag(p);
+        p.setHealth(p.getMaxHealth());
+        setFrozen(p, false);
+        lobbyManager.teleportToLobby(p);
+        seats.remove(p.getUUID(), fight.seats[i]);
     }
 
+    /**
+     * Ends all fights at once; the teardown pipeline spreads the work over the next ticks.
+     */
     public void abort(ServerLevel level) {
-        for (ActiveFight fight : new ArrayList<>(activeFights.values())) {
+        for (ActiveFight fight : new ArrayList<>(sessions)) {
             endFight(level, fight);
         }
-        activeFights.clear();
         LOGGER.info("[FightManager] All fights aborted by admin.");
     }
+
+    /**
+     * Ends everything and finishes all teardowns synchronously (server stopping).
+     */
+    public void shutdown() {
+        for (ActiveFight fight : new ArrayList<>(sessions)) {
+            endFight(null, fight);
+        }
+        teardown.flushAll();
+        challenges.clear();
+        queuedFights.clear();
+        queuedPlayers.clear();
+        telemetryAnalyzer.shutdown();
+        FightReplays.shutdown();
+        instancer.clear();
+        setTransport(null);
+        journal.shutdown();
+        LOGGER.info("[FightManager] All fights ended for shutdown.");
+    }
  
     public String getQueueStatus() {
         return "§eQueued fights: §6" + queuedFights.size() + " §7waiting pair(s).";
     }
 
     public boolean isPlayerInFight(ServerPlayer player) {
-        return player != null && activeFights.containsKey(player.getUUID());
+        return player != null && seats.containsKey(player.getUUID());
     }
-    public ActiveFight getActiveFightFor(ServerPlayer player) {
+
+    /** True once the countdown is over and the player's fight is running. */
+    public boolean hasFightStarted(ServerPlayer player) {
+        return getFightState(player) == FightState.ACTIVE;
+    }
+
+    /** True while the player waits in the arena queue. */
+    public boolean isQueued(ServerPlayer player) {
+        return player != null && queuedPlayers.contains(player.getUUID());
+    }
+
+    /** Drops a pair that left queuedFights from the queued-player set. */
+    private void unqueue(PendingRequest req) {
+        queuedPlayers.remove(req.from.getUUID());
+        queuedPlayers.remove(req.target.getUUID());
+    }
+
+    /** Fighting or queued: such players cannot send, accept or be matched into another fight. */
+    public boolean isBusy(ServerPlayer player) {
+        return isPlayerInFight(player) || isQueued(player);
+    }
+
+    /** True once the player has been teleported into the arena (any phase after WARMING). */
+    public boolean isInArena(ServerPlayer player) {
+        FightState state = getFightState(player);
+        return state != null && state != FightState.WARMING;
+    }
+
+    /** Current phase of the player's fight, or null if the player is not in one. */
+    public FightState getFightState(ServerPlayer player) {
         if (player == null) return null;
-        ActiveFight f = activeFights.get(player.getUUID());
-        if (f != null) return f;
-        for (ActiveFight fight : activeFights.values())
-            if (fight.player1.equals(player) || fight.player2.equals(player))
-                return fight;
-        return null;
+        Seat seat = seats.get(player.getUUID());
+        return seat != null ? seat.fight.state : null;
+    }
+    public ActiveFight getActiveFightFor(ServerPlayer player) {
+        Seat seat = getSeat(player);
+        return seat != null ? seat.fight : null;
+    }
+
+    /** The player's session and participant index in one lookup, or null. */
+    Seat getSeat(ServerPlayer player) {
+        return player == null ? null : seats.get(player.getUUID());
     }
 
     public ArenaData getArenaForPlayer(ServerPlayer player) {
@@ -298,14 +902,62 @@ public class FightManager {
         return (fight != null) ? fight.arena : null;
     }
 
+    /** Claimed arena the item lies in (chunk-indexed, claimed arenas only). */
     public ArenaData getArenaForItem(ItemEntity item) {
         if (item == null) return null;
-        for (ArenaData arena : arenaManager.getAllArenas())
-            if (arena.isConfigured() && arena.isInside(item.blockPosition()))
-                return arena;
+        return entityTracker.getArenaAt(item);
+    }
+
+    // =====================================================
+    // === Audience
+    // =====================================================
+
+    /**
+     * Sends a fight message to the fight's audience: its fighters (still connected)
+     * and spectators. The component is built once for the whole fan-out.
+     */
+    void tell(ActiveFight fight, String text) {
+        Component message = Component.literal(text);
+        for (int i = 0; i < fight.size(); i++) {
+            if (!fight.gone[i]) fight.players[i].displayClientMessage(message, false);
+        }
+        for (FightSpectators.Spectator s : fight.spectators) s.player.displayClientMessage(message, false);
+    }
+
+    /**
+     * Lets the player watch the fight of another player or in an arena. Returns why
+     * not, or null.
+     */
+    public String spectate(ServerPlayer player, ServerPlayer fighter, ArenaData arena) {
+        if (isPlayerInFight(player)) return "You cannot watch while you are in a fight.";
+        ActiveFight fight = fighter != null ? getActiveFightFor(fighter) : findSession(arena);
+        if (fight == null) return fighter != null ? "That player is not in a fight." : "No fight is running in that arena.";
+        if (fight.state == FightState.ENDING) return "That fight is already over.";
+        spectators.watch(player, fight);
+        return null;
+    }
+
+    /** Stops watching; false if the player was not spectating. */
+    public boolean stopSpectating(ServerPlayer player) {
+        return spectators.stop(player);
+    }
+
+    FightSpectators getSpectators() {
+        return spectators;
+    }
+
+    private ActiveFight findSession(ArenaData arena) {
+        if (arena == null) return null;
+        for (ActiveFight fight : sessions) {
+            if (fight.arena == arena) return fight;
+        }
         return null;
     }
 
+    public ArenaEntityTracker getEntityTracker() {
+        return entityTracker;
+    }
+
     public boolean isFrozen(ServerPlayer player) {
         return frozenPlayers.contains(player.getUUID());
     }
@@ -315,54 +967,180 @@ public class FightManager {
         else frozenPlayers.remove(player.getUUID());
     }
 
-    private static class PendingRequest {
+    /** Lifecycle phases of a claimed fight. */
+    public enum FightState {
+        /** Arena claimed, chunks loading – players not yet moved. */
+        WARMING,
+        /** Players in the arena and frozen. */
+        COUNTDOWN,
+        /** Fight running. */
+        ACTIVE,
+        /** Fight over, players frozen while the teardown pipeline processes it. */
+        ENDING
+    }
+
+    static class PendingRequest {
         final ServerPlayer from;
         final ServerPlayer target;
         final long timestamp;
-        PendingRequest(ServerPlayer from, ServerPlayer target, long timestamp) {
+        final String arenaTag;
+        // expiry bookkeeping of the ChallengeInbox
+        long deadline;
+        boolean closed;
+        // node the queued pair is offered to, until it acknowledges (null otherwise)
+        String routingTo;
+        PendingRequest(ServerPlayer from, ServerPlayer target, long timestamp, String arenaTag) {
             this.from = from;
             this.target = target;
             this.timestamp = timestamp;
+            this.arenaTag = arenaTag;
         }
     }
 
-    private static class ActiveFight {
-        final ServerPlayer player1;
-        final ServerPlayer player2;
+    /**
+     * One session. Participants live in flat arrays in ledger order, grouped by team
+     * (team t's members are contiguous); every per-fighter structure is indexed the same way.
+     */
+    static class ActiveFight {
+        static final long NO_POS = Long.MIN_VALUE;
+        final ServerPlayer[] players;
+        final int[] teamOf;
+        // position within the team (picks the spawn)
+        final int[] memberOf;
+        final int teams;
+        final Seat[] seats;
         final ArenaData arena;
-        public ActiveFight(ServerPlayer player1, ServerPlayer player2, ArenaData arena) {
-            this.player1 = player1;
-            this.player2 = player2;
+        final FightLedger ledger;
+        final CombatTelemetry telemetry;
+        // bounds cache per participant (packed BlockPos longs, NO_POS = unknown)
+        final long[] lastBlockPos;
+        final long[] lastValidPos;
+        final boolean[] boundsWarned;
+        // eliminated fighters (spectating until the end) and their game mode before
+        final boolean[] out;
+        final GameType[] priorMode;
+        // left a running team fight and was restored early
+        final boolean[] gone;
+        FightState state = FightState.WARMING;
+        int stateTicks;
+        long startedAtMillis;
+        int winningTeam = -1;
+        FightResult result;
+        FightRecorder recorder;
+        // audience besides the fighters
+        final List<FightSpectators.Spectator> spectators = new ArrayList<>();
+
+        ActiveFight(List<List<ServerPlayer>> teams, ArenaData arena) {
+            int n = 0;
+            for (List<ServerPlayer> team : teams) n += team.size();
+            this.players = new ServerPlayer[n];
+            this.teamOf = new int[n];
+            this.memberOf = new int[n];
+            this.seats = new Seat[n];
+            this.teams = teams.size();
+            int i = 0;
+            for (int t = 0; t < teams.size(); t++) {
+                List<ServerPlayer> team = teams.get(t);
+                for (int m = 0; m < team.size(); m++, i++) {
+                    players[i] = team.get(m);
+                    teamOf[i] = t;
+                    memberOf[i] = m;
+                    seats[i] = new Seat(this, i);
+                }
+            }
             this.arena = arena;
+            this.ledger = new FightLedger(n);
+            this.telemetry = new CombatTelemetry(n);
+            this.lastBlockPos = new long[n];
+            this.lastValidPos = new long[n];
+            Arrays.fill(lastBlockPos, NO_POS);
+            Arrays.fill(lastValidPos, NO_POS);
+            this.boundsWarned = new boolean[n];
+            this.out = new boolean[n];
+            this.priorMode = new GameType[n];
+            this.gone = new boolean[n];
         }
-    }
 
-    private void rewardPlayers(ServerPlayer p1, ServerPlayer p2) {
-        ServerPlayer winner = (p1.getHealth() >= p2.getHealth()) ? p1 : p2;
-        ServerPlayer loser = (winner == p1) ? p2 : p1;
+        int size() {
+            return players.length;
+        }
 
-        PvPFightConfigManager cfg = PvPFightConfigManager.loadOrCreate();
+        boolean isDuel() {
+            return players.length == 2;
+        }
 
-        // --- XP rewards ---
-        winner.giveExperiencePoints(cfg.winnerXp);
-        loser.giveExperiencePoints(cfg.loserXp);
+        /**
+         * Participant index of another player (attackers, targets), or -1. The
+         * player's own index comes with their {@link Seat}.
+         */
+        int indexOf(ServerPlayer player) {
+            for (int i = 0; i < players.length; i++) {
+                if (players[i] == player) return i;
+            }
+            return -1;
+        }
+
+        ServerPlayer participant(int index) {
+            return players[index];
+        }
 
-        // --- Item rewards (fixed + random pool) ---
-        String winItemId = PvPFightConfigManager.getRandomReward(true);
-        int winAmount = cfg.winnerItemAmount;
+        boolean sameTeam(int a, int b) {
+            return a >= 0 && b >= 0 && teamOf[a] == teamOf[b];
+        }
 
-        String loseItemId = PvPFightConfigManager.getRandomReward(false);
-        int loseAmount = cfg.loserItemAmount;
+        /** The only team with fighters left, or -1 while several teams stand. */
+        int lastTeamStanding() {
+            int standing = -1;
+            for (int i = 0; i < players.length; i++) {
+                if (out[i] || gone[i]) continue;
+                if (standing < 0) standing = teamOf[i];
+                else if (teamOf[i] != standing) return -1;
+            }
+            return standing;
+        }
 
-        if (winItemId != null && !winItemId.isEmpty()) {
-            giveItemReward(winner, winItemId, winAmount);
+        /** "alice vs bob", "alice & bob vs carol & dave". */
+        String describe() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < players.length; i++) {
+                if (i > 0) sb.append(teamOf[i] != teamOf[i - 1] ? " vs " : " & ");
+                sb.append(players[i].getName().getString());
+            }
+            return sb.toString();
         }
-        if (loseItemId != null && !loseItemId.isEmpty()) {
-            giveItemReward(loser, loseItemId, loseAmount);
+    }
+
+    /** A fighter's place in a session; the global index maps player UUIDs to these. */
+    static final class Seat {
+        final ActiveFight fight;
+        final int index;
+
+        Seat(ActiveFight fight, int index) {
+            this.fight = fight;
+            this.index = index;
         }
+    }
+
+    private void rewardPlayers(ActiveFight fight) {
+        PvPFightConfigManager cfg = PvPFightConfigManager.current();
+
+        for (int i = 0; i < fight.size(); i++) {
+            if (fight.gone[i]) continue;
+            ServerPlayer player = fight.players[i];
+            boolean won = fight.result.won(i);
+
+            // --- XP rewards ---
+            player.giveExperiencePoints(won ? cfg.winnerXp : cfg.loserXp);
 
-        Util.sendMessage(winner, "§6You won the fight and received your reward!");
-        Util.sendMessage(loser, "§7You lost the fight but received a consolation reward.");
+            // --- Item rewards (fixed + random pool) ---
+            String itemId = PvPFightConfigManager.getRandomReward(won);
+            if (itemId != null && !itemId.isEmpty()) {
+                giveItemReward(player, itemId, won ? cfg.winnerItemAmount : cfg.loserItemAmount);
+            }
+
+            Util.sendMessage(player, won ? "§6You won the fight and received your reward!"
+                    : "§7You lost the fight but received a consolation reward.");
+        }
     }
 
 
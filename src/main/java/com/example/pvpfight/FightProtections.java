@@ -2,25 +2,34 @@ package com.example.pvpfight;
 
 import com.mojang.logging.LogUtils;
 import net.minecraft.ChatFormatting;
+import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
 import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.ExperienceOrb;
 import net.minecraft.world.entity.item.ItemEntity;
 import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.entity.projectile.Projectile;
 import net.minecraft.world.damagesource.DamageSource;
 import net.minecraft.world.inventory.Slot;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.GameType;
+import net.minecraft.world.phys.AABB;
 import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.entity.EntityJoinLevelEvent;
 import net.minecraftforge.event.entity.item.ItemTossEvent;
 import net.minecraftforge.event.entity.living.LivingAttackEvent;
+import net.minecraftforge.event.entity.living.LivingDamageEvent;
 import net.minecraftforge.event.entity.living.LivingDeathEvent;
 import net.minecraftforge.event.entity.living.LivingEquipmentChangeEvent;
+import net.minecraftforge.event.entity.player.AttackEntityEvent;
+import net.minecraftforge.event.entity.player.CriticalHitEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
 import net.minecraftforge.event.level.BlockEvent;
 import net.minecraftforge.event.entity.player.PlayerContainerEvent;
+import net.minecraftforge.eventbus.api.Event;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import org.slf4j.Logger;
@@ -32,10 +41,12 @@ import java.util.List;
  * FightProtections.java
  *
  * Handles in-fight protections:
- *  - Prevents invalid damage / deaths
+ *  - Prevents invalid damage / deaths, books fight damage into the ledger
+ *  - Blocks friendly fire in team fights (unless enabled) and hits on eliminated fighters
  *  - Prevents item toss or block edits in arena
- *  - Prevents leaving arena bounds
- *  - Cleans up arenas after fights
+ *  - Drops players from lobby occupancy when they change dimension or walk away
+ *  - Prevents leaving arena bounds (margin warning, teleport back or forfeit); spectators are held inside
+ *  - Cleans up arenas after fights (tracked entities only)
  *  - Deletes leftover tagged items when inventories open
  */
 @Mod.EventBusSubscriber(modid = PvPFightMod.MODID)
@@ -47,21 +58,101 @@ public class FightProtections {
     // === Combat Protection Events
     // =====================================================
 
-    /** Prevents players from dying during a fight (1 HP limit). */
+    /** Blocks attacks on fighters whose fight is decided, who are out, or who are teammates. */
     @SubscribeEvent
     public static void onPlayerDamage(LivingAttackEvent event) {
         if (!(event.getEntity() instanceof ServerPlayer sp)) return;
-        if (!PvPFightMod.getFightManager().isPlayerInFight(sp)) return;
+        FightManager.Seat seat = PvPFightMod.getFightManager().getSeat(sp);
+        if (seat == null) return;
+        FightManager.ActiveFight fight = seat.fight;
+        // Already decided (waiting for teardown) or eliminated and spectating
+        if (fight.state == FightManager.FightState.ENDING || fight.out[seat.index]) {
+            event.setCanceled(true);
+            return;
+        }
+        if (!Config.isFriendlyFire() && !fight.isDuel()) {
+            int attacker = attackerIndex(fight, event.getSource());
+            if (attacker != seat.index && fight.sameTeam(attacker, seat.index)) event.setCanceled(true);
+        }
+    }
+
+    /** Participant index of the player behind the damage (shooter for projectiles), or -1. */
+    private static int attackerIndex(FightManager.ActiveFight fight, DamageSource src) {
+        if (src == null || !(src.getEntity() instanceof ServerPlayer a)) return -1;
+        FightManager.Seat seat = PvPFightMod.getFightManager().getSeat(a);
+        return seat != null && seat.fight == fight ? seat.index : -1;
+    }
+
+    /**
+     * Books post-armor damage into the fight ledger and prevents players from
+     * dying during a fight (1 HP limit).
+     */
+    @SubscribeEvent
+    public static void onPlayerHurt(LivingDamageEvent event) {
+        if (!(event.getEntity() instanceof ServerPlayer sp)) return;
+        FightManager.Seat seat = PvPFightMod.getFightManager().getSeat(sp);
+        // Still outside the arena while its chunks warm up
+        if (seat == null || seat.fight.state == FightManager.FightState.WARMING) return;
+        FightManager.ActiveFight fight = seat.fight;
+        if (fight.state == FightManager.FightState.ENDING) {
+            event.setCanceled(true);
+            return;
+        }
 
         DamageSource src = event.getSource();
         if (src == null) return;
 
-        double newHealth = sp.getHealth() - event.getAmount();
-        if (newHealth <= 1.0F) {
+        boolean lethal = sp.getHealth() - event.getAmount() <= 1.0F;
+        if (fight.state == FightManager.FightState.ACTIVE) {
+            int attacker = attackerIndex(fight, src);
+            // no credit for hitting a teammate (friendly fire enabled)
+            if (fight.sameTeam(attacker, seat.index)) attacker = -1;
+            float applied = lethal ? Math.max(0.0F, sp.getHealth() - 1.0F) : event.getAmount();
+            fight.ledger.recordDamage(seat.index, attacker, FightLedger.classify(src), applied);
+            if (fight.recorder != null) fight.recorder.hurt(seat.index, applied);
+        }
+
+        if (lethal) {
             event.setCanceled(true);
             sp.setHealth(1.0F);
-            sp.sendSystemMessage(net.minecraft.network.chat.Component.literal("§cYou reached 1 HP! The fight ends now."));
-            endFight(sp);
+            sp.sendSystemMessage(Component.literal(fight.isDuel()
+                    ? "§cYou reached 1 HP! The fight ends now." : "§cYou reached 1 HP! You are out."));
+            PvPFightMod.getFightManager().eliminate(sp);
+        }
+    }
+
+    /** Samples attacks of fighters in running fights for the telemetry analyzer and the replay. */
+    @SubscribeEvent
+    public static void onPlayerAttack(AttackEntityEvent event) {
+        if (!(event.getEntity() instanceof ServerPlayer sp)) return;
+        FightManager.Seat seat = PvPFightMod.getFightManager().getSeat(sp);
+        if (seat == null || seat.fight.state != FightManager.FightState.ACTIVE) return;
+        FightManager.ActiveFight fight = seat.fight;
+        if (fight.recorder != null) fight.recorder.swing(seat.index);
+        if (Config.isCombatTelemetry()) fight.telemetry.recordAttack(seat.index, sp, event.getTarget(), System.nanoTime());
+    }
+
+    /** Latches equipment changes of fighters into the replay. */
+    @SubscribeEvent
+    public static void onEquipmentChange(LivingEquipmentChangeEvent event) {
+        if (!(event.getEntity() instanceof ServerPlayer sp)) return;
+        FightManager.Seat seat = PvPFightMod.getFightManager().getSeat(sp);
+        if (seat != null && seat.fight.recorder != null) seat.fight.recorder.equipment(seat.index, event.getSlot());
+    }
+
+    /** Counts critical hits on opponents in the same running fight. */
+    @SubscribeEvent
+    public static void onCriticalHit(CriticalHitEvent event) {
+        if (!(event.getEntity() instanceof ServerPlayer attacker) || !(event.getTarget() instanceof ServerPlayer target)) return;
+        boolean crit = event.getResult() == Event.Result.ALLOW
+                || (event.getResult() == Event.Result.DEFAULT && event.isVanillaCritical());
+        if (!crit) return;
+        FightManager fightManager = PvPFightMod.getFightManager();
+        FightManager.Seat seat = fightManager.getSeat(attacker);
+        if (seat == null || seat.fight.state != FightManager.FightState.ACTIVE) return;
+        FightManager.Seat victim = fightManager.getSeat(target);
+        if (victim != null && victim.fight == seat.fight && !seat.fight.sameTeam(seat.index, victim.index)) {
+            seat.fight.ledger.recordCrit(seat.index);
         }
     }
 
@@ -72,7 +163,8 @@ public class FightProtections {
     public static void onItemToss(ItemTossEvent event) {
         if(event.getPlayer().level().isClientSide()) return;
         ServerPlayer sp = (ServerPlayer) event.getPlayer();
-        if (!PvPFightMod.getFightManager().isPlayerInFight(sp)) return;
+        // Still outside the arena while it warms up: items are theirs to drop
+        if (!PvPFightMod.getFightManager().isInArena(sp)) return;
         event.setCanceled(true);
         event.getEntity().discard();
         sp.sendSystemMessage(net.minecraft.network.chat.Component.literal("§7You cannot throw items outside the arena."));
@@ -83,10 +175,11 @@ public class FightProtections {
     @SubscribeEvent
     public static void onPlayerDeath(LivingDeathEvent event) {
         if (!(event.getEntity() instanceof ServerPlayer sp)) return;
+        if (PvPFightMod.getFightManager().getFightState(sp) == FightManager.FightState.WARMING) return;
         if (PvPFightMod.getFightManager().isPlayerInFight(sp)) {
             event.setCanceled(true);
             sp.setHealth(1.0F);
-            endFight(sp);
+            PvPFightMod.getFightManager().eliminate(sp);
         }
     }
 
@@ -98,21 +191,56 @@ public class FightProtections {
             InventoryStash.restoreFromPlayerTag(p);
     }
 
+    /** Drops replay armor stands that were saved with their chunk (see {@link FightReplays#isLeftoverStand}). */
+    @SubscribeEvent
+    public static void onReplayStandLoad(EntityJoinLevelEvent e) {
+        if (e.getLevel().isClientSide()) return;
+        if (FightReplays.isLeftoverStand(e.getEntity(), e.loadedFromDisk())) e.setCanceled(true);
+    }
+
+    /** Feeds items, projectiles and XP spawning in claimed arenas into the entity tracker. */
+    @SubscribeEvent
+    public static void onArenaEntityJoin(EntityJoinLevelEvent e) {
+        if (e.getLevel().isClientSide() || e.getEntity() instanceof Player) return;
+        FightManager fightManager = PvPFightMod.getFightManager();
+        if (fightManager == null) return;
+        fightManager.getEntityTracker().onEntityJoin(e.getEntity(), fightManager);
+    }
+
+    /** Indexes the name, recovers crash-interrupted players and starts pairs routed here from another node. */
+    @SubscribeEvent
+    public static void onPlayerLogin(PlayerEvent.PlayerLoggedInEvent event) {
+        if (!(event.getEntity() instanceof ServerPlayer sp)) return;
+        PlayerNameIndex.add(sp);
+        if (PvPFightMod.getFightManager() != null) PvPFightMod.getFightManager().onPlayerJoin(sp);
+    }
+
     /** Ensures player is removed cleanly when disconnecting during a fight. */
     @SubscribeEvent
     public static void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent event) {
         if (!(event.getEntity() instanceof ServerPlayer sp)) return;
+        PlayerNameIndex.remove(sp);
+        PvPFightMod.getFightManager().dropRequests(sp);
+        PvPFightMod.getLobbyManager().leaveLobby(sp);
+        PvPFightMod.getFightManager().stopSpectating(sp);
         if (PvPFightMod.getFightManager().isPlayerInFight(sp)) {
             PvPFightMod.getFightManager().onPlayerDisconnect(sp);
         }
 
     }
 
+    /** Players who leave the lobby's dimension no longer count towards its occupancy. */
+    @SubscribeEvent
+    public static void onPlayerChangedDimension(PlayerEvent.PlayerChangedDimensionEvent event) {
+        if (!(event.getEntity() instanceof ServerPlayer sp)) return;
+        PvPFightMod.getLobbyManager().onDimensionChange(sp);
+    }
+
     @SubscribeEvent
     public static void onBlockBreak(BlockEvent.BreakEvent event) {
         Player player = event.getPlayer();
         if (!(player instanceof ServerPlayer sp)) return;
-        if (PvPFightMod.getFightManager().isPlayerInFight(sp)) {
+        if (PvPFightMod.getFightManager().isInArena(sp)) {
             event.setCanceled(true);
             sp.sendSystemMessage(net.minecraft.network.chat.Component.literal("§7You cannot break blocks during a fight."));
         }
@@ -121,7 +249,7 @@ public class FightProtections {
     @SubscribeEvent
     public static void onBlockPlace(BlockEvent.EntityPlaceEvent event) {
         if (!(event.getEntity() instanceof ServerPlayer sp)) return;
-        if (PvPFightMod.getFightManager().isPlayerInFight(sp)) {
+        if (PvPFightMod.getFightManager().isInArena(sp)) {
             event.setCanceled(true);
             sp.sendSystemMessage(net.minecraft.network.chat.Component.literal("§7You cannot place blocks during a fight."));
         }
@@ -143,22 +271,63 @@ public class FightProtections {
             return; // no further checks needed if frozen
         }
 
-        // --- Handle arena bounds enforcement ---
-        if (!fightManager.isPlayerInFight(sp)) return;
+        // --- Handle arena bounds enforcement (only when the block position changed) ---
+        FightManager.Seat seat = fightManager.getSeat(sp);
+        if (seat == null) {
+            fightManager.getSpectators().checkBounds(sp);
+            PvPFightMod.getLobbyManager().checkPresence(sp);
+            return;
+        }
+        FightManager.ActiveFight fight = seat.fight;
+        // Players are still outside the arena while it warms up
+        if (fight.state != FightManager.FightState.COUNTDOWN && fight.state != FightManager.FightState.ACTIVE) return;
+
+        int idx = seat.index;
+        int x = Mth.floor(sp.getX());
+        int y = Mth.floor(sp.getY());
+        int z = Mth.floor(sp.getZ());
+        long packed = BlockPos.asLong(x, y, z);
+        if (fight.lastBlockPos[idx] == packed) return;
+        fight.lastBlockPos[idx] = packed;
+
+        ArenaData arena = fight.arena;
+        if (arena.isInside(x, y, z, 0)) {
+            fight.lastValidPos[idx] = packed;
+            fight.boundsWarned[idx] = false;
+            return;
+        }
+        // Hysteresis: inside the margin only warn (once until back inside)
+        if (arena.isInside(x, y, z, Config.getArenaBoundsMargin())) {
+            if (!fight.boundsWarned[idx]) {
+                fight.boundsWarned[idx] = true;
+                sp.displayClientMessage(Component.literal("§eYou are at the edge of the arena!"), true);
+            }
+            return;
+        }
 
-        ArenaData arena = fightManager.getArenaForPlayer(sp);
-        if (arena == null) return;
+        // Eliminated fighters spectate, they are only held inside
+        if (Config.isForfeitOnLeaveArena() && fight.state == FightManager.FightState.ACTIVE && !fight.out[idx]) {
+            LOGGER.debug("[FightProtections] {} left arena bounds and forfeits.", sp.getName().getString());
+            sp.sendSystemMessage(Component.literal("§cYou left the arena and forfeit the fight!"));
+            fightManager.eliminate(sp);
+            return;
+        }
 
-        if (!arena.isInside(sp.blockPosition())) {
-            LOGGER.debug("[FightProtections] {} left arena bounds, teleporting back.", sp.getName().getString());
-            sp.teleportTo(sp.serverLevel(),
-                    arena.getSpawn1().getX() + 0.5,
-                    arena.getSpawn1().getY(),
-                    arena.getSpawn1().getZ() + 0.5,
-                    sp.getYRot(),
-                    sp.getXRot());
-            sp.sendSystemMessage(net.minecraft.network.chat.Component.literal("§cYou cannot leave the arena!"));
+        LOGGER.debug("[FightProtections] {} left arena bounds, teleporting back.", sp.getName().getString());
+        long back = fight.lastValidPos[idx];
+        if (back == FightManager.ActiveFight.NO_POS) {
+            ArenaData.Pos spawn = arena.spawnFor(fight.teamOf[idx], fight.memberOf[idx]);
+            if (spawn == null) spawn = arena.spawn1;
+            back = BlockPos.asLong(spawn.x, spawn.y, spawn.z);
         }
+        sp.teleportTo(sp.serverLevel(),
+                BlockPos.getX(back) + 0.5,
+                BlockPos.getY(back),
+                BlockPos.getZ(back) + 0.5,
+                sp.getYRot(),
+                sp.getXRot());
+        fight.lastBlockPos[idx] = FightManager.ActiveFight.NO_POS;
+        sp.sendSystemMessage(Component.literal("§cYou cannot leave the arena!"));
     }
 
 
@@ -166,41 +335,32 @@ public class FightProtections {
     // === Post-Fight Cleanup Logic
     // =====================================================
 
-    /** Cleans all dropped items inside a given arena after the fight ends. */
+    /** Discards all entities tracked for the arena (drops, projectiles, XP) after the fight ends. */
     public void cleanupArena(ServerLevel level, ArenaData arena) {
         if (arena == null || level == null) return;
 
-        int removed = 0;
-        List<ItemEntity> items = level.getEntitiesOfClass(ItemEntity.class,
-                new net.minecraft.world.phys.AABB(
-                        arena.getCorner1().getX(), arena.getCorner1().getY(), arena.getCorner1().getZ(),
-                        arena.getCorner2().getX(), arena.getCorner2().getY(), arena.getCorner2().getZ())
-        );
+        int removed = PvPFightMod.getFightManager().getEntityTracker().discardAndUntrack(arena);
 
-        for (ItemEntity item : items) {
-            item.discard();
-            removed++;
-        }
+        LOGGER.info("[FightProtections] Cleaned up {} tracked entities in arena '{}'", removed, arena.getName());
+    }
 
-        LOGGER.info("[FightProtections] Cleaned up {} dropped items in arena '{}'", removed, arena.getName());
+    /**
+     * One-off sweep of an arena's volume for loose items, projectiles and XP
+     * (crash recovery, when nothing was tracked). Returns the number removed.
+     */
+    public static int sweepArena(ServerLevel level, ArenaData arena) {
+        if (arena == null || level == null || !arena.isComplete()) return 0;
+        AABB box = new AABB(arena.getCorner1(), arena.getCorner2()).expandTowards(1, 1, 1);
+        List<Entity> loose = level.getEntitiesOfClass(Entity.class, box,
+                e -> e instanceof ItemEntity || e instanceof Projectile || e instanceof ExperienceOrb);
+        loose.forEach(Entity::discard);
+        return loose.size();
     }
 
     // =====================================================
     // === Internal Utility
     // =====================================================
 
-   private static void endFight(ServerPlayer player) {
-    ArenaData arena = PvPFightMod.getFightManager().getArenaForPlayer(player);
-        if (arena == null) {
-            LOGGER.warn("[FightProtections] Could not resolve arena for player {} during endFight()", player.getName().getString());
-            return;
-        }
-
-        PvPFightMod.getFightManager().endFight(
-            player.serverLevel(),
-            PvPFightMod.getFightManager().getActiveFightFor(player)
-        );
-    }
     @SubscribeEvent
     public static void onContainerOpenCleanup(PlayerContainerEvent.Open event) {
         if (!(event.getEntity() instanceof ServerPlayer sp)) return;
@@ -0,0 +1,261 @@
+package com.example.pvpfight;
+
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.item.ItemStack;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * FightRecorder.java
+ *
+ * Records one fight into a direct {@link ByteBuffer} of fixed size (the
+ * per-fight budget, {@code replayBudgetKb}). Once the buffer is full the
+ * recording stops and is saved as truncated.
+ *
+ * Format (all integers varints, deltas zigzag-encoded):
+ * <pre>
+ *   header: int MAGIC, byte VERSION, long startMillis, string arena,
+ *           byte participants, string name × participants
+ *   frame:  ticksSincePreviousFrame (≥ 1), then per participant:
+ *           byte flags
+ *           [POS]   dx dy dz            (1/32 block)
+ *           [ROT]   byte yaw, byte pitch (256 steps)
+ *           [HURT]  damage taken        (1/10 HP)
+ *           [EQUIP] byte slot mask, per slot: string item, count
+ *   end:    0
+ * </pre>
+ * Frames are only written for ticks in which something changed. Swings and hits
+ * arrive as events and are latched into the next frame.
+ *
+ * Server thread only.
+ */
+public final class FightRecorder {
+
+    static final int MAGIC = 0x50565052; // "PVPR"
+    static final byte VERSION = 1;
+
+    static final int POS = 1;
+    static final int ROT = 2;
+    static final int SWING = 4;
+    static final int HURT = 8;
+    static final int EQUIP = 16;
+
+    static final EquipmentSlot[] SLOTS = EquipmentSlot.values();
+    /** Worst-case bytes of one participant's frame part without equipment (flags, POS, ROT, HURT). */
+    private static final int FRAME_RESERVE = 24;
+
+    private final String id;
+    private final ByteBuffer buffer;
+    private final List<ServerPlayer> players;
+    private final long[] lastPos;
+    private final byte[] lastYaw;
+    private final byte[] lastPitch;
+    private final int[] pendingFlags;
+    private final int[] pendingHurt;
+    private final int[] pendingEquip;
+    // item ids of the frame being written, looked up once by frameBound
+    private final String[] equipIds;
+    private int ticksSinceFrame;
+    private boolean truncated;
+
+    FightRecorder(String id, ByteBuffer buffer, ArenaData arena, List<ServerPlayer> players) {
+        this.id = id;
+        this.buffer = buffer;
+        this.players = players;
+        int n = players.size();
+        this.lastPos = new long[n * 3];
+        this.lastYaw = new byte[n];
+        this.lastPitch = new byte[n];
+        this.pendingFlags = new int[n];
+        this.pendingHurt = new int[n];
+        this.pendingEquip = new int[n];
+        this.equipIds = new String[n * SLOTS.length];
+
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(System.currentTimeMillis());
+        putString(buffer, arena.getName());
+        buffer.put((byte) n);
+        for (int i = 0; i < n; i++) {
+            putString(buffer, players.get(i).getGameProfile().getName());
+            // first frame carries full state
+            pendingFlags[i] = POS | ROT;
+            pendingEquip[i] = (1 << SLOTS.length) - 1;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    // --- events (latched until the next frame) ---
+
+    void swing(int participant) {
+        if (participant >= 0) pendingFlags[participant] |= SWING;
+    }
+
+    void hurt(int participant, float amount) {
+        if (participant < 0) return;
+        pendingFlags[participant] |= HURT;
+        pendingHurt[participant] += Math.round(amount * 10);
+    }
+
+    void equipment(int participant, EquipmentSlot slot) {
+        if (participant >= 0) pendingEquip[participant] |= 1 << slot.ordinal();
+    }
+
+    /**
+     * Samples every participant once per server tick and writes a frame if anything changed.
+     */
+    void tick() {
+        if (truncated) return;
+        ticksSinceFrame++;
+
+        int n = players.size();
+        boolean changed = false;
+        for (int i = 0; i < n; i++) {
+            ServerPlayer p = players.get(i);
+            int b = i * 3;
+            if (Math.round(p.getX() * 32) != lastPos[b] || Math.round(p.getY() * 32) != lastPos[b + 1]
+                    || Math.round(p.getZ() * 32) != lastPos[b + 2]) {
+                pendingFlags[i] |= POS;
+            }
+            if (angle(p.getYRot()) != lastYaw[i] || angle(p.getXRot()) != lastPitch[i]) pendingFlags[i] |= ROT;
+            if (pendingEquip[i] != 0) pendingFlags[i] |= EQUIP;
+            changed |= pendingFlags[i] != 0;
+        }
+        if (!changed) return;
+
+        if (buffer.remaining() < frameBound(n)) {
+            truncated = true;
+            return;
+        }
+        putVarInt(buffer, ticksSinceFrame);
+
+        for (int i = 0; i < n; i++) {
+            ServerPlayer p = players.get(i);
+            int flags = pendingFlags[i];
+            buffer.put((byte) flags);
+            if ((flags & POS) != 0) {
+                int b = i * 3;
+                long x = Math.round(p.getX() * 32), y = Math.round(p.getY() * 32), z = Math.round(p.getZ() * 32);
+                putVarInt(buffer, zigzag((int) (x - lastPos[b])));
+                putVarInt(buffer, zigzag((int) (y - lastPos[b + 1])));
+                putVarInt(buffer, zigzag((int) (z - lastPos[b + 2])));
+                lastPos[b] = x;
+                lastPos[b + 1] = y;
+                lastPos[b + 2] = z;
+            }
+            if ((flags & ROT) != 0) {
+                lastYaw[i] = angle(p.getYRot());
+                lastPitch[i] = angle(p.getXRot());
+                buffer.put(lastYaw[i]);
+                buffer.put(lastPitch[i]);
+            }
+            if ((flags & HURT) != 0) putVarInt(buffer, pendingHurt[i]);
+            if ((flags & EQUIP) != 0) writeEquipment(i, p, pendingEquip[i]);
+        }
+        ticksSinceFrame = 0;
+        for (int i = 0; i < n; i++) {
+            pendingFlags[i] = 0;
+            pendingHurt[i] = 0;
+            pendingEquip[i] = 0;
+        }
+    }
+
+    /**
+     * Upper bound of the next frame's size plus the end marker, so a frame is
+     * either written whole or not at all. Fills {@link #equipIds} for the write.
+     */
+    private int frameBound(int n) {
+        int size = 5 + 1; // tick delta varint, end marker
+        for (int i = 0; i < n; i++) {
+            size += FRAME_RESERVE;
+            if ((pendingFlags[i] & EQUIP) == 0) continue;
+            size += 1; // slot mask
+            ServerPlayer p = players.get(i);
+            for (EquipmentSlot slot : SLOTS) {
+                if ((pendingEquip[i] & (1 << slot.ordinal())) == 0) continue;
+                ItemStack stack = p.getItemBySlot(slot);
+                String item = stack.isEmpty() ? "" : BuiltInRegistries.ITEM.getKey(stack.getItem()).toString();
+                equipIds[i * SLOTS.length + slot.ordinal()] = item;
+                // resource locations are ASCII: one byte per char, plus length and count varints
+                size += item.length() + 10;
+            }
+        }
+        return size;
+    }
+
+    private void writeEquipment(int participant, ServerPlayer p, int mask) {
+        buffer.put((byte) mask);
+        for (EquipmentSlot slot : SLOTS) {
+            if ((mask & (1 << slot.ordinal())) == 0) continue;
+            putString(buffer, equipIds[participant * SLOTS.length + slot.ordinal()]);
+            putVarInt(buffer, p.getItemBySlot(slot).getCount());
+        }
+    }
+
+    /** Writes the end marker and flips the buffer for reading. */
+    ByteBuffer finish() {
+        // frameBound keeps a byte free for the marker after every frame
+        if (buffer.hasRemaining()) putVarInt(buffer, 0);
+        buffer.flip();
+        return buffer;
+    }
+
+    // =========================================================
+    // === Encoding helpers (shared with FightReplays)
+    // =========================================================
+
+    static byte angle(float degrees) {
+        return (byte) Mth.floor(degrees * 256.0F / 360.0F);
+    }
+
+    static int zigzag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    static int unzigzag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    static void putVarInt(ByteBuffer buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    static int getVarInt(ByteBuffer buf) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buf.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalStateException("VarInt too long");
+    }
+
+    static void putString(ByteBuffer buf, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        putVarInt(buf, bytes.length);
+        buf.put(bytes);
+    }
+
+    static String getString(ByteBuffer buf) {
+        byte[] bytes = new byte[getVarInt(buf)];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
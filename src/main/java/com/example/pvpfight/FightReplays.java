@@ -0,0 +1,267 @@
+package com.example.pvpfight;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.core.particles.ParticleTypes;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.InteractionHand;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.decoration.ArmorStand;
+import net.minecraft.world.item.ItemStack;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * FightReplays.java
+ *
+ * Storage and playback of {@link FightRecorder} recordings.
+ *
+ *  - Recording buffers are direct and pooled, so fights don't churn direct memory.
+ *  - At fight end the buffer is gzipped to config/pvpfight/replays/&lt;id&gt;.replay
+ *    on the {@link FightIo} pool and then returned to the pool. Only the newest
+ *    {@code replayRetention} files are kept.
+ *  - {@code /fight replay <id>} loads a file off-thread and replays it with armor
+ *    stands (one per fighter, carrying the recorded equipment) in the arena's level.
+ *    Stands are tagged; any that were saved with their chunk (crash during a
+ *    playback) are removed when they load again.
+ */
+public class FightReplays {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    static final File DIR = new File("config/pvpfight/replays");
+    private static final String EXT = ".replay";
+    private static final String STAND_TAG = "pvpfight_replay";
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+    private static final List<Playback> PLAYBACKS = new ArrayList<>();
+
+    // =========================================================
+    // === Recording
+    // =========================================================
+
+    /** Starts a recording for the fight, or returns null if recording is disabled. */
+    static FightRecorder startRecording(ArenaData arena, List<ServerPlayer> players) {
+        if (!Config.isReplayRecording()) return null;
+        int capacity = Config.getReplayBudgetKb() * 1024;
+        ByteBuffer buffer = POOL.poll();
+        if (buffer == null || buffer.capacity() != capacity) buffer = ByteBuffer.allocateDirect(capacity);
+        String id = Long.toString(System.currentTimeMillis(), 36) + "-"
+                + arena.getName().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_]", "_");
+        return new FightRecorder(id, buffer, arena, players);
+    }
+
+    /** Finishes the recording and writes it in the background. */
+    static void save(FightRecorder recorder) {
+        ByteBuffer data = recorder.finish();
+        String id = recorder.getId();
+        if (recorder.isTruncated()) LOGGER.info("[FightReplays] Replay {} hit the size budget and was truncated.", id);
+        FightIo.run("replay:" + id, () -> {
+            DIR.mkdirs();
+            File tmp = new File(DIR, id + EXT + ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp.toPath()));
+                 WritableByteChannel channel = Channels.newChannel(out)) {
+                while (data.hasRemaining()) channel.write(data);
+            }
+            Files.move(tmp.toPath(), new File(DIR, id + EXT).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            prune(Config.getReplayRetention());
+        }).whenComplete((ok, error) -> {
+            if (error != null) LOGGER.error("[FightReplays] Could not write replay {}", id, FightIo.unwrap(error));
+            data.clear();
+            POOL.offer(data);
+        });
+    }
+
+    /** Deletes the oldest replay files beyond {@code keep} (0 keeps all). I/O thread. */
+    private static synchronized void prune(int keep) {
+        if (keep <= 0) return;
+        File[] files = DIR.listFiles((dir, name) -> name.endsWith(EXT));
+        if (files == null || files.length <= keep) return;
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = keep; i < files.length; i++) {
+            if (!files[i].delete()) LOGGER.warn("[FightReplays] Could not delete old replay {}", files[i].getName());
+        }
+    }
+
+    // =========================================================
+    // === Playback
+    // =========================================================
+
+    /** Loads a replay off-thread and starts playing it for the admin. */
+    static void play(ServerPlayer admin, String id) {
+        if (!id.matches("[a-z0-9_-]+")) {
+            admin.sendSystemMessage(Component.literal("§cInvalid replay id: §e" + id));
+            return;
+        }
+        File file = new File(DIR, id + EXT);
+        MinecraftServer server = admin.getServer();
+        FightIo.onServer(server, FightIo.supply("replay:" + id, () -> {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+                return ByteBuffer.wrap(in.readAllBytes());
+            }
+        }), (data, error) -> {
+            if (error != null) {
+                admin.sendSystemMessage(Component.literal("§cReplay not found or unreadable: §e" + id));
+                return;
+            }
+            start(admin, id, data);
+        });
+    }
+
+    private static void start(ServerPlayer admin, String id, ByteBuffer data) {
+        if (data.remaining() < 5 || data.getInt() != FightRecorder.MAGIC || data.get() != FightRecorder.VERSION) {
+            admin.sendSystemMessage(Component.literal("§cNot a replay file: §e" + id));
+            return;
+        }
+        data.getLong(); // start time
+        String arenaName = FightRecorder.getString(data);
+        int n = data.get();
+        ArenaData arena = ArenaDataMulti.getArena(arenaName);
+        ServerLevel level = arena != null ? arena.resolveLevel(admin.getServer()) : admin.serverLevel();
+
+        ArmorStand[] stands = new ArmorStand[n];
+        for (int i = 0; i < n; i++) {
+            ArmorStand stand = new ArmorStand(EntityType.ARMOR_STAND, level);
+            CompoundTag flags = new CompoundTag();
+            flags.putBoolean("ShowArms", true);
+            flags.putBoolean("NoBasePlate", true);
+            stand.readAdditionalSaveData(flags);
+            stand.setInvulnerable(true);
+            stand.setNoGravity(true);
+            stand.setCustomName(Component.literal("§e" + FightRecorder.getString(data) + " §7(replay)"));
+            stand.setCustomNameVisible(true);
+            stand.addTag(STAND_TAG);
+            stands[i] = stand;
+        }
+        PLAYBACKS.add(new Playback(level, stands, data));
+        admin.sendSystemMessage(Component.literal("§aPlaying replay §e" + id + " §ain arena §6" + arenaName + "§a."));
+        LOGGER.info("[FightReplays] {} started replay {}", admin.getName().getString(), id);
+    }
+
+    /** Advances all playbacks by one tick (server thread). */
+    static void tick() {
+        for (int i = PLAYBACKS.size() - 1; i >= 0; i--) {
+            Playback p = PLAYBACKS.get(i);
+            boolean running;
+            try {
+                running = p.tick();
+            } catch (RuntimeException e) {
+                LOGGER.warn("[FightReplays] Replay stopped on a corrupt frame: {}", e.toString());
+                running = false;
+            }
+            if (!running) {
+                p.discard();
+                PLAYBACKS.remove(i);
+            }
+        }
+    }
+
+    /**
+     * True for a replay stand loaded from disk. Playbacks only spawn fresh stands,
+     * so such a stand was left behind by a crash (also at server start, when the
+     * spawn chunks load) and must not be added to the level.
+     */
+    static boolean isLeftoverStand(Entity entity, boolean loadedFromDisk) {
+        return loadedFromDisk && entity instanceof ArmorStand && entity.getTags().contains(STAND_TAG);
+    }
+
+    /** Removes all replay stands (server stop); pending writes are drained by {@link FightIo#drain}. */
+    static void shutdown() {
+        for (Playback p : PLAYBACKS) p.discard();
+        PLAYBACKS.clear();
+    }
+
+    private static final class Playback {
+        final ServerLevel level;
+        final ArmorStand[] stands;
+        final ByteBuffer data;
+        final long[] pos;
+        int wait;
+        boolean spawned;
+
+        Playback(ServerLevel level, ArmorStand[] stands, ByteBuffer data) {
+            this.level = level;
+            this.stands = stands;
+            this.data = data;
+            this.pos = new long[stands.length * 3];
+            this.wait = FightRecorder.getVarInt(data);
+        }
+
+        /** Returns false once the replay is over. */
+        boolean tick() {
+            if (wait == 0 || !data.hasRemaining()) return false;
+            if (--wait > 0) return true;
+
+            for (int i = 0; i < stands.length; i++) applyFrame(i, stands[i], data.get());
+            if (!spawned) {
+                spawned = true;
+                for (ArmorStand stand : stands) level.addFreshEntity(stand);
+            }
+            wait = data.hasRemaining() ? FightRecorder.getVarInt(data) : 0;
+            return wait > 0;
+        }
+
+        private void applyFrame(int i, ArmorStand stand, int flags) {
+            int b = i * 3;
+            if ((flags & FightRecorder.POS) != 0) {
+                pos[b] += FightRecorder.unzigzag(FightRecorder.getVarInt(data));
+                pos[b + 1] += FightRecorder.unzigzag(FightRecorder.getVarInt(data));
+                pos[b + 2] += FightRecorder.unzigzag(FightRecorder.getVarInt(data));
+                stand.moveTo(pos[b] / 32.0, pos[b + 1] / 32.0, pos[b + 2] / 32.0, stand.getYRot(), stand.getXRot());
+            }
+            if ((flags & FightRecorder.ROT) != 0) {
+                float yaw = data.get() * 360.0F / 256.0F;
+                float pitch = data.get() * 360.0F / 256.0F;
+                stand.setYRot(yaw);
+                stand.setYHeadRot(yaw);
+                stand.setYBodyRot(yaw);
+                stand.setXRot(pitch);
+            }
+            if ((flags & FightRecorder.SWING) != 0 && spawned) stand.swing(InteractionHand.MAIN_HAND, true);
+            if ((flags & FightRecorder.HURT) != 0) {
+                int tenths = FightRecorder.getVarInt(data);
+                if (spawned) {
+                    level.sendParticles(ParticleTypes.DAMAGE_INDICATOR, stand.getX(), stand.getY() + 1.2, stand.getZ(),
+                            Math.max(1, tenths / 10), 0.2, 0.2, 0.2, 0.1);
+                }
+            }
+            if ((flags & FightRecorder.EQUIP) != 0) {
+                int mask = data.get();
+                for (int s = 0; s < FightRecorder.SLOTS.length; s++) {
+                    if ((mask & (1 << s)) == 0) continue;
+                    String item = FightRecorder.getString(data);
+                    int count = FightRecorder.getVarInt(data);
+                    ResourceLocation key = item.isEmpty() ? null : ResourceLocation.tryParse(item);
+                    ItemStack stack = key == null ? ItemStack.EMPTY : new ItemStack(BuiltInRegistries.ITEM.get(key), count);
+                    stand.setItemSlot(FightRecorder.SLOTS[s], stack);
+                }
+            }
+        }
+
+        void discard() {
+            for (ArmorStand stand : stands) stand.discard();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.pvpfight;
+
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * FightResult.java
+ *
+ * Outcome of a finished fight: participants (ledger order) with their teams, the
+ * winning team and the fight's damage ledger (no longer written once the fight
+ * has ended). A duel is a fight of two teams of one.
+ *
+ * {@code decisive} is true when the fight ended because a single team was left
+ * standing (1 HP, death, forfeit, disconnect). Fights ended from outside (admin
+ * abort, server stop) name the damage leader as winner instead, with ties going
+ * to the lowest team; such results are not decisive.
+ */
+public record FightResult(List<ServerPlayer> participants, int[] teamOf, int winningTeam, ArenaData arena,
+                          long durationMillis, FightLedger ledger, boolean decisive) {
+
+    public boolean won(int participant) {
+        return teamOf[participant] == winningTeam;
+    }
+
+    public List<ServerPlayer> winners() {
+        return members(true);
+    }
+
+    public List<ServerPlayer> losers() {
+        return members(false);
+    }
+
+    private List<ServerPlayer> members(boolean winners) {
+        List<ServerPlayer> out = new ArrayList<>(participants.size());
+        for (int i = 0; i < participants.size(); i++) {
+            if (won(i) == winners) out.add(participants.get(i));
+        }
+        return out;
+    }
+
+    /** "alice", "alice & bob" or "alice, bob & carol". */
+    public static String names(List<ServerPlayer> players) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < players.size(); i++) {
+            if (i > 0) sb.append(i == players.size() - 1 ? " & " : ", ");
+            sb.append(players.get(i).getName().getString());
+        }
+        return sb.toString();
+    }
+
+    /** One-line damage summary of a participant, for chat. */
+    public String summary(int participant) {
+        return String.format(Locale.ROOT, "§7Damage dealt §e%.1f §7· taken §e%.1f §7· hits §e%d §7· crits §e%d",
+                ledger.dealt(participant), ledger.taken(participant), ledger.hits(participant), ledger.crits(participant));
+    }
+
+    @Override
+    public String toString() {
+        float dealtWin = 0, dealtLose = 0;
+        int hitsWin = 0, hitsLose = 0;
+        for (int i = 0; i < participants.size(); i++) {
+            if (won(i)) {
+                dealtWin += ledger.dealt(i);
+                hitsWin += ledger.hits(i);
+            } else {
+                dealtLose += ledger.dealt(i);
+                hitsLose += ledger.hits(i);
+            }
+        }
+        return String.format(Locale.ROOT, "%s beat %s in %s after %d s (dealt %.1f/%.1f, hits %d/%d)",
+                names(winners()), names(losers()), arena.getName(), durationMillis / 1000,
+                dealtWin, dealtLose, hitsWin, hitsLose);
+    }
+}
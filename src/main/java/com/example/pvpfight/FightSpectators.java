@@ -0,0 +1,199 @@
+package com.example.pvpfight;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.GameType;
+import net.minecraft.world.level.Level;
+import org.slf4j.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * FightSpectators.java
+ *
+ * Players watching a fight ({@code /fight spectate <player|arena>}).
+ *
+ *  - Each session keeps its own audience list; fight messages go to the fighters and
+ *    that list only (see {@link FightManager#tell}), never to the whole server.
+ *  - Spectators are put in spectator mode inside the arena and held there with the
+ *    same block-change bounds cache as fighters.
+ *  - Their location and game mode are saved on entry and restored when the fight is
+ *    torn down, when they stop watching or when they log out. The return point is
+ *    also kept in the player's persistent data, so a spectator caught by a crash is
+ *    sent back on their next login ({@link #recover}).
+ *
+ * Server thread only.
+ */
+public class FightSpectators {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final String RETURN_KEY = "pvp_fight:spectator_return";
+
+    private final Map<UUID, Spectator> byPlayer = new HashMap<>();
+
+    /** Starts watching the fight (or moves an existing spectator over to it). */
+    void watch(ServerPlayer player, FightManager.ActiveFight fight) {
+        Spectator s = byPlayer.get(player.getUUID());
+        if (s != null) {
+            if (s.fight == fight) return;
+            s.fight.spectators.remove(s);
+            s = new Spectator(player, fight, s);
+        } else {
+            s = new Spectator(player, fight, null);
+        }
+        byPlayer.put(player.getUUID(), s);
+        fight.spectators.add(s);
+
+        player.setGameMode(GameType.SPECTATOR);
+        BlockPos view = viewPoint(fight.arena);
+        player.teleportTo(fight.arena.resolveLevel(player.server), view.getX() + 0.5, view.getY(), view.getZ() + 0.5,
+                player.getYRot(), player.getXRot());
+        Util.sendMessage(player, "§7You are watching §6" + fight.describe() + " §7in arena §e" + fight.arena.getName()
+                + "§7. Use §e/fight spectate §7to leave.");
+        LOGGER.debug("[FightSpectators] {} watches arena {}", player.getName().getString(), fight.arena.getName());
+    }
+
+    /** Stops watching and returns the player; false if they were not spectating. */
+    boolean stop(ServerPlayer player) {
+        Spectator s = byPlayer.remove(player.getUUID());
+        if (s == null) return false;
+        s.fight.spectators.remove(s);
+        s.restore();
+        return true;
+    }
+
+    /** Returns every spectator of the session to where they came from (teardown). */
+    void releaseAll(FightManager.ActiveFight fight) {
+        for (Spectator s : fight.spectators) {
+            byPlayer.remove(s.player.getUUID(), s);
+            s.restore();
+        }
+        fight.spectators.clear();
+    }
+
+    boolean isSpectating(ServerPlayer player) {
+        return byPlayer.containsKey(player.getUUID());
+    }
+
+    /**
+     * Keeps a spectator inside the arena (plus margin). Only does work when the
+     * player's block position changed.
+     */
+    void checkBounds(ServerPlayer player) {
+        Spectator s = byPlayer.get(player.getUUID());
+        if (s == null) return;
+        int x = Mth.floor(player.getX());
+        int y = Mth.floor(player.getY());
+        int z = Mth.floor(player.getZ());
+        long packed = BlockPos.asLong(x, y, z);
+        if (s.lastBlockPos == packed) return;
+        s.lastBlockPos = packed;
+
+        ArenaData arena = s.fight.arena;
+        ServerLevel level = arena.resolveLevel(player.server);
+        if (player.level() == level && arena.isInside(x, y, z, Config.getArenaBoundsMargin())) {
+            s.lastValidPos = packed;
+            return;
+        }
+        BlockPos back = s.lastValidPos != FightManager.ActiveFight.NO_POS
+                ? BlockPos.of(s.lastValidPos) : viewPoint(arena);
+        player.teleportTo(level, back.getX() + 0.5, back.getY(), back.getZ() + 0.5, player.getYRot(), player.getXRot());
+        s.lastBlockPos = FightManager.ActiveFight.NO_POS;
+        player.displayClientMessage(Component.literal("§7Spectators stay inside the arena."), true);
+    }
+
+    /**
+     * Sends a player back who was still spectating when the server went down
+     * (login). Does nothing for players without a saved return point.
+     */
+    void recover(ServerPlayer player) {
+        CompoundTag root = player.getPersistentData();
+        if (!root.contains(RETURN_KEY) || byPlayer.containsKey(player.getUUID())) return;
+        CompoundTag tag = root.getCompound(RETURN_KEY);
+        root.remove(RETURN_KEY);
+
+        ResourceLocation dimension = ResourceLocation.tryParse(tag.getString("Dimension"));
+        ServerLevel level = dimension != null
+                ? player.server.getLevel(ResourceKey.create(Registries.DIMENSION, dimension)) : null;
+        if (level == null) level = player.server.overworld();
+        player.teleportTo(level, tag.getDouble("X"), tag.getDouble("Y"), tag.getDouble("Z"),
+                tag.getFloat("YRot"), tag.getFloat("XRot"));
+        player.setGameMode(GameType.byId(tag.getInt("Mode")));
+        Util.sendMessage(player, "§eThe fight you watched was interrupted by a server restart. You were sent back.");
+        LOGGER.info("[FightSpectators] Returned {} after an interrupted spectate.", player.getName().getString());
+    }
+
+    /** Between the two primary spawns, a few blocks up. */
+    private static BlockPos viewPoint(ArenaData arena) {
+        ArenaData.Pos a = arena.spawn1;
+        ArenaData.Pos b = arena.spawn2 != null ? arena.spawn2 : a;
+        return new BlockPos((a.x + b.x) / 2, Math.max(a.y, b.y) + 3, (a.z + b.z) / 2);
+    }
+
+    static final class Spectator {
+        final ServerPlayer player;
+        final FightManager.ActiveFight fight;
+        // where to return the player
+        final ResourceKey<Level> dimension;
+        final double x, y, z;
+        final float yRot, xRot;
+        final GameType priorMode;
+        long lastBlockPos = FightManager.ActiveFight.NO_POS;
+        long lastValidPos = FightManager.ActiveFight.NO_POS;
+
+        /** {@code previous}: the spectator's earlier entry when switching fights (keeps the return point). */
+        Spectator(ServerPlayer player, FightManager.ActiveFight fight, Spectator previous) {
+            this.player = player;
+            this.fight = fight;
+            if (previous != null) {
+                dimension = previous.dimension;
+                x = previous.x;
+                y = previous.y;
+                z = previous.z;
+                yRot = previous.yRot;
+                xRot = previous.xRot;
+                priorMode = previous.priorMode;
+            } else {
+                dimension = player.level().dimension();
+                x = player.getX();
+                y = player.getY();
+                z = player.getZ();
+                yRot = player.getYRot();
+                xRot = player.getXRot();
+                priorMode = player.gameMode.getGameModeForPlayer();
+                save();
+            }
+        }
+
+        /** Writes the return point into the player's persistent data (survives a crash). */
+        private void save() {
+            CompoundTag tag = new CompoundTag();
+            tag.putString("Dimension", dimension.location().toString());
+            tag.putDouble("X", x);
+            tag.putDouble("Y", y);
+            tag.putDouble("Z", z);
+            tag.putFloat("YRot", yRot);
+            tag.putFloat("XRot", xRot);
+            tag.putInt("Mode", priorMode.getId());
+            player.getPersistentData().put(RETURN_KEY, tag);
+        }
+
+        void restore() {
+            player.getPersistentData().remove(RETURN_KEY);
+            ServerLevel level = player.server.getLevel(dimension);
+            if (level == null) level = player.server.overworld();
+            player.teleportTo(level, x, y, z, yRot, xRot);
+            player.setGameMode(priorMode);
+        }
+    }
+}
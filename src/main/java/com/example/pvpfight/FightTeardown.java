@@ -0,0 +1,127 @@
+package com.example.pvpfight;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.server.level.ServerLevel;
+import org.slf4j.Logger;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * FightTeardown.java
+ *
+ * Staggers the post-fight work of ended fights across server ticks.
+ * Each ended fight runs through the stages
+ *   RESTORE → REWARD → TELEPORT → CLEANUP → RELEASE
+ * one stage per step, under a per-tick time budget. Fights further along the
+ * pipeline go first, so arenas are released (and queued fights can start)
+ * before new teardowns are begun.
+ */
+public class FightTeardown {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    enum Stage { RESTORE, REWARD, TELEPORT, CLEANUP, RELEASE, DONE }
+
+    private final FightManager fightManager;
+    private final PriorityQueue<Job> jobs = new PriorityQueue<>(
+            Comparator.comparingInt((Job j) -> -j.stage.ordinal()).thenComparingLong(j -> j.seq));
+    private long nextSeq;
+
+    public FightTeardown(FightManager fightManager) {
+        this.fightManager = fightManager;
+    }
+
+    /**
+     * Queues an ended fight for teardown.
+     */
+    void submit(FightManager.ActiveFight fight, ServerLevel level) {
+        jobs.add(new Job(fight, level, nextSeq++));
+    }
+
+    /**
+     * Runs queued stages until the budget is used up. At least one stage runs per
+     * call, so the pipeline always makes progress.
+     */
+    void tick(long budgetNanos) {
+        if (jobs.isEmpty()) return;
+        long start = System.nanoTime();
+        int steps = 0;
+        do {
+            step(jobs.poll());
+            steps++;
+        } while (!jobs.isEmpty() && System.nanoTime() - start < budgetNanos);
+
+        if (!jobs.isEmpty()) {
+            LOGGER.debug("[FightTeardown] Ran {} stages, {} teardowns still pending.", steps, jobs.size());
+        }
+    }
+
+    /**
+     * Runs all remaining stages of one fight immediately (disconnects, shutdown).
+     */
+    void flush(FightManager.ActiveFight fight) {
+        Job job = null;
+        for (Job j : jobs) {
+            if (j.fight == fight) {
+                job = j;
+                break;
+            }
+        }
+        if (job == null) return;
+        jobs.remove(job);
+        while (job.stage != Stage.DONE) runStage(job);
+    }
+
+    /**
+     * Runs everything that is still queued (server shutdown).
+     */
+    void flushAll() {
+        while (!jobs.isEmpty()) {
+            Job job = jobs.poll();
+            while (job.stage != Stage.DONE) runStage(job);
+        }
+    }
+
+    boolean isEmpty() {
+        return jobs.isEmpty();
+    }
+
+    int pending() {
+        return jobs.size();
+    }
+
+    private void step(Job job) {
+        runStage(job);
+        if (job.stage != Stage.DONE) jobs.add(job);
+    }
+
+    private void runStage(Job job) {
+        try {
+            switch (job.stage) {
+                case RESTORE -> fightManager.teardownRestore(job.fight);
+                case REWARD -> fightManager.teardownReward(job.fight);
+                case TELEPORT -> fightManager.teardownTeleport(job.fight);
+                case CLEANUP -> fightManager.teardownCleanup(job.level, job.fight);
+                case RELEASE -> fightManager.teardownRelease(job.fight);
+                default -> { }
+            }
+        } catch (Exception e) {
+            LOGGER.error("[FightTeardown] Stage {} failed for arena {}", job.stage, job.fight.arena.getName(), e);
+        }
+        job.stage = Stage.values()[job.stage.ordinal() + 1];
+    }
+
+    private static final class Job {
+        final FightManager.ActiveFight fight;
+        final ServerLevel level;
+        final long seq;
+        Stage stage = Stage.RESTORE;
+
+        Job(FightManager.ActiveFight fight, ServerLevel level, long seq) {
+            this.fight = fight;
+            this.level = level;
+            this.seq = seq;
+        }
+    }
+}
@@ -2,165 +2,415 @@ package com.example.pvpfight;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.mojang.logging.LogUtils;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
 import org.slf4j.Logger;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * LobbyManager.java
- * 
- * Manages the global lobby spawn position.
- * Players are teleported here after fights.
+ *
+ * Manages the named lobby spawn points (any number per dimension).
+ * Players are teleported to the least-crowded lobby after fights,
+ * preferring lobbies in their current dimension and, on ties, the nearest one.
  * Data is saved persistently under: config/pvpfight/lobby.json
  */
 public class LobbyManager {
 
-    private static BlockPos lobbyPos;
-    private static String lobbyWorld;
+    public static final String DEFAULT_LOBBY = "default";
+
+    // name (lowercase) → lobby, insertion-ordered for listing
+    private static final Map<String, LobbyPoint> LOBBIES = new LinkedHashMap<>();
+    // dimension id → lobbies in that dimension
+    private static final Map<String, List<LobbyPoint>> LOBBIES_BY_WORLD = new HashMap<>();
+    // player → lobby they were last sent to (for incremental occupancy counts)
+    private static final Map<UUID, Occupant> OCCUPANTS = new HashMap<>();
 
     private static final Logger LOGGER = LogUtils.getLogger();
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private static final File LOBBY_FILE = new File("config/pvpfight/lobby.json");
+    private static final int FORMAT_VERSION = 2;
+    /** Players farther than this from their lobby no longer count towards its occupancy. */
+    private static final int LOBBY_RADIUS = 32;
 
     // === LOBBY MANAGEMENT ===
 
     /**
-     * Sets the lobby position at the admin's current location and saves it to file.
+     * Sets the default lobby at the admin's current location and saves it to file.
      */
     public void setLobbyPosition(ServerPlayer admin) {
-        if (admin == null) return;
+        setLobbyPosition(admin, DEFAULT_LOBBY);
+    }
+
+    /**
+     * Creates or moves the named lobby to the admin's current location and saves it to file.
+     */
+    public void setLobbyPosition(ServerPlayer admin, String name) {
+        if (admin == null || name == null || name.isBlank()) return;
+
+        BlockPos pos = admin.blockPosition();
+        String world = admin.serverLevel().dimension().location().toString();
+
+        LobbyPoint old = LOBBIES.get(key(name));
+        LobbyPoint point = new LobbyPoint(name, world, pos.getX(), pos.getY(), pos.getZ());
+        if (old != null) {
+            unindex(old);
+            point.occupancy = old.occupancy;
+            for (Occupant occupant : OCCUPANTS.values()) {
+                if (occupant.lobby == old) occupant.lobby = point;
+            }
+        }
+        index(point);
+
+        saveLobby();
+        Util.sendMessage(admin, "§aLobby §6" + name + " §aset at your current location!");
+        LOGGER.info("[LobbyManager] Lobby '{}' set at {} in world {}", name, formatPos(pos), world);
+    }
 
-        lobbyPos = admin.blockPosition();
-        lobbyWorld = admin.serverLevel().dimension().location().toString();
+    /**
+     * Removes a named lobby. Returns false if it did not exist.
+     */
+    public boolean removeLobby(String name) {
+        LobbyPoint removed = name == null ? null : LOBBIES.get(key(name));
+        if (removed == null) return false;
 
+        unindex(removed);
+        OCCUPANTS.values().removeIf(occupant -> occupant.lobby == removed);
         saveLobby();
-        Util.sendMessage(admin, "§aLobby position set at your current location!");
-        LOGGER.info("[LobbyManager] Lobby set at {} in world {}", formatPos(lobbyPos), lobbyWorld);
+        LOGGER.info("[LobbyManager] Lobby '{}' removed.", removed.name);
+        return true;
+    }
+
+    /**
+     * Lists all lobbies with their current occupancy to the admin.
+     */
+    public void printLobbies(ServerPlayer admin) {
+        if (LOBBIES.isEmpty()) {
+            Util.sendMessage(admin, "§7No lobbies set.");
+            return;
+        }
+        Util.sendMessage(admin, "§6==== Lobbies ====");
+        for (LobbyPoint lobby : LOBBIES.values()) {
+            Util.sendMessage(admin, "§e" + lobby.name + " §7- " + lobby.world + " " + lobby.x + " " + lobby.y + " " + lobby.z
+                    + " §7(§6" + lobby.occupancy + "§7 players)");
+        }
     }
 
     /**
-     * Teleports a player to the saved lobby position, if it exists.
+     * Teleports a player to the least-crowded lobby, if any exists.
      */
     public void teleportToLobby(ServerPlayer player) {
         if (player == null) return;
 
-        if (lobbyPos == null) {
+        LobbyPoint lobby = selectLobby(player);
+        if (lobby == null) {
             Util.sendMessage(player, "§cLobby not set yet!");
             LOGGER.warn("[LobbyManager] Lobby not set – cannot teleport player '{}'.",
                     player.getName().getString());
             return;
         }
 
-        ServerLevel overworld = player.server.getLevel(ServerLevel.OVERWORLD);
-        if (overworld != null) {
-            player.teleportTo(overworld,
-                    lobbyPos.getX() + 0.5,
-                    lobbyPos.getY(),
-                    lobbyPos.getZ() + 0.5,
-                    player.getYRot(),
-                    player.getXRot());
-            Util.sendMessage(player, "§aTeleported to the lobby!");
-        } else {
-            LOGGER.error("[LobbyManager] Overworld not found – teleport failed!");
+        ServerLevel level = resolveLevel(player.server, lobby.world);
+        if (level == null) {
+            LOGGER.error("[LobbyManager] World '{}' of lobby '{}' not found – teleport failed!", lobby.world, lobby.name);
+            return;
+        }
+
+        leaveLobby(player);
+        lobby.occupancy++;
+        OCCUPANTS.put(player.getUUID(), new Occupant(lobby));
+
+        player.teleportTo(level,
+                lobby.x + 0.5,
+                lobby.y,
+                lobby.z + 0.5,
+                player.getYRot(),
+                player.getXRot());
+        Util.sendMessage(player, "§aTeleported to the lobby!");
+    }
+
+    /**
+     * Removes the player from the occupancy count of the lobby they were sent to
+     * (called when they enter a fight, change dimension, walk away or log out).
+     */
+    public void leaveLobby(ServerPlayer player) {
+        if (player == null) return;
+        Occupant occupant = OCCUPANTS.remove(player.getUUID());
+        if (occupant != null && occupant.lobby.occupancy > 0) occupant.lobby.occupancy--;
+    }
+
+    /**
+     * Drops the player from their lobby's count once they are in another dimension.
+     */
+    public void onDimensionChange(ServerPlayer player) {
+        Occupant occupant = OCCUPANTS.get(player.getUUID());
+        if (occupant == null) return;
+        if (!player.serverLevel().dimension().location().toString().equals(occupant.lobby.world)) {
+            leaveLobby(player);
+        }
+    }
+
+    /**
+     * Coarse presence check from the player tick: only when the player's block
+     * position changed, drops them from the count once they left the lobby radius.
+     */
+    public void checkPresence(ServerPlayer player) {
+        if (OCCUPANTS.isEmpty()) return;
+        Occupant occupant = OCCUPANTS.get(player.getUUID());
+        if (occupant == null) return;
+
+        BlockPos pos = player.blockPosition();
+        long packed = pos.asLong();
+        if (occupant.lastBlockPos == packed) return;
+        occupant.lastBlockPos = packed;
+
+        LobbyPoint lobby = occupant.lobby;
+        if (Math.abs(pos.getX() - lobby.x) > LOBBY_RADIUS || Math.abs(pos.getY() - lobby.y) > LOBBY_RADIUS
+                || Math.abs(pos.getZ() - lobby.z) > LOBBY_RADIUS) {
+            leaveLobby(player);
+        }
+    }
+
+    /**
+     * Picks the lobby with the lowest occupancy, preferring the player's dimension;
+     * ties are broken by distance.
+     */
+    private LobbyPoint selectLobby(ServerPlayer player) {
+        if (LOBBIES.isEmpty()) return null;
+
+        String world = player.serverLevel().dimension().location().toString();
+        List<LobbyPoint> candidates = LOBBIES_BY_WORLD.get(world);
+        boolean sameWorld = candidates != null && !candidates.isEmpty();
+        Iterable<LobbyPoint> pool = sameWorld ? candidates : LOBBIES.values();
+
+        LobbyPoint best = null;
+        double bestDist = Double.MAX_VALUE;
+        for (LobbyPoint lobby : pool) {
+            double dist = sameWorld ? player.distanceToSqr(lobby.x + 0.5, lobby.y, lobby.z + 0.5) : 0.0;
+            if (best == null || lobby.occupancy < best.occupancy
+                    || (lobby.occupancy == best.occupancy && dist < bestDist)) {
+                best = lobby;
+                bestDist = dist;
+            }
         }
+        return best;
     }
 
     /**
-     * Returns the current lobby position.
+     * Returns the default lobby position (or the first lobby if no default exists).
      */
     public BlockPos getLobbyPosition() {
-        return lobbyPos;
+        LobbyPoint lobby = LOBBIES.get(DEFAULT_LOBBY);
+        if (lobby == null && !LOBBIES.isEmpty()) lobby = LOBBIES.values().iterator().next();
+        return lobby == null ? null : new BlockPos(lobby.x, lobby.y, lobby.z);
+    }
+
+    /**
+     * Returns all lobby names (for tab-completion).
+     */
+    public List<String> getLobbyNames() {
+        List<String> names = new ArrayList<>(LOBBIES.size());
+        for (LobbyPoint lobby : LOBBIES.values()) names.add(lobby.name);
+        return names;
     }
 
     /**
      * Clears the in-memory lobby data (used when server stops).
      */
     public void clear() {
-        lobbyPos = null;
-        lobbyWorld = null;
-        LOGGER.info("[LobbyManager] Lobby cleared from memory.");
+        LOBBIES.clear();
+        LOBBIES_BY_WORLD.clear();
+        OCCUPANTS.clear();
+        LOGGER.info("[LobbyManager] Lobbies cleared from memory.");
     }
 
     // === PERSISTENCE ===
 
     /**
-     * Loads the lobby data from JSON.
+     * Loads the lobby data from JSON (accepts the legacy single-lobby format).
      */
     public static void loadLobby() {
-        try {
-            if (!LOBBY_FILE.exists()) {
-                LOGGER.info("[LobbyManager] No saved lobby found – creating new file.");
-                saveLobby();
-                return;
-            }
+        applyLobbies(readLobbies());
+    }
+
+    /**
+     * Reads and parses the lobby file without touching the live lobbies, so it can
+     * run off the server thread. Returns null if there is no lobby file yet.
+     */
+    static List<LobbyPoint> readLobbies() {
+        if (!LOBBY_FILE.exists()) return null;
 
-            LobbyData data = GSON.fromJson(new FileReader(LOBBY_FILE), LobbyData.class);
-            if (data != null) {
-                lobbyPos = new BlockPos(data.x, data.y, data.z);
-                lobbyWorld = data.world;
-                LOGGER.info("[LobbyManager] Lobby loaded at {} in world {}.", formatPos(lobbyPos), lobbyWorld);
-            } else {
-                LOGGER.warn("[LobbyManager] Failed to read lobby data (null).");
+        List<LobbyPoint> lobbies = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(LOBBY_FILE.toPath(), StandardCharsets.UTF_8)) {
+            JsonElement root = JsonParser.parseReader(reader);
+            if (root == null || !root.isJsonObject()) {
+                LOGGER.warn("[LobbyManager] Failed to read lobby data (no JSON object).");
+                return lobbies;
             }
 
+            JsonObject obj = root.getAsJsonObject();
+            if (obj.has("lobbies")) {
+                LobbyFile data = GSON.fromJson(obj, LobbyFile.class);
+                if (data.lobbies != null) {
+                    for (LobbyPoint lobby : data.lobbies) {
+                        if (lobby != null && lobby.name != null && !lobby.name.isBlank()) lobbies.add(lobby);
+                    }
+                }
+            } else if (obj.has("x")) {
+                // Legacy: { x, y, z, world } → single "default" lobby
+                LobbyPoint legacy = GSON.fromJson(obj, LobbyPoint.class);
+                legacy.name = DEFAULT_LOBBY;
+                if (legacy.world == null) legacy.world = Level.OVERWORLD.location().toString();
+                lobbies.add(legacy);
+                LOGGER.info("[LobbyManager] Migrated legacy lobby file.");
+            }
         } catch (Exception e) {
             LOGGER.error("[LobbyManager] Error loading lobby: {}", e.getMessage());
         }
+        return lobbies;
+    }
+
+    /**
+     * Replaces the live lobbies with parsed ones (server thread). A null list means
+     * there was no file – an empty one is created.
+     */
+    static void applyLobbies(List<LobbyPoint> lobbies) {
+        LOBBIES.clear();
+        LOBBIES_BY_WORLD.clear();
+        OCCUPANTS.clear();
+        if (lobbies == null) {
+            LOGGER.info("[LobbyManager] No saved lobby found – creating new file.");
+            saveLobby();
+            return;
+        }
+        for (LobbyPoint lobby : lobbies) index(lobby);
+        LOGGER.info("[LobbyManager] Loaded {} lobbies.", LOBBIES.size());
     }
 
     /**
-     * Saves the current lobby data to JSON.
+     * Saves all lobbies to JSON on the I/O pool. Written to a temp file and atomically
+     * moved into place; the lobbies are copied here (server thread).
      */
     public static void saveLobby() {
-        try {
-            File dir = LOBBY_FILE.getParentFile();
-            if (!dir.exists()) dir.mkdirs();
+        LobbyFile data = new LobbyFile();
+        data.version = FORMAT_VERSION;
+        data.lobbies = new ArrayList<>(LOBBIES.size());
+        for (LobbyPoint lobby : LOBBIES.values()) {
+            data.lobbies.add(new LobbyPoint(lobby.name, lobby.world, lobby.x, lobby.y, lobby.z));
+        }
 
-            if (lobbyPos == null) {
-                LOGGER.info("[LobbyManager] No lobby set – file will remain empty.");
-                return;
-            }
+        FightIo.run("lobbies", () -> writeLobbies(data)).whenComplete((ok, error) -> {
+            if (error != null) LOGGER.error("[LobbyManager] Error saving lobby: {}", FightIo.unwrap(error).getMessage());
+            else LOGGER.info("[LobbyManager] Saved {} lobbies.", data.lobbies.size());
+        });
+    }
 
-            LobbyData data = new LobbyData(
-                    lobbyPos.getX(),
-                    lobbyPos.getY(),
-                    lobbyPos.getZ(),
-                    lobbyWorld
-            );
+    private static void writeLobbies(LobbyFile data) throws IOException {
+        File dir = LOBBY_FILE.getParentFile();
+        if (!dir.exists()) dir.mkdirs();
 
-            FileWriter writer = new FileWriter(LOBBY_FILE);
+        Path target = LOBBY_FILE.toPath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
             GSON.toJson(data, writer);
-            writer.flush();
-            writer.close();
+        }
+        moveAtomically(tmp, target);
+    }
 
-            LOGGER.info("[LobbyManager] Lobby saved at {} in world {}.", formatPos(lobbyPos), lobbyWorld);
-        } catch (Exception e) {
-            LOGGER.error("[LobbyManager] Error saving lobby: {}", e.getMessage());
+    private static void moveAtomically(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
-    // === INNER DATA CLASS ===
+    // === INNER DATA CLASSES ===
 
-    private static class LobbyData {
-        int x, y, z;
+    private static class LobbyFile {
+        int version;
+        List<LobbyPoint> lobbies;
+    }
+
+    static class LobbyPoint {
+        String name;
         String world;
+        int x, y, z;
+        transient int occupancy;
+
+        LobbyPoint() {} // required for Gson
 
-        public LobbyData(int x, int y, int z, String world) {
+        LobbyPoint(String name, String world, int x, int y, int z) {
+            this.name = name;
+            this.world = world;
             this.x = x;
             this.y = y;
             this.z = z;
-            this.world = world;
+        }
+    }
+
+    /** A player counted towards a lobby, with their last checked block position. */
+    private static class Occupant {
+        LobbyPoint lobby;
+        long lastBlockPos = Long.MIN_VALUE;
+
+        Occupant(LobbyPoint lobby) {
+            this.lobby = lobby;
         }
     }
 
     // === HELPER METHODS ===
 
+    private static void index(LobbyPoint lobby) {
+        LOBBIES.put(key(lobby.name), lobby);
+        LOBBIES_BY_WORLD.computeIfAbsent(lobby.world, w -> new ArrayList<>()).add(lobby);
+    }
+
+    private static void unindex(LobbyPoint lobby) {
+        LOBBIES.remove(key(lobby.name));
+        List<LobbyPoint> inWorld = LOBBIES_BY_WORLD.get(lobby.world);
+        if (inWorld != null) {
+            inWorld.remove(lobby);
+            if (inWorld.isEmpty()) LOBBIES_BY_WORLD.remove(lobby.world);
+        }
+    }
+
+    private static ServerLevel resolveLevel(MinecraftServer server, String world) {
+        ResourceLocation id = world == null ? null : ResourceLocation.tryParse(world);
+        if (id == null) return server.getLevel(Level.OVERWORLD);
+        return server.getLevel(ResourceKey.create(Registries.DIMENSION, id));
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
     private static String formatPos(BlockPos pos) {
         return pos == null ? "(null)" : pos.getX() + " " + pos.getY() + " " + pos.getZ();
     }
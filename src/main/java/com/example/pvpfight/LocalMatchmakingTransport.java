@@ -0,0 +1,91 @@
+package com.example.pvpfight;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LocalMatchmakingTransport.java
+ *
+ * In-process transport. On a single server it has no peers, so nothing is ever
+ * routed. Several instances sharing one {@link Hub} behave like separate nodes,
+ * which lets routing be exercised without a network.
+ */
+public class LocalMatchmakingTransport implements MatchmakingTransport {
+
+    /** Loads older than this are ignored. */
+    static final long STALE_MILLIS = 10_000L;
+
+    private static final Hub DEFAULT_HUB = new Hub();
+
+    private final String nodeId;
+    private final Hub hub;
+
+    public LocalMatchmakingTransport(String nodeId) {
+        this(nodeId, DEFAULT_HUB);
+    }
+
+    public LocalMatchmakingTransport(String nodeId, Hub hub) {
+        this.nodeId = nodeId;
+        this.hub = hub;
+        hub.inboxes.put(nodeId, new RoutedPairInbox());
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publishLoad(int freeArenas, int queuedPairs) {
+        hub.loads.put(nodeId, new NodeLoad(nodeId, freeArenas, queuedPairs, System.currentTimeMillis()));
+    }
+
+    @Override
+    public Collection<NodeLoad> peers() {
+        long cutoff = System.currentTimeMillis() - STALE_MILLIS;
+        List<NodeLoad> peers = new ArrayList<>();
+        for (NodeLoad load : hub.loads.values()) {
+            if (!load.nodeId().equals(nodeId) && load.updatedAtMillis() >= cutoff) peers.add(load);
+        }
+        return peers;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> routePair(RoutedPair pair) {
+        RoutedPairInbox inbox = hub.inboxes.get(pair.toNode());
+        if (inbox != null) inbox.add(pair);
+        return CompletableFuture.completedFuture(inbox != null);
+    }
+
+    @Override
+    public RoutedPair claimRouted(UUID player) {
+        return hub.inboxes.get(nodeId).claim(player);
+    }
+
+    @Override
+    public List<RoutedPair> pollArrived() {
+        return hub.inboxes.get(nodeId).pollArrived();
+    }
+
+    @Override
+    public List<RoutedPair> pollExpired() {
+        return hub.inboxes.get(nodeId).pollExpired();
+    }
+
+    @Override
+    public void close() {
+        hub.loads.remove(nodeId);
+        hub.inboxes.remove(nodeId);
+    }
+
+    /** Shared state of all in-process nodes. */
+    public static final class Hub {
+        final Map<String, NodeLoad> loads = new ConcurrentHashMap<>();
+        final Map<String, RoutedPairInbox> inboxes = new ConcurrentHashMap<>();
+    }
+}
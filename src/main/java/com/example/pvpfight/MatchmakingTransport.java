@@ -0,0 +1,79 @@
+package com.example.pvpfight;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * MatchmakingTransport.java
+ *
+ * Shares queue state and arena availability between the Forge backends behind
+ * one proxy, so a queued pair on a busy node can be routed to a node with idle arenas.
+ *
+ *  - Every node publishes its load (free arenas, queued pairs) periodically.
+ *  - A node that cannot place a pair offers it to the least-loaded peer with a
+ *    {@link RoutedPair}; it keeps the pair queued until the peer acknowledges the
+ *    route and only then moves both players there through the proxy.
+ *  - The receiving node claims the pair when the players log in (or right away if
+ *    they are already online) and starts the fight.
+ *
+ * Implementations: {@link LocalMatchmakingTransport} (in-process, single server
+ * and tests) and {@link SocketMatchmakingTransport} (TCP between nodes).
+ * Callbacks may run on I/O threads; all methods must be thread-safe.
+ */
+public interface MatchmakingTransport extends AutoCloseable {
+
+    /** Load snapshot of one node. */
+    record NodeLoad(String nodeId, int freeArenas, int queuedPairs, long updatedAtMillis) {}
+
+    /** A queued pair handed from one node to another. */
+    record RoutedPair(UUID challenger, UUID target, String arenaTag, String fromNode, String toNode) {
+
+        public boolean involves(UUID player) {
+            return challenger.equals(player) || target.equals(player);
+        }
+    }
+
+    enum Type { LOCAL, SOCKET }
+
+    /** Name of this node (the proxy's server name, used for routing). */
+    String nodeId();
+
+    /** Publishes this node's current load to the peers. */
+    void publishLoad(int freeArenas, int queuedPairs);
+
+    /** Latest known load of every other node that reported recently. */
+    Collection<NodeLoad> peers();
+
+    /**
+     * Offers a pair to {@code pair.toNode()}. Completes with true once that node has
+     * put it into its inbox, false if it did not acknowledge in time.
+     */
+    CompletableFuture<Boolean> routePair(RoutedPair pair);
+
+    /**
+     * Returns (and removes) the pair routed to this node that involves the
+     * player, once both of its players have called this; null otherwise.
+     */
+    RoutedPair claimRouted(UUID player);
+
+    /** Pairs routed to this node since the last call. */
+    List<RoutedPair> pollArrived();
+
+    /** Pairs routed to this node that expired unclaimed since the last call. */
+    List<RoutedPair> pollExpired();
+
+    @Override
+    void close();
+
+    /** Builds the transport selected in the config. */
+    static MatchmakingTransport create() {
+        String nodeId = Config.getNodeId();
+        if (Config.getMatchmakingTransport() == Type.SOCKET) {
+            return new SocketMatchmakingTransport(nodeId, Config.getMatchmakingBindAddress(), Config.getMatchmakingPort(),
+                    Config.getMatchmakingPeers(), Config.getMatchmakingSecret());
+        }
+        return new LocalMatchmakingTransport(nodeId);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.pvpfight;
+
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * NameTrie.java
+ *
+ * Case-insensitive prefix trie of display names, for command suggestions.
+ * Prefix walks visit names in lexicographic order, so suggestions need no
+ * sorting and no intermediate list.
+ */
+final class NameTrie {
+
+    private final Node root = new Node();
+    private int size;
+
+    /** Adds (or renames) the entry for a name. */
+    void add(String name) {
+        Node node = root;
+        String key = name.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+        }
+        if (node.name == null) size++;
+        node.name = name;
+    }
+
+    /** Removes a name; empty branches are pruned. */
+    void remove(String name) {
+        if (remove(root, name.toLowerCase(Locale.ROOT), 0)) size--;
+    }
+
+    private static boolean remove(Node node, String key, int depth) {
+        if (depth == key.length()) {
+            if (node.name == null) return false;
+            node.name = null;
+            return true;
+        }
+        Node child = node.children.get(key.charAt(depth));
+        if (child == null || !remove(child, key, depth + 1)) return false;
+        if (child.name == null && child.children.isEmpty()) node.children.remove(key.charAt(depth));
+        return true;
+    }
+
+    void clear() {
+        root.children.clear();
+        root.name = null;
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Visits up to {@code limit} names starting with {@code prefix} (case-insensitive), in order.
+     */
+    void forEachWithPrefix(String prefix, int limit, Consumer<String> action) {
+        Node node = root;
+        String key = prefix.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < key.length() && node != null; i++) node = node.children.get(key.charAt(i));
+        if (node != null) walk(node, new int[] { limit }, action);
+    }
+
+    private static void walk(Node node, int[] remaining, Consumer<String> action) {
+        if (node.name != null) {
+            action.accept(node.name);
+            if (--remaining[0] <= 0) return;
+        }
+        for (Node child : node.children.values()) {
+            walk(child, remaining, action);
+            if (remaining[0] <= 0) return;
+        }
+    }
+
+    private static final class Node {
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        String name;
+    }
+}
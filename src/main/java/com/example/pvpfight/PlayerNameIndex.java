@@ -0,0 +1,64 @@
+package com.example.pvpfight;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * PlayerNameIndex.java
+ *
+ * Online players by name: a case-insensitive name → UUID map for O(1) command
+ * resolution and a {@link NameTrie} for prefix suggestions. Updated on login and
+ * logout (server thread).
+ */
+public final class PlayerNameIndex {
+
+    /** Max. suggestions per keystroke. */
+    public static final int SUGGESTION_LIMIT = 50;
+
+    private static final Map<String, UUID> BY_NAME = new HashMap<>();
+    private static final Map<UUID, String> NAMES = new HashMap<>();
+    private static final NameTrie TRIE = new NameTrie();
+
+    private PlayerNameIndex() {}
+
+    public static void add(ServerPlayer player) {
+        String name = player.getGameProfile().getName();
+        String old = NAMES.put(player.getUUID(), name);
+        if (old != null && !old.equals(name)) remove(old);
+        BY_NAME.put(name.toLowerCase(Locale.ROOT), player.getUUID());
+        TRIE.add(name);
+    }
+
+    public static void remove(ServerPlayer player) {
+        String name = NAMES.remove(player.getUUID());
+        if (name != null) remove(name);
+    }
+
+    private static void remove(String name) {
+        BY_NAME.remove(name.toLowerCase(Locale.ROOT));
+        TRIE.remove(name);
+    }
+
+    public static void clear() {
+        BY_NAME.clear();
+        NAMES.clear();
+        TRIE.clear();
+    }
+
+    /** Online player with that name (any case), or null. */
+    public static ServerPlayer resolve(MinecraftServer server, String name) {
+        UUID id = BY_NAME.get(name.toLowerCase(Locale.ROOT));
+        return id == null ? null : server.getPlayerList().getPlayer(id);
+    }
+
+    /** Online names starting with the prefix, in order, up to {@link #SUGGESTION_LIMIT}. */
+    public static void forEachWithPrefix(String prefix, Consumer<String> action) {
+        TRIE.forEachWithPrefix(prefix, SUGGESTION_LIMIT, action);
+    }
+}
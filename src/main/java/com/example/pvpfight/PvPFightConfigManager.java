@@ -2,33 +2,81 @@ package com.example.pvpfight;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
-import com.google.gson.reflect.TypeToken;
-import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
 /**
  * Handles saving and loading PvPFight settings from config/pvpfight/config.json.
  * Allows admins to modify settings without editing the JAR.
+ *
+ * The file is read once per server start on the I/O pool ({@link #loadAsync});
+ * rewards and other readers use the cached copy from {@link #current()}.
  */
 public class PvPFightConfigManager {
 
+    private static final Logger LOGGER = LogUtils.getLogger();
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private static final Path CONFIG_PATH = Path.of("config/pvpfight/config.json");
-    private static final Path ARENA_PATH = Path.of("config/pvpfight/arena_data.json");
 
-    
-    private static List<ArenaData> arenas = new ArrayList<>();
-    
+    /** Bumped whenever a stored value has to be migrated on load (see {@link #migrate}). */
+    private static final int CONFIG_VERSION = 1;
+
+    private static volatile PvPFightConfigManager current;
+
+    // === File format (0 = written before the file was versioned) ===
+    public int configVersion;
+
     // === All settings (match Config.java values) ===
     public int requestTimeoutSeconds = 15;
     public int countdownSeconds = 3;
     public int postWinInvulnerabilitySeconds = 5;
     public boolean allowEnvironmentDamage = false;
-    public boolean forfeitOnLeaveArena = true;
+    public boolean forfeitOnLeaveArena = false;
+    public int arenaBoundsMargin = 2;
+    public boolean friendlyFire = false;
     public boolean announceToAll = true;
+    public int teardownBudgetMicros = 2000;
+    public String arenaStorageFormat = "json";
+    public String arenaSelectionPolicy = "least_recently_used";
+    public int arenaGenerationBudgetMicros = 5000;
+    // === Instanced arenas ===
+    public boolean instancedArenas = false;
+    public String instanceTemplates = "";
+    public int maxInstances = 64;
+    public int instanceCellSize = 256;
+    public int instanceIdleMinutes = 10;
+    // === Cross-server matchmaking ===
+    public String matchmakingTransport = "local";
+    public String nodeId = "pvp-1";
+    public int matchmakingPort = 25590;
+    public String matchmakingPeers = "";
+    public String matchmakingBindAddress = "127.0.0.1";
+    public String matchmakingSecret = "";
+    // === Command rate limits ===
+    public boolean rateLimitEnabled = true;
+    public int challengeBurst = 3;
+    public int challengesPerMinute = 6;
+    public int responseBurst = 10;
+    public int responsesPerMinute = 30;
+    // === Combat telemetry ===
+    public boolean combatTelemetry = true;
+    public double reachFlagBlocks = 3.4;
+    public int cpsFlag = 16;
+    public int snapFlagDegrees = 60;
+    // === Replays ===
+    public boolean replayRecording = true;
+    public int replayBudgetKb = 256;
+    public int replayRetention = 200;
+    // === Tournaments ===
+    public int tournamentNoShowSeconds = 120;
     // === Rewards ===
     public int winnerXp = 100;
     public int loserXp = 25;
@@ -51,117 +99,142 @@ public class PvPFightConfigManager {
             "minecraft:apple"
     );
 
-    /** Loads configuration or creates a default one if missing. */
+    /** Reads config.json on the I/O pool and caches it; completes with the loaded config. */
+    public static CompletableFuture<PvPFightConfigManager> loadAsync() {
+        return FightIo.supply("config", PvPFightConfigManager::loadOrCreate);
+    }
+
+    /** The config loaded at server start (read synchronously if nothing was loaded yet). */
+    public static PvPFightConfigManager current() {
+        PvPFightConfigManager cfg = current;
+        return cfg != null ? cfg : loadOrCreate();
+    }
+
+    /**
+     * Loads configuration or creates a default one if missing, and caches it.
+     * Blocking – prefer {@link #loadAsync()} on the server thread.
+     */
     public static PvPFightConfigManager loadOrCreate() {
+        PvPFightConfigManager cfg;
         try {
             if (Files.notExists(CONFIG_PATH)) {
                 Files.createDirectories(CONFIG_PATH.getParent());
-                PvPFightConfigManager defaults = new PvPFightConfigManager();
-                save(defaults);
-                return defaults;
-            }
-            try (Reader reader = Files.newBufferedReader(CONFIG_PATH)) {
-                return GSON.fromJson(reader, PvPFightConfigManager.class);
+                cfg = new PvPFightConfigManager();
+                cfg.configVersion = CONFIG_VERSION;
+                write(GSON.toJson(cfg));
+            } else {
+                try (Reader reader = Files.newBufferedReader(CONFIG_PATH)) {
+                    cfg = GSON.fromJson(reader, PvPFightConfigManager.class);
+                }
+                if (cfg == null) {
+                    cfg = new PvPFightConfigManager(); // empty file
+                    cfg.configVersion = CONFIG_VERSION;
+                }
+                if (cfg.configVersion < CONFIG_VERSION) {
+                    migrate(cfg);
+                    write(GSON.toJson(cfg));
+                }
             }
         } catch (Exception e) {
-            System.err.println("[PvPFight] Failed to load config.json: " + e.getMessage());
-            return new PvPFightConfigManager(); // fallback
+            LOGGER.error("[PvPFightConfigManager] Failed to load config.json: {}", e.getMessage());
+            cfg = new PvPFightConfigManager(); // fallback
         }
+        current = cfg;
+        return cfg;
     }
 
-    /** Saves current config to disk. */
-    public static void save(PvPFightConfigManager config) {
-        try (Writer writer = Files.newBufferedWriter(CONFIG_PATH)) {
-            GSON.toJson(config, writer);
-        } catch (Exception e) {
-            System.err.println("[PvPFight] Failed to save config.json: " + e.getMessage());
+    /**
+     * One-time upgrade of a config.json written by an older version.
+     *
+     * v1: forfeitOnLeaveArena used to be stored (true by default) but never read, so
+     * fighters leaving the arena were always teleported back. Now that it is enforced,
+     * the stored value is reset to false once to keep that behaviour; admins who want
+     * the forfeit set it to true again.
+     */
+    private static void migrate(PvPFightConfigManager cfg) {
+        if (cfg.configVersion < 1 && cfg.forfeitOnLeaveArena) {
+            cfg.forfeitOnLeaveArena = false;
+            LOGGER.warn("[PvPFightConfigManager] forfeitOnLeaveArena was saved as true but never enforced before; "
+                    + "reset to false so leaving the arena still teleports fighters back. "
+                    + "Set it to true in config/pvpfight/config.json to make leaving the arena a forfeit.");
         }
+        cfg.configVersion = CONFIG_VERSION;
     }
-    /** Loads all arenas from arena_data.json (creates file if missing). */
-    public static void loadArenas() {
-        try {
-            if (Files.notExists(ARENA_PATH)) {
-                Files.createDirectories(ARENA_PATH.getParent());
-                Files.createFile(ARENA_PATH);
-                saveArenas(); // create empty file
-                System.out.println("[PvPFight] Created new arena_data.json");
-                return;
-            }
 
-            try (Reader reader = Files.newBufferedReader(ARENA_PATH)) {
-                Type listType = new TypeToken<List<ArenaData>>() {}.getType();
-                List<ArenaData> loaded = GSON.fromJson(reader, listType);
-                if (loaded != null) arenas = loaded;
-                System.out.println("[PvPFight] Loaded " + arenas.size() + " arenas from arena_data.json");
+    /** Saves the config on the I/O pool (serialized here, written off-thread) and caches it. */
+    public static CompletableFuture<Void> save(PvPFightConfigManager config) {
+        current = config;
+        String json = GSON.toJson(config);
+        CompletableFuture<Void> write = FightIo.run("config", () -> write(json));
+        write.whenComplete((ok, error) -> {
+            if (error != null) {
+                LOGGER.error("[PvPFightConfigManager] Failed to save config.json: {}", FightIo.unwrap(error).getMessage());
             }
+        });
+        return write;
+    }
 
-        } catch (Exception e) {
-            System.err.println("[PvPFight] Failed to load arena_data.json: " + e.getMessage());
+    private static void write(String json) throws IOException {
+        Files.createDirectories(CONFIG_PATH.getParent());
+        Path tmp = CONFIG_PATH.resolveSibling(CONFIG_PATH.getFileName() + ".tmp");
+        Files.writeString(tmp, json, StandardCharsets.UTF_8);
+        try {
+            Files.move(tmp, CONFIG_PATH, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, CONFIG_PATH, StandardCopyOption.REPLACE_EXISTING);
         }
     }
+    // === Arenas ===
+    // arena_data.json used to be a second, separate arena list. It is merged into
+    // the single ArenaStore on load; these helpers delegate to ArenaDataMulti.
 
-    /** Saves all current arenas to arena_data.json. */
+    /** Loads the arena store (migrating arena_data.json if it still exists). */
+    public static void loadArenas() {
+        ArenaDataMulti.loadArenas();
+    }
+
+    /** Saves the arena store. */
     public static void saveArenas() {
-        try (Writer writer = Files.newBufferedWriter(ARENA_PATH)) {
-            GSON.toJson(arenas, writer);
-        } catch (Exception e) {
-            System.err.println("[PvPFight] Failed to save arena_data.json: " + e.getMessage());
-        }
+        ArenaDataMulti.saveArenas();
     }
+
     /** Returns all loaded arenas. */
     public static List<ArenaData> getArenas() {
-        return arenas;
+        return ArenaDataMulti.getAllArenas();
     }
 
     /** Finds an arena by name (case-insensitive). */
     public static ArenaData getArena(String name) {
-        for (ArenaData arena : arenas) {
-            if (arena.name.equalsIgnoreCase(name)) {
-                return arena;
-            }
-        }
-        return null;
+        return ArenaDataMulti.getArena(name);
     }
 
-    /** Adds or replaces an arena in the list and saves immediately. */
+    /** Adds or replaces an arena and saves immediately. */
     public static void addOrUpdateArena(ArenaData arena) {
-        for (int i = 0; i < arenas.size(); i++) {
-            if (arenas.get(i).name.equalsIgnoreCase(arena.name)) {
-                arenas.set(i, arena);
-                saveArenas();
-                System.out.println("[PvPFight] Updated arena: " + arena.name);
-                return;
-            }
-        }
-        arenas.add(arena);
-        saveArenas();
-        System.out.println("[PvPFight] Added new arena: " + arena.name);
+        ArenaDataMulti.registerArena(arena);
+        ArenaDataMulti.saveArenas();
     }
 
     /** Removes an arena by name. */
     public static boolean removeArena(String name) {
-        boolean removed = arenas.removeIf(a -> a.name.equalsIgnoreCase(name));
-        if (removed) saveArenas();
-        return removed;
+        return ArenaDataMulti.removeArena(name);
     }
     // ... all your existing code (loadArenas, saveArenas, getArenas, etc.)
 
-    /** Loads both config.json and arena_data.json at once. */
+    /** Loads config.json and the arena store at once (blocking). */
     public static void initializeAllConfigs() {
-        loadOrCreate(); // loads main config.json
-        loadArenas();   // loads arena_data.json
+        loadOrCreate(); // loads and caches main config.json
+        loadArenas();   // loads the arena store
     }
     // === Utility: Pick a random reward from the pool ===
     public static String getRandomReward(boolean isWinner) {
-        PvPFightConfigManager cfg = loadOrCreate();
+        PvPFightConfigManager cfg = current();
         List<String> pool = isWinner ? cfg.winnerItemPool : cfg.loserItemPool;
 
         if (pool == null || pool.isEmpty()) {
             return isWinner ? cfg.winnerItem : cfg.loserItem;
         }
 
-        java.util.Random rand = new java.util.Random();
-        return pool.get(rand.nextInt(pool.size()));
+        return pool.get(java.util.concurrent.ThreadLocalRandom.current().nextInt(pool.size()));
     }
 
 
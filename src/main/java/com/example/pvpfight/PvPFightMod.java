@@ -2,6 +2,7 @@ package com.example.pvpfight;
 
 import com.mojang.logging.LogUtils;
 import net.minecraftforge.event.RegisterCommandsEvent;
+import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.server.ServerStartingEvent;
 import net.minecraftforge.event.server.ServerStoppingEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
@@ -13,6 +14,9 @@ import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 
 @Mod(PvPFightMod.MODID)
 @Mod.EventBusSubscriber(modid = PvPFightMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
@@ -24,17 +28,22 @@ import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
         private static FightManager fightManager;
         private static ArenaDataMulti arenaDataMulti;
         private static LobbyManager lobbyManager;
+        private static ArenaGenerator arenaGenerator;
+        private static TournamentManager tournamentManager;
         private static Config config;
 
         public PvPFightMod() {
         IEventBus modEventBus = FMLJavaModLoadingContext.get().getModEventBus();
         MinecraftForge.EVENT_BUS.register(this);
+        ModLoadingContext.get().registerConfig(ModConfig.Type.SERVER, Config.SPEC);
 
         // Initialize managers once at startup
         arenaDataMulti = new ArenaDataMulti();
         lobbyManager = new LobbyManager();
         config = new Config();
         fightManager = new FightManager(arenaDataMulti, lobbyManager);
+        arenaGenerator = new ArenaGenerator();
+        tournamentManager = new TournamentManager(fightManager);
 
         LOGGER.info("[PvPFightMod] Initialized all core managers successfully.");
     }
@@ -56,6 +65,14 @@ import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
         return lobbyManager;
     }
 
+    public static ArenaGenerator getArenaGenerator() {
+        return arenaGenerator;
+    }
+
+    public static TournamentManager getTournamentManager() {
+        return tournamentManager;
+    }
+
     // 🔧 Command Registration
     @SubscribeEvent
     public static void onRegisterCommands(RegisterCommandsEvent event) {
@@ -64,21 +81,71 @@ import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
         LOGGER.info("[PvPFight] Commands registered successfully.");
     }
 
+    // ⏱ Fight lifecycle (warm-up, countdown), tournaments, budgeted arena generation and replay playback
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || fightManager == null) return;
+        fightManager.tick(event.getServer());
+        tournamentManager.tick();
+        arenaGenerator.tick(Config.getArenaGenerationBudgetMicros() * 1000L);
+        FightReplays.tick();
+    }
+
     // 🧱 Server Startup
     @SubscribeEvent
     public static void onServerStarting(ServerStartingEvent event) {
         LOGGER.info("[PvPFight] Server is starting. Loading configuration and arena data...");
+        long startNanos = System.nanoTime();
+        PlayerNameIndex.clear();
+        RateLimiter.resetAll();
+
+        // The stores are independent: read and parse them concurrently on the I/O
+        // pool, then apply them here on the server thread (before any player can join).
+        CompletableFuture<PvPFightConfigManager> configLoad = PvPFightConfigManager.loadAsync();
+        CompletableFuture<ArenaStore.Loaded> arenaLoad = FightIo.supply("arenas", ArenaStore::load);
+        CompletableFuture<List<LobbyManager.LobbyPoint>> lobbyLoad = FightIo.supply("lobbies", LobbyManager::readLobbies);
 
         try {
             // ✅ Load PvPFight config from /config/pvpfight/config.json
-            PvPFightConfigManager cfg = PvPFightConfigManager.loadOrCreate();
+            PvPFightConfigManager cfg = configLoad.join();
 
             Config.requestTimeoutSeconds.set(cfg.requestTimeoutSeconds);
             Config.countdownSeconds.set(cfg.countdownSeconds);
             Config.postWinInvulnerabilitySeconds.set(cfg.postWinInvulnerabilitySeconds);
             Config.allowEnvironmentDamage.set(cfg.allowEnvironmentDamage);
             Config.forfeitOnLeaveArena.set(cfg.forfeitOnLeaveArena);
+            Config.arenaBoundsMargin.set(cfg.arenaBoundsMargin);
+            Config.friendlyFire.set(cfg.friendlyFire);
             Config.announceToAll.set(cfg.announceToAll);
+            Config.teardownBudgetMicros.set(cfg.teardownBudgetMicros);
+            Config.arenaStorageFormat.set(ArenaStore.Format.parse(cfg.arenaStorageFormat));
+            Config.arenaSelectionPolicy.set(ArenaSelectionPolicy.Type.parse(cfg.arenaSelectionPolicy));
+            Config.arenaGenerationBudgetMicros.set(cfg.arenaGenerationBudgetMicros);
+            Config.instancedArenas.set(cfg.instancedArenas);
+            Config.instanceTemplates.set(cfg.instanceTemplates);
+            Config.maxInstances.set(cfg.maxInstances);
+            Config.instanceCellSize.set(cfg.instanceCellSize);
+            Config.instanceIdleMinutes.set(cfg.instanceIdleMinutes);
+            Config.matchmakingTransport.set("socket".equalsIgnoreCase(cfg.matchmakingTransport)
+                    ? MatchmakingTransport.Type.SOCKET : MatchmakingTransport.Type.LOCAL);
+            Config.nodeId.set(cfg.nodeId);
+            Config.matchmakingPort.set(cfg.matchmakingPort);
+            Config.matchmakingPeers.set(cfg.matchmakingPeers);
+            Config.matchmakingBindAddress.set(cfg.matchmakingBindAddress);
+            Config.matchmakingSecret.set(cfg.matchmakingSecret);
+            Config.rateLimitEnabled.set(cfg.rateLimitEnabled);
+            Config.challengeBurst.set(cfg.challengeBurst);
+            Config.challengesPerMinute.set(cfg.challengesPerMinute);
+            Config.responseBurst.set(cfg.responseBurst);
+            Config.responsesPerMinute.set(cfg.responsesPerMinute);
+            Config.combatTelemetry.set(cfg.combatTelemetry);
+            Config.reachFlagBlocks.set(cfg.reachFlagBlocks);
+            Config.cpsFlag.set(cfg.cpsFlag);
+            Config.snapFlagDegrees.set(cfg.snapFlagDegrees);
+            Config.replayRecording.set(cfg.replayRecording);
+            Config.replayBudgetKb.set(cfg.replayBudgetKb);
+            Config.replayRetention.set(cfg.replayRetention);
+            Config.tournamentNoShowSeconds.set(cfg.tournamentNoShowSeconds);
             Config.winnerXp.set(cfg.winnerXp);
             Config.loserXp.set(cfg.loserXp);
             Config.winnerItem.set(cfg.winnerItem);
@@ -86,11 +153,39 @@ import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 
             LOGGER.info("[PvPFight] All configurations, arenas, and lobby loaded successfully.");
         } catch (Exception e) {
-            LOGGER.error("[PvPFight] Error during server startup: {}", e.getMessage());
-            e.printStackTrace();
+            LOGGER.error("[PvPFight] Error during server startup", e);
+        }
+        try {
+            ArenaDataMulti.applyLoaded(arenaLoad.join());
+        } catch (Exception e) {
+            LOGGER.error("[PvPFight] Error loading arenas, falling back to a synchronous load", e);
+            ArenaDataMulti.loadArenas();
         }
-        ArenaDataMulti.loadArenas();
 
-        LobbyManager.loadLobby();
+        try {
+            LobbyManager.applyLobbies(lobbyLoad.join());
+        } catch (Exception e) {
+            LOGGER.error("[PvPFight] Error loading lobbies, falling back to a synchronous load", e);
+            LobbyManager.loadLobby();
+        }
+        LOGGER.info("[PvPFight] Stores loaded in {} ms.", (System.nanoTime() - startNanos) / 1_000_000);
+
+        fightManager.recover();
+
+        try {
+            fightManager.setTransport(MatchmakingTransport.create());
+        } catch (Exception e) {
+            LOGGER.error("[PvPFight] Matchmaking transport failed to start, using local only: {}", e.getMessage());
+            fightManager.setTransport(new LocalMatchmakingTransport(Config.getNodeId()));
+        }
+    }
+
+    // 🛑 Server Shutdown – drop the tournament (no new matches), finish all pending teardowns
+    // so nobody keeps fight inventories, then wait for the saves they queued
+    @SubscribeEvent
+    public static void onServerStopping(ServerStoppingEvent event) {
+        if (tournamentManager != null) tournamentManager.clear();
+        if (fightManager != null) fightManager.shutdown();
+        FightIo.drain();
     }
 }
@@ -0,0 +1,134 @@
+package com.example.pvpfight;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+
+/**
+ * RateLimiter.java
+ *
+ * Per-player token buckets for one command group, keyed by the player's UUID
+ * (folded to a long, msb ^ lsb), so relogging does not hand out a fresh bucket.
+ * A bucket holds up to {@code burst} tokens and refills {@code perMinute} tokens
+ * per minute; every call takes one token.
+ *
+ *  - Ops (permission level 2+) and non-player sources are never limited.
+ *  - A rejection only bumps a counter and sends one cached component.
+ *  - Idle buckets are expired lazily: at most once per {@link #SWEEP_INTERVAL_NANOS},
+ *    an acquire drops every bucket that has refilled completely (same as absent).
+ *
+ * Server thread only.
+ */
+public final class RateLimiter {
+
+    /** Challenges: /fight <player> [tag]. */
+    public static final RateLimiter CHALLENGE =
+            new RateLimiter("challenge", Config::getChallengeBurst, Config::getChallengesPerMinute);
+    /** Answers and queries: accept, deny, cancel, queue, spectate. */
+    public static final RateLimiter RESPONSE =
+            new RateLimiter("response", Config::getResponseBurst, Config::getResponsesPerMinute);
+
+    private static final List<RateLimiter> ALL = List.of(CHALLENGE, RESPONSE);
+    private static final Component REJECTED = Component.literal("§cYou're doing that too fast. Please wait a moment.");
+    private static final long SWEEP_INTERVAL_NANOS = 60_000_000_000L;
+
+    private final String name;
+    private final IntSupplier burst;
+    private final IntSupplier perMinute;
+    private final Long2ObjectOpenHashMap<Bucket> buckets = new Long2ObjectOpenHashMap<>();
+    private long lastSweepNanos = System.nanoTime();
+    private long allowed;
+    private long rejected;
+
+    private RateLimiter(String name, IntSupplier burst, IntSupplier perMinute) {
+        this.name = name;
+        this.burst = burst;
+        this.perMinute = perMinute;
+    }
+
+    /**
+     * Takes a token for the command source; on rejection tells the player and returns false.
+     */
+    public boolean tryAcquire(CommandSourceStack source) {
+        ServerPlayer player = source.getPlayer();
+        if (player == null || source.hasPermission(2) || !Config.isRateLimitEnabled()) return true;
+        if (tryAcquire(key(player.getUUID()), System.nanoTime())) return true;
+        player.sendSystemMessage(REJECTED);
+        return false;
+    }
+
+    boolean tryAcquire(long playerKey, long nowNanos) {
+        int capacity = burst.getAsInt();
+        double perNano = perMinute.getAsInt() / 60_000_000_000.0;
+        if (nowNanos - lastSweepNanos >= SWEEP_INTERVAL_NANOS) sweep(nowNanos, capacity, perNano);
+
+        Bucket bucket = buckets.get(playerKey);
+        if (bucket == null) {
+            bucket = new Bucket(capacity, nowNanos);
+            buckets.put(playerKey, bucket);
+        } else {
+            double refill = (nowNanos - bucket.lastNanos) * perNano;
+            bucket.tokens = Math.min(capacity, bucket.tokens + refill);
+            bucket.lastNanos = nowNanos;
+        }
+        if (bucket.tokens >= 1.0) {
+            bucket.tokens -= 1.0;
+            allowed++;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    /** Drops buckets that would be full by now; a new bucket starts full anyway. */
+    private void sweep(long nowNanos, int capacity, double perNano) {
+        lastSweepNanos = nowNanos;
+        buckets.values().removeIf(b -> b.tokens + (nowNanos - b.lastNanos) * perNano >= capacity);
+    }
+
+    private static long key(UUID id) {
+        return id.getMostSignificantBits() ^ id.getLeastSignificantBits();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getAllowed() {
+        return allowed;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    /** Limiters and their counters, for /fight metrics. */
+    public static List<RateLimiter> all() {
+        return ALL;
+    }
+
+    /** Resets buckets and counters (server start). */
+    public static void resetAll() {
+        for (RateLimiter limiter : ALL) {
+            limiter.buckets.clear();
+            limiter.lastSweepNanos = System.nanoTime();
+            limiter.allowed = 0;
+            limiter.rejected = 0;
+        }
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long lastNanos;
+
+        Bucket(double tokens, long lastNanos) {
+            this.tokens = tokens;
+            this.lastNanos = lastNanos;
+        }
+    }
+}
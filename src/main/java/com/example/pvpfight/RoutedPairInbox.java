@@ -0,0 +1,89 @@
+package com.example.pvpfight;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * RoutedPairInbox.java
+ *
+ * Pairs routed to this node, waiting for both players to arrive through the proxy.
+ * Entries that are not claimed within {@link #EXPIRY_MILLIS} are dropped; new and
+ * dropped entries are handed to the server thread by {@link #pollArrived()} and
+ * {@link #pollExpired()}.
+ */
+final class RoutedPairInbox {
+
+    static final long EXPIRY_MILLIS = 60_000L;
+
+    private final Map<UUID, Entry> byPlayer = new HashMap<>();
+    private final List<MatchmakingTransport.RoutedPair> arrived = new ArrayList<>();
+    private final List<MatchmakingTransport.RoutedPair> expired = new ArrayList<>();
+
+    synchronized void add(MatchmakingTransport.RoutedPair pair) {
+        Entry entry = new Entry(pair, System.currentTimeMillis());
+        byPlayer.put(pair.challenger(), entry);
+        byPlayer.put(pair.target(), entry);
+        arrived.add(pair);
+    }
+
+    /** Marks the player as arrived; returns the pair once both have arrived. */
+    synchronized MatchmakingTransport.RoutedPair claim(UUID player) {
+        expire();
+        Entry entry = byPlayer.get(player);
+        if (entry == null) return null;
+        entry.arrived.add(player);
+        if (entry.arrived.size() < 2) return null;
+        byPlayer.remove(entry.pair.challenger());
+        byPlayer.remove(entry.pair.target());
+        return entry.pair;
+    }
+
+    /** Pairs added since the last call (their players may already be online). */
+    synchronized List<MatchmakingTransport.RoutedPair> pollArrived() {
+        if (arrived.isEmpty()) return List.of();
+        List<MatchmakingTransport.RoutedPair> result = new ArrayList<>(arrived);
+        arrived.clear();
+        return result;
+    }
+
+    /** Pairs dropped unclaimed since the last call. */
+    synchronized List<MatchmakingTransport.RoutedPair> pollExpired() {
+        expire();
+        if (expired.isEmpty()) return List.of();
+        List<MatchmakingTransport.RoutedPair> result = new ArrayList<>(expired);
+        expired.clear();
+        return result;
+    }
+
+    private void expire() {
+        long cutoff = System.currentTimeMillis() - EXPIRY_MILLIS;
+        for (Iterator<Entry> it = byPlayer.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.createdAt >= cutoff) continue;
+            it.remove();
+            // each entry is mapped by both players; report it once
+            if (!entry.reported) {
+                entry.reported = true;
+                expired.add(entry.pair);
+            }
+        }
+    }
+
+    private static final class Entry {
+        final MatchmakingTransport.RoutedPair pair;
+        final long createdAt;
+        final Set<UUID> arrived = new HashSet<>(2);
+        boolean reported;
+
+        Entry(MatchmakingTransport.RoutedPair pair, long createdAt) {
+            this.pair = pair;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.example.pvpfight;
+
+import com.google.gson.Gson;
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * SocketMatchmakingTransport.java
+ *
+ * TCP transport between backends. Every node listens on {@code matchmakingBindAddress:matchmakingPort}
+ * and keeps one outgoing connection per configured peer ("host:port"), sending
+ * newline-delimited JSON messages:
+ *
+ *  - {"type":"load","node":...,"free":n,"queued":n,"sent":ms}   once per second
+ *  - {"type":"route","node":...,"id":...,"challenger":...,"target":...,"tag":...,"to":...,"sent":ms}
+ *  - {"type":"ack","node":...,"id":...,"to":...,"sent":ms}   the route's node has queued the pair
+ *
+ * A route whose ack does not arrive within {@link #ACK_TIMEOUT_MILLIS} counts as refused.
+ *
+ * Security:
+ *  - The port binds to loopback unless another address is configured.
+ *  - Connections from hosts that are not listed peers are closed right away.
+ *  - With a shared secret every line is "<hex HMAC-SHA256> <json>"; lines with a
+ *    wrong MAC or a send time older than {@link #MAX_AGE_MILLIS} are dropped.
+ *
+ * All network I/O runs on daemon threads; incoming connections are read on a
+ * bounded pool (extra connections are refused). Broken connections are
+ * re-established on the next heartbeat.
+ */
+public class SocketMatchmakingTransport implements MatchmakingTransport {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final Gson GSON = new Gson();
+    private static final int CONNECT_TIMEOUT_MS = 2000;
+    /** Peers send a heartbeat every second; a silent connection is dead. */
+    private static final int READ_TIMEOUT_MS = 30_000;
+    private static final long MAX_AGE_MILLIS = 30_000L;
+    private static final long ACK_TIMEOUT_MILLIS = 5_000L;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final String nodeId;
+    private final Map<String, NodeLoad> loads = new ConcurrentHashMap<>();
+    private final RoutedPairInbox inbox = new RoutedPairInbox();
+    // route id → caller waiting for the receiving node's ack
+    private final Map<String, CompletableFuture<Boolean>> pendingAcks = new ConcurrentHashMap<>();
+    private final List<Peer> peers = new ArrayList<>();
+    private final ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "PvPFight-Matchmaking");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ThreadPoolExecutor readers;
+    private final ServerSocket server;
+    // null: messages are not signed
+    private final SecretKeySpec key;
+    private volatile Message lastLoad;
+    private volatile boolean closed;
+
+    public SocketMatchmakingTransport(String nodeId, String bindAddress, int port, String peerList, String secret) {
+        this.nodeId = nodeId;
+        this.key = secret == null || secret.isEmpty()
+                ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+        for (String raw : peerList.split(",")) {
+            String address = raw.trim();
+            int colon = address.lastIndexOf(':');
+            if (colon <= 0) continue;
+            try {
+                peers.add(new Peer(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+            } catch (NumberFormatException e) {
+                LOGGER.warn("[Matchmaking] Ignoring invalid peer address '{}'", address);
+            }
+        }
+
+        // each peer needs one reader; a few spare slots cover reconnects racing old sockets
+        int maxReaders = Math.max(2, peers.size() * 2);
+        this.readers = new ThreadPoolExecutor(0, maxReaders, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, "PvPFight-Matchmaking-Read");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            ServerSocket socket = new ServerSocket();
+            socket.setReuseAddress(true);
+            socket.bind(new InetSocketAddress(InetAddress.getByName(bindAddress), port));
+            this.server = socket;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot listen on matchmaking address " + bindAddress + ":" + port, e);
+        }
+        if (key == null) {
+            LOGGER.warn("[Matchmaking] No matchmakingSecret set, messages are not authenticated (only peer addresses are checked).");
+        }
+        Thread acceptor = new Thread(this::acceptLoop, "PvPFight-Matchmaking-Accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        io.scheduleWithFixedDelay(this::heartbeat, 0, 1, TimeUnit.SECONDS);
+        LOGGER.info("[Matchmaking] Node '{}' listening on {}:{} with {} peer(s).", nodeId, bindAddress, port, peers.size());
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publishLoad(int freeArenas, int queuedPairs) {
+        Message msg = new Message();
+        msg.type = "load";
+        msg.node = nodeId;
+        msg.free = freeArenas;
+        msg.queued = queuedPairs;
+        lastLoad = msg;
+    }
+
+    @Override
+    public Collection<NodeLoad> peers() {
+        long cutoff = System.currentTimeMillis() - LocalMatchmakingTransport.STALE_MILLIS;
+        List<NodeLoad> result = new ArrayList<>();
+        for (NodeLoad load : loads.values()) {
+            if (load.updatedAtMillis() >= cutoff) result.add(load);
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> routePair(RoutedPair pair) {
+        Message msg = new Message();
+        msg.type = "route";
+        msg.node = nodeId;
+        msg.id = UUID.randomUUID().toString();
+        msg.challenger = pair.challenger().toString();
+        msg.target = pair.target().toString();
+        msg.tag = pair.arenaTag();
+        msg.to = pair.toNode();
+
+        CompletableFuture<Boolean> acked = new CompletableFuture<>();
+        pendingAcks.put(msg.id, acked);
+        try {
+            io.execute(() -> broadcast(msg));
+            io.schedule(() -> {
+                if (pendingAcks.remove(msg.id) != null) acked.complete(false);
+            }, ACK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pendingAcks.remove(msg.id);
+            acked.complete(false); // closed
+        }
+        return acked;
+    }
+
+    @Override
+    public RoutedPair claimRouted(UUID player) {
+        return inbox.claim(player);
+    }
+
+    @Override
+    public List<RoutedPair> pollArrived() {
+        return inbox.pollArrived();
+    }
+
+    @Override
+    public List<RoutedPair> pollExpired() {
+        return inbox.pollExpired();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        io.shutdownNow();
+        readers.shutdownNow();
+        try {
+            server.close();
+        } catch (IOException ignored) {
+        }
+        for (Peer peer : peers) peer.disconnect();
+        pendingAcks.values().forEach(acked -> acked.complete(false));
+        pendingAcks.clear();
+    }
+
+    // =========================================================
+    // === Outgoing
+    // =========================================================
+
+    private void heartbeat() {
+        Message load = lastLoad;
+        if (load != null) broadcast(load);
+    }
+
+    private void broadcast(Message msg) {
+        msg.sent = System.currentTimeMillis();
+        String json = GSON.toJson(msg);
+        String line = key != null ? sign(json) + " " + json : json;
+        for (Peer peer : peers) peer.send(line);
+    }
+
+    private String sign(String json) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return HexFormat.of().formatHex(mac.doFinal(json.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    private static final class Peer {
+        final String host;
+        final int port;
+        Socket socket;
+        BufferedWriter out;
+
+        Peer(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        /** Only called from the I/O thread. */
+        void send(String line) {
+            try {
+                if (out == null) {
+                    socket = new Socket();
+                    socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+                    out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                }
+                out.write(line);
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                LOGGER.debug("[Matchmaking] Peer {}:{} unreachable: {}", host, port, e.getMessage());
+                disconnect();
+            }
+        }
+
+        void disconnect() {
+            try {
+                if (socket != null) socket.close();
+            } catch (IOException ignored) {
+            }
+            socket = null;
+            out = null;
+        }
+    }
+
+    // =========================================================
+    // === Incoming
+    // =========================================================
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket client = server.accept();
+                if (!isPeer(client.getInetAddress())) {
+                    LOGGER.warn("[Matchmaking] Refused connection from {} (not a configured peer)", client.getRemoteSocketAddress());
+                    closeQuietly(client);
+                    continue;
+                }
+                try {
+                    readers.execute(() -> readLoop(client));
+                } catch (RejectedExecutionException e) {
+                    LOGGER.warn("[Matchmaking] Refused connection from {} (all {} readers busy)",
+                            client.getRemoteSocketAddress(), readers.getMaximumPoolSize());
+                    closeQuietly(client);
+                }
+            } catch (IOException e) {
+                if (!closed) LOGGER.warn("[Matchmaking] Accept failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /** Resolved on every accept so peers given by host name may change address. */
+    private boolean isPeer(InetAddress remote) {
+        for (Peer peer : peers) {
+            try {
+                for (InetAddress address : InetAddress.getAllByName(peer.host)) {
+                    if (address.equals(remote)) return true;
+                }
+            } catch (UnknownHostException ignored) {
+            }
+        }
+        return false;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void readLoop(Socket client) {
+        try (client; BufferedReader in = new BufferedReader(
+                new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8))) {
+            client.setSoTimeout(READ_TIMEOUT_MS);
+            String line;
+            while (!closed && (line = in.readLine()) != null) {
+                Message msg = verify(line);
+                if (msg == null) {
+                    LOGGER.warn("[Matchmaking] Dropped unauthenticated message from {}", client.getRemoteSocketAddress());
+                    continue;
+                }
+                handle(msg);
+            }
+        } catch (Exception e) {
+            if (!closed) LOGGER.debug("[Matchmaking] Connection from {} closed: {}", client.getRemoteSocketAddress(), e.getMessage());
+        }
+    }
+
+    /** Parses a line, checking its signature and age when a secret is set; null if rejected. */
+    private Message verify(String line) {
+        if (key == null) return GSON.fromJson(line, Message.class);
+        int space = line.indexOf(' ');
+        if (space <= 0) return null;
+        String json = line.substring(space + 1);
+        byte[] expected = sign(json).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = line.substring(0, space).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) return null;
+        Message msg = GSON.fromJson(json, Message.class);
+        if (msg == null || Math.abs(System.currentTimeMillis() - msg.sent) > MAX_AGE_MILLIS) return null;
+        return msg;
+    }
+
+    private void handle(Message msg) {
+        if (msg == null || msg.type == null || msg.node == null || msg.node.equals(nodeId)) return;
+        switch (msg.type) {
+            case "load" -> loads.put(msg.node, new NodeLoad(msg.node, msg.free, msg.queued, System.currentTimeMillis()));
+            case "route" -> {
+                if (nodeId.equals(msg.to)) {
+                    inbox.add(new RoutedPair(UUID.fromString(msg.challenger), UUID.fromString(msg.target),
+                            msg.tag, msg.node, msg.to));
+                    Message ack = new Message();
+                    ack.type = "ack";
+                    ack.node = nodeId;
+                    ack.id = msg.id;
+                    ack.to = msg.node;
+                    io.execute(() -> broadcast(ack));
+                }
+            }
+            case "ack" -> {
+                if (nodeId.equals(msg.to) && msg.id != null) {
+                    CompletableFuture<Boolean> acked = pendingAcks.remove(msg.id);
+                    if (acked != null) acked.complete(true);
+                }
+            }
+            default -> LOGGER.debug("[Matchmaking] Unknown message type '{}'", msg.type);
+        }
+    }
+
+    /** Wire format (one JSON object per line). */
+    private static final class Message {
+        String type;
+        String node;
+        String id;
+        int free;
+        int queued;
+        String challenger;
+        String target;
+        String tag;
+        String to;
+        long sent;
+    }
+}
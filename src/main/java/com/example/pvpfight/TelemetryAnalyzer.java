@@ -0,0 +1,145 @@
+package com.example.pvpfight;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TelemetryAnalyzer.java
+ *
+ * Periodically copies the {@link CombatTelemetry} rings of running fights and
+ * analyses them on a background thread:
+ *
+ *  - click rate (CPS) and the spread of click intervals (autoclickers are fast
+ *    and unnaturally regular),
+ *  - reach percentiles (eye to hitbox),
+ *  - share of hits preceded by a large one-tick rotation snap (aim assist).
+ *
+ * Outliers are reported to online ops (once per fighter and fight) back on the
+ * server thread.
+ */
+public class TelemetryAnalyzer {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    /** Ticks between two analysis rounds. */
+    static final int INTERVAL_TICKS = 100;
+    private static final int MIN_SAMPLES = 10;
+    /** Intervals longer than this are pauses, not clicking. */
+    private static final double MAX_CLICK_INTERVAL_MS = 1000;
+    /** Interval spread (ms) below which fast clicking counts as machine-regular. */
+    private static final double REGULAR_STDDEV_MS = 10;
+    private static final double REGULAR_MIN_CPS = 8;
+    private static final double SNAP_SHARE = 0.5;
+
+    private ExecutorService worker;
+
+    /** Analysis result of one fighter. */
+    record Report(double cps, double intervalStdDevMs, double reachP50, double reachP95,
+                  double snapShare, List<String> reasons) {}
+
+    /**
+     * Snapshots every fighter with new samples and queues the analysis (server thread).
+     */
+    void submit(MinecraftServer server, List<FightManager.ActiveFight> sessions) {
+        if (!Config.isCombatTelemetry()) return;
+        double reachLimit = Config.getReachFlagBlocks();
+        int cpsLimit = Config.getCpsFlag();
+        int snapDegrees = Config.getSnapFlagDegrees();
+        if (worker == null) {
+            worker = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "PvPFight-Telemetry");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        ExecutorService worker = this.worker;
+
+        for (FightManager.ActiveFight fight : sessions) {
+            if (fight.state != FightManager.FightState.ACTIVE) continue;
+            for (int i = 0; i < fight.telemetry.participants(); i++) {
+                CombatTelemetry.Snapshot snapshot = fight.telemetry.snapshot(i);
+                if (snapshot == null || snapshot.attackNanos().length < MIN_SAMPLES) continue;
+                ServerPlayer player = fight.participant(i);
+                worker.execute(() -> {
+                    Report report = analyze(snapshot, reachLimit, cpsLimit, snapDegrees);
+                    if (!report.reasons().isEmpty()) server.execute(() -> flag(server, fight, snapshot.participant(), player, report));
+                });
+            }
+        }
+    }
+
+    static Report analyze(CombatTelemetry.Snapshot s, double reachLimit, int cpsLimit, int snapDegrees) {
+        long[] times = s.attackNanos();
+
+        // click intervals within bursts
+        double sum = 0, sumSq = 0;
+        int intervals = 0;
+        for (int i = 1; i < times.length; i++) {
+            double ms = (times[i] - times[i - 1]) / 1_000_000.0;
+            if (ms <= 0 || ms > MAX_CLICK_INTERVAL_MS) continue;
+            sum += ms;
+            sumSq += ms * ms;
+            intervals++;
+        }
+        double mean = intervals > 0 ? sum / intervals : 0;
+        double stdDev = intervals > 1 ? Math.sqrt(Math.max(0, sumSq / intervals - mean * mean)) : 0;
+        double cps = mean > 0 ? 1000.0 / mean : 0;
+
+        float[] reach = s.reach().clone();
+        Arrays.sort(reach);
+        double p50 = percentile(reach, 0.50);
+        double p95 = percentile(reach, 0.95);
+
+        int snaps = 0;
+        for (float r : s.rotation()) if (r >= snapDegrees) snaps++;
+        double snapShare = (double) snaps / s.rotation().length;
+
+        List<String> reasons = new ArrayList<>(3);
+        if (intervals >= MIN_SAMPLES - 1) {
+            if (cps >= cpsLimit) reasons.add(String.format(Locale.ROOT, "%.1f CPS", cps));
+            else if (cps >= REGULAR_MIN_CPS && stdDev < REGULAR_STDDEV_MS) {
+                reasons.add(String.format(Locale.ROOT, "regular clicks (%.1f CPS, σ %.1f ms)", cps, stdDev));
+            }
+        }
+        if (p95 > reachLimit) reasons.add(String.format(Locale.ROOT, "reach p95 %.2f (p50 %.2f)", p95, p50));
+        if (snapShare > SNAP_SHARE) reasons.add(String.format(Locale.ROOT, "%.0f%% snap hits", snapShare * 100));
+        return new Report(cps, stdDev, p50, p95, snapShare, reasons);
+    }
+
+    private static double percentile(float[] sorted, double q) {
+        if (sorted.length == 0) return 0;
+        int idx = (int) Math.ceil(q * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+    }
+
+    /** Reports a fighter to online ops (server thread). */
+    private void flag(MinecraftServer server, FightManager.ActiveFight fight, int participant,
+                      ServerPlayer player, Report report) {
+        fight.telemetry.markFlagged(participant);
+        String reasons = String.join(", ", report.reasons());
+        LOGGER.warn("[TelemetryAnalyzer] Suspicious combat by {} in arena {}: {}",
+                player.getName().getString(), fight.arena.getName(), reasons);
+
+        Component alert = Component.literal("§c[PvPFight] §eSuspicious combat by §6" + player.getName().getString()
+                + " §7in arena §e" + fight.arena.getName() + "§7: " + reasons);
+        for (ServerPlayer op : server.getPlayerList().getPlayers()) {
+            if (op.hasPermissions(2)) op.sendSystemMessage(alert);
+        }
+    }
+
+    /** Stops the worker (server stop); a new one is started on demand. */
+    void shutdown() {
+        if (worker != null) worker.shutdownNow();
+        worker = null;
+    }
+}
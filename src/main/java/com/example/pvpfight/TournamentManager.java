@@ -0,0 +1,606 @@
+package com.example.pvpfight;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * TournamentManager.java
+ *
+ * Runs one tournament at a time: single elimination, double elimination or Swiss.
+ *
+ *  - Players join while the tournament is open; {@code /tournament start} seeds them
+ *    in join order and builds the bracket. Byes go to the top seeds and are settled
+ *    without an arena, so every arena use is a real match.
+ *  - A match is ready as soon as both of its entrants are known, not when its round
+ *    is over. Ready matches are started in free arenas through the normal arena pool,
+ *    highest bracket level first (longest path to the final, Hu's list scheduling),
+ *    and the next one is started as soon as a fight releases its arena.
+ *  - Results come from {@link FightEvent.Ended}. Only decisive results count
+ *    ({@link FightResult#decisive()}: a single fighter left standing). A fight ended
+ *    by an admin abort names the damage leader (ties to the first fighter), so such a
+ *    match is replayed instead, like one whose fight disappears without a result
+ *    (warm-up cancelled).
+ *  - Regular queued challenges take a freed arena before the tournament does
+ *    ({@link FightEvent.ArenaReleased} is posted after the queue had its turn).
+ *  - An entrant who stays offline for {@code tournamentNoShowSeconds} while their
+ *    match is ready loses it by walkover.
+ *  - Swiss pairs a round only once the previous one is complete (pairings need the
+ *    standings); all matches of a round run concurrently.
+ *
+ * Server thread only. Tournaments are kept in memory and dropped on server stop.
+ */
+public class TournamentManager {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    /** Entrant slot not decided yet / a bye. */
+    static final int TBD = -1;
+    static final int BYE = -2;
+    static final int MAX_ENTRANTS = 1024;
+
+    enum Format {
+        SINGLE, DOUBLE, SWISS;
+
+        /** Returns null for unknown names. */
+        public static Format parse(String value) {
+            if (value == null) return null;
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        String displayName() {
+            return switch (this) {
+                case SINGLE -> "single elimination";
+                case DOUBLE -> "double elimination";
+                case SWISS -> "Swiss";
+            };
+        }
+    }
+
+    private final FightManager fightManager;
+    private Tournament tournament;
+    private int ticks;
+
+    public TournamentManager(FightManager fightManager) {
+        this.fightManager = fightManager;
+        MinecraftForge.EVENT_BUS.register(this);
+    }
+
+    // =====================================================
+    // === Commands
+    // =====================================================
+
+    /** Opens a tournament for entries. Returns why it could not, or null. */
+    public String create(MinecraftServer server, Format format, String arenaTag) {
+        if (tournament != null) return "A tournament is already running.";
+        tournament = new Tournament(server, format, arenaTag);
+        String arenaHint = arenaTag != null ? " §7(arenas: §e" + arenaTag + "§7)" : "";
+        Util.announceToAll(server, "§6A §e" + format.displayName() + " §6tournament is open! Use §e/tournament join§6."
+                + arenaHint);
+        LOGGER.info("[TournamentManager] {} tournament created (arena tag {})", format, arenaTag);
+        return null;
+    }
+
+    public String join(ServerPlayer player) {
+        Tournament t = tournament;
+        if (t == null || t.started) return "There is no tournament open for entries.";
+        if (t.seedOf.containsKey(player.getUUID())) return "You already joined the tournament.";
+        if (t.ids.size() >= MAX_ENTRANTS) return "The tournament is full.";
+        t.seedOf.put(player.getUUID(), t.ids.size());
+        t.ids.add(player.getUUID());
+        t.names.add(player.getGameProfile().getName());
+        Util.sendMessage(player, "§aYou joined the tournament §7(" + t.ids.size() + " entrants)§a.");
+        return null;
+    }
+
+    /** Leaves before the start; entrants cannot withdraw from a running bracket. */
+    public String leave(ServerPlayer player) {
+        Tournament t = tournament;
+        if (t == null || !t.seedOf.containsKey(player.getUUID())) return "You are not in a tournament.";
+        if (t.started) return "The tournament has started; unplayed matches are lost by walkover.";
+        int seed = t.seedOf.remove(player.getUUID());
+        t.ids.remove(seed);
+        t.names.remove(seed);
+        for (int i = seed; i < t.ids.size(); i++) t.seedOf.put(t.ids.get(i), i);
+        Util.sendMessage(player, "§eYou left the tournament.");
+        return null;
+    }
+
+    /** Closes entries, builds the bracket and starts the first matches. */
+    public String start() {
+        Tournament t = tournament;
+        if (t == null) return "There is no tournament.";
+        if (t.started) return "The tournament has already started.";
+        if (t.ids.size() < 2) return "A tournament needs at least two entrants.";
+
+        t.started = true;
+        t.current = new Match[t.ids.size()];
+        switch (t.format) {
+            case SINGLE -> buildElimination(t, false);
+            case DOUBLE -> buildElimination(t, true);
+            case SWISS -> {
+                int n = t.ids.size();
+                t.points = new int[n];
+                t.hadBye = new boolean[n];
+                for (int i = 0; i < n; i++) t.opponents.add(new HashSet<>());
+                t.swissRounds = 32 - Integer.numberOfLeadingZeros(n - 1);
+                pairSwissRound(t);
+            }
+        }
+        broadcast(t, "§6The tournament has started with §e" + t.ids.size() + " §6entrants!");
+        LOGGER.info("[TournamentManager] {} tournament started: {} entrants, {} matches planned",
+                t.format, t.ids.size(), t.matches.size());
+        if (tournament == t) schedule(t);
+        return null;
+    }
+
+    /** Drops the tournament; fights already running finish as normal fights. */
+    public String cancel() {
+        if (tournament == null) return "There is no tournament.";
+        broadcast(tournament, "§cThe tournament was cancelled.");
+        LOGGER.info("[TournamentManager] Tournament cancelled.");
+        tournament = null;
+        return null;
+    }
+
+    /** Drops the tournament without messages (server stop, before fights are torn down). */
+    void clear() {
+        tournament = null;
+    }
+
+    /** The current tournament, or null (for {@link TournamentTests}). */
+    Tournament current() {
+        return tournament;
+    }
+
+    public String status() {
+        Tournament t = tournament;
+        if (t == null) return "§7There is no tournament.";
+        if (!t.started) {
+            return "§eTournament §6" + t.format.displayName() + "§e: open, §6" + t.ids.size() + " §eentrants.";
+        }
+        int played = 0;
+        for (Match m : t.matches) {
+            if (m.winner != TBD) played++;
+        }
+        String round = t.format == Format.SWISS ? " §eround §6" + t.swissRound + "/" + t.swissRounds + "§e," : "";
+        return "§eTournament §6" + t.format.displayName() + "§e:" + round + " §a" + t.running.size() + " running§e, §6"
+                + t.ready.size() + " ready§e, §7" + played + " decided, " + t.arenaSlots + " arena slots used.";
+    }
+
+    // =====================================================
+    // === Brackets
+    // =====================================================
+
+    /**
+     * Builds the winners bracket for the next power of two and, for double elimination,
+     * the losers bracket (alternating drop-in and merge rounds) and the grand final.
+     */
+    private void buildElimination(Tournament t, boolean doubleElim) {
+        int n = t.ids.size();
+        int size = 2;
+        while (size < n) size <<= 1;
+        int k = Integer.numberOfTrailingZeros(size);
+
+        Match[][] wb = new Match[k][];
+        for (int r = 0; r < k; r++) {
+            wb[r] = new Match[size >> (r + 1)];
+            for (int i = 0; i < wb[r].length; i++) {
+                Match m = wb[r][i] = t.add("W" + (r + 1));
+                if (r > 0) {
+                    wb[r - 1][2 * i].winnerTo(m, true);
+                    wb[r - 1][2 * i + 1].winnerTo(m, false);
+                }
+            }
+        }
+
+        if (doubleElim) {
+            Match lbFinal;
+            if (k == 1) {
+                lbFinal = null;
+            } else {
+                Match[] lb = new Match[size >> 2];
+                for (int i = 0; i < lb.length; i++) {
+                    lb[i] = t.add("L1");
+                    wb[0][2 * i].loserTo(lb[i], true);
+                    wb[0][2 * i + 1].loserTo(lb[i], false);
+                }
+                int lr = 1;
+                for (int j = 1; j < k; j++) {
+                    // drop-in: losers-bracket survivors meet the losers of winners round j + 1
+                    // (order reversed every other round to put off rematches)
+                    lr++;
+                    Match[] drop = new Match[lb.length];
+                    for (int i = 0; i < drop.length; i++) {
+                        drop[i] = t.add("L" + lr);
+                        lb[i].winnerTo(drop[i], true);
+                        wb[j][(j & 1) == 1 ? drop.length - 1 - i : i].loserTo(drop[i], false);
+                    }
+                    lb = drop;
+                    if (lb.length > 1) {
+                        lr++;
+                        Match[] merge = new Match[lb.length / 2];
+                        for (int i = 0; i < merge.length; i++) {
+                            merge[i] = t.add("L" + lr);
+                            lb[2 * i].winnerTo(merge[i], true);
+                            lb[2 * i + 1].winnerTo(merge[i], false);
+                        }
+                        lb = merge;
+                    }
+                }
+                lbFinal = lb[0];
+            }
+            Match gf = t.add("GF");
+            wb[k - 1][0].winnerTo(gf, true);
+            if (lbFinal != null) lbFinal.winnerTo(gf, false);
+            else wb[k - 1][0].loserTo(gf, false);
+            t.grandFinal = gf;
+        }
+
+        // successors are always created later, so one backwards pass yields the levels
+        for (int i = t.matches.size() - 1; i >= 0; i--) {
+            Match m = t.matches.get(i);
+            int next = 0;
+            if (m.winnerTo != null) next = m.winnerTo.level;
+            if (m.loserTo != null) next = Math.max(next, m.loserTo.level);
+            m.level = next + 1;
+        }
+
+        int[] order = seedOrder(size);
+        for (int i = 0; i < wb[0].length && tournament == t; i++) {
+            setSide(t, wb[0][i], true, order[2 * i] < n ? order[2 * i] : BYE);
+            setSide(t, wb[0][i], false, order[2 * i + 1] < n ? order[2 * i + 1] : BYE);
+        }
+    }
+
+    /** Standard bracket order (1 vs N, 2 vs N-1, ...), keeping top seeds apart until late rounds. */
+    private static int[] seedOrder(int size) {
+        int[] order = {0};
+        while (order.length < size) {
+            int[] next = new int[order.length * 2];
+            for (int i = 0; i < order.length; i++) {
+                next[2 * i] = order[i];
+                next[2 * i + 1] = next.length - 1 - order[i];
+            }
+            order = next;
+        }
+        return order;
+    }
+
+    private void pairSwissRound(Tournament t) {
+        int n = t.ids.size();
+        t.swissRound++;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt((Integer e) -> -t.points[e]).thenComparingInt(e -> e));
+
+        boolean[] paired = new boolean[n];
+        if ((n & 1) == 1) {
+            // bye to the lowest-ranked entrant who has not had one
+            for (int i = n - 1; i >= 0; i--) {
+                int e = order[i];
+                if (t.hadBye[e]) continue;
+                t.hadBye[e] = true;
+                t.points[e]++;
+                paired[e] = true;
+                message(t, e, "§7You have a bye this round §8(+1 point)§7.");
+                break;
+            }
+        }
+
+        List<Match> round = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int a = order[i];
+            if (paired[a]) continue;
+            int b = -1;
+            for (int j = i + 1; j < n; j++) {
+                int c = order[j];
+                if (paired[c]) continue;
+                if (b < 0) b = c; // fallback: rematch
+                if (!t.opponents.get(a).contains(c)) {
+                    b = c;
+                    break;
+                }
+            }
+            if (b < 0) break;
+            paired[a] = paired[b] = true;
+            Match m = t.add("S" + t.swissRound);
+            m.a = a;
+            m.b = b;
+            round.add(m);
+        }
+        t.openInRound = round.size();
+        broadcast(t, "§6Swiss round §e" + t.swissRound + "/" + t.swissRounds + " §6paired: §e" + round.size() + " §6matches.");
+        for (Match m : round) enqueue(t, m);
+    }
+
+    // =====================================================
+    // === Results
+    // =====================================================
+
+    private void setSide(Tournament t, Match m, boolean sideA, int entrant) {
+        if (sideA) m.a = entrant;
+        else m.b = entrant;
+        if (m.a == TBD || m.b == TBD) return;
+        if (m.a == BYE || m.b == BYE) decide(t, m, m.a == BYE ? m.b : m.a);
+        else enqueue(t, m);
+    }
+
+    private void enqueue(Tournament t, Match m) {
+        m.readyTick = ticks;
+        t.ready.add(m);
+        t.current[m.a] = m;
+        t.current[m.b] = m;
+        message(t, m.a, "§eYour tournament match vs §6" + t.names.get(m.b) + " §eis next §7(" + m.label + ")§e.");
+        message(t, m.b, "§eYour tournament match vs §6" + t.names.get(m.a) + " §eis next §7(" + m.label + ")§e.");
+    }
+
+    /** Records the winner and feeds both entrants into their next matches. */
+    void decide(Tournament t, Match m, int winner) {
+        int loser = winner == m.a ? m.b : m.a;
+        m.winner = winner;
+        if (m.a >= 0) t.current[m.a] = null;
+        if (m.b >= 0) t.current[m.b] = null;
+
+        if (t.format == Format.SWISS) {
+            t.points[winner]++;
+            t.opponents.get(winner).add(loser);
+            t.opponents.get(loser).add(winner);
+            if (--t.openInRound > 0) return;
+            if (t.swissRound < t.swissRounds) pairSwissRound(t);
+            else finishSwiss(t);
+            return;
+        }
+
+        if (m == t.grandFinal && !t.bracketReset && loser >= 0 && winner == m.b) {
+            // the losers-bracket champion handed the finalist their first loss: play again
+            t.bracketReset = true;
+            Match reset = t.add("GF2");
+            reset.level = 1;
+            t.grandFinal = reset;
+            broadcast(t, "§6Bracket reset! §e" + t.names.get(m.b) + " §6forces a second grand final.");
+            setSide(t, reset, true, m.a);
+            setSide(t, reset, false, m.b);
+            return;
+        }
+
+        if (m.winnerTo == null) {
+            finish(t, winner);
+            return;
+        }
+        if (loser >= 0 && m.loserTo == null) message(t, loser, "§7You were knocked out of the tournament.");
+        setSide(t, m.winnerTo, m.winnerToA, winner);
+        if (m.loserTo != null && tournament == t) setSide(t, m.loserTo, m.loserToA, loser);
+    }
+
+    private void walkover(Tournament t, Match m, int winner) {
+        int loser = winner == m.a ? m.b : m.a;
+        message(t, winner, "§eYour opponent did not show up. You advance by walkover.");
+        LOGGER.info("[TournamentManager] {} advances by walkover over {} ({})",
+                t.names.get(winner), t.names.get(loser), m.label);
+        decide(t, m, winner);
+    }
+
+    private void finish(Tournament t, int champion) {
+        tournament = null;
+        t.champion = champion;
+        String name = champion >= 0 ? t.names.get(champion) : "nobody";
+        broadcast(t, "§6⚔ §e" + name + " §6won the " + t.format.displayName() + " tournament! §7("
+                + t.arenaSlots + " matches played)");
+        LOGGER.info("[TournamentManager] Tournament won by {} after {} arena slots", name, t.arenaSlots);
+    }
+
+    private void finishSwiss(Tournament t) {
+        int n = t.ids.size();
+        int[] buchholz = new int[n];
+        for (int e = 0; e < n; e++) {
+            for (int o : t.opponents.get(e)) buchholz[e] += t.points[o];
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt((Integer e) -> -t.points[e])
+                .thenComparingInt(e -> -buchholz[e]).thenComparingInt(e -> e));
+        for (int i = 0; i < Math.min(3, n); i++) {
+            int e = order[i];
+            broadcast(t, "§e#" + (i + 1) + " §6" + t.names.get(e) + " §7(" + t.points[e] + " points, Buchholz "
+                    + buchholz[e] + ")");
+        }
+        finish(t, order[0]);
+    }
+
+    // =====================================================
+    // === Scheduling
+    // =====================================================
+
+    /**
+     * Starts ready matches until no arena is free. Matches with an entrant in another
+     * fight wait; offline entrants lose by walkover once the no-show time is up.
+     */
+    private void schedule(Tournament t) {
+        int noShowTicks = Config.getTournamentNoShowSeconds() * 20;
+        List<Match> waiting = new ArrayList<>();
+        while (!t.ready.isEmpty() && tournament == t) {
+            Match m = t.ready.poll();
+            ServerPlayer a = online(t, m.a);
+            ServerPlayer b = online(t, m.b);
+            if (a == null || b == null) {
+                if (ticks - m.readyTick < noShowTicks) waiting.add(m);
+                else walkover(t, m, a != null ? m.a : b != null ? m.b : Math.min(m.a, m.b));
+                continue;
+            }
+            if (fightManager.isBusy(a) || fightManager.isBusy(b)) {
+                waiting.add(m);
+                continue;
+            }
+            if (fightManager.startTeamFight(List.of(List.of(a), List.of(b)), t.arenaTag) != null) {
+                // no free arena: the next release picks up from here
+                waiting.add(m);
+                break;
+            }
+            m.running = true;
+            t.running.add(m);
+            t.arenaSlots++;
+        }
+        t.ready.addAll(waiting);
+    }
+
+    private ServerPlayer online(Tournament t, int entrant) {
+        return t.server.getPlayerList().getPlayer(t.ids.get(entrant));
+    }
+
+    /** Once per second: replays matches whose fight vanished without a result, then schedules. */
+    void tick() {
+        Tournament t = tournament;
+        if (t == null || !t.started || ++ticks % 20 != 0) return;
+        for (Iterator<Match> it = t.running.iterator(); it.hasNext(); ) {
+            Match m = it.next();
+            if (fightManager.isPlayerInFight(online(t, m.a)) || fightManager.isPlayerInFight(online(t, m.b))) continue;
+            it.remove();
+            m.running = false;
+            m.readyTick = ticks;
+            t.ready.add(m);
+        }
+        schedule(t);
+    }
+
+    @SubscribeEvent
+    public void onFightEnded(FightEvent.Ended event) {
+        Tournament t = tournament;
+        FightResult result = event.getResult();
+        if (t == null || !t.started || result.participants().size() != 2) return;
+        Integer first = t.seedOf.get(result.participants().get(0).getUUID());
+        if (first == null) return;
+        Match m = t.current[first];
+        if (m == null || !m.running) return;
+        int other = first == m.a ? m.b : m.a;
+        if (!result.participants().get(1).getUUID().equals(t.ids.get(other))) return;
+
+        m.running = false;
+        t.running.remove(m);
+        if (!result.decisive()) {
+            // aborted: the damage leader is no fair result, play the match again
+            m.readyTick = ticks;
+            t.ready.add(m);
+            message(t, m.a, "§eYour tournament match was interrupted and will be replayed.");
+            message(t, m.b, "§eYour tournament match was interrupted and will be replayed.");
+            LOGGER.info("[TournamentManager] {} ended without a decision, replaying", m.label);
+            return;
+        }
+        decide(t, m, result.won(0) ? first : other);
+    }
+
+    /** Pipelines the next ready match into the arena that just freed up. */
+    @SubscribeEvent
+    public void onArenaReleased(FightEvent.ArenaReleased event) {
+        Tournament t = tournament;
+        if (t != null && t.started) schedule(t);
+    }
+
+    // =====================================================
+    // === Messages
+    // =====================================================
+
+    private void message(Tournament t, int entrant, String text) {
+        if (entrant >= 0) Util.sendMessage(online(t, entrant), text);
+    }
+
+    private void broadcast(Tournament t, String text) {
+        for (UUID id : t.ids) Util.sendMessage(t.server.getPlayerList().getPlayer(id), text);
+    }
+
+    // =====================================================
+    // === State
+    // =====================================================
+
+    static final class Tournament {
+        final MinecraftServer server;
+        final Format format;
+        final String arenaTag;
+        // entrants by seed (join order)
+        final List<UUID> ids = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final Map<UUID, Integer> seedOf = new HashMap<>();
+        final List<Match> matches = new ArrayList<>();
+        final PriorityQueue<Match> ready = new PriorityQueue<>(
+                Comparator.comparingInt((Match m) -> -m.level).thenComparingInt(m -> m.id));
+        final List<Match> running = new ArrayList<>();
+        boolean started;
+        // per entrant: the match they wait for or play, or null
+        Match[] current;
+        Match grandFinal;
+        boolean bracketReset;
+        int arenaSlots;
+        // set once the tournament is over (BYE if nobody won)
+        int champion = TBD;
+        // Swiss
+        int[] points;
+        boolean[] hadBye;
+        final List<Set<Integer>> opponents = new ArrayList<>();
+        int swissRound;
+        int swissRounds;
+        int openInRound;
+
+        Tournament(MinecraftServer server, Format format, String arenaTag) {
+            this.server = server;
+            this.format = format;
+            this.arenaTag = arenaTag;
+        }
+
+        Match add(String label) {
+            Match m = new Match(matches.size(), label);
+            matches.add(m);
+            return m;
+        }
+    }
+
+    static final class Match {
+        final int id;
+        final String label;
+        int a = TBD;
+        int b = TBD;
+        int winner = TBD;
+        Match winnerTo;
+        Match loserTo;
+        boolean winnerToA;
+        boolean loserToA;
+        // longest path (in matches) from here to the final
+        int level = 1;
+        boolean running;
+        int readyTick;
+
+        Match(int id, String label) {
+            this.id = id;
+            this.label = label;
+        }
+
+        void winnerTo(Match next, boolean sideA) {
+            winnerTo = next;
+            winnerToA = sideA;
+        }
+
+        void loserTo(Match next, boolean sideA) {
+            loserTo = next;
+            loserToA = sideA;
+        }
+    }
+}
